@@ -0,0 +1,67 @@
+package org.jurijz.loanamountapproval.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalRequest;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * Binding of /loan/requests body by ObjectMapper data binding and Bean Validation, as the endpoint did before,
+ * against LoanRequestBinder. Both read the same bytes and reject the same invalid requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanRequestBinderBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int batchSize;
+
+    private ObjectMapper objectMapper;
+    private Validator validator;
+    private LoanRequestBinder binder;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        binder = new LoanRequestBinder(objectMapper);
+        body = IntStream.range(0, batchSize)
+                .mapToObj(index -> String.format("{\"customerId\":\"%02d-%04d-%03d\",\"amount\":%d.%02d,"
+                        + "\"approvers\":[\"aaa\",\"bbb\"]}", index % 100, index / 1000, index % 1000, index, index % 100))
+                .collect(Collectors.joining(",", "{\"requests\":[", "]}"))
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<LoanRequestDto> dataBinding() throws IOException {
+        final LoanAmountApprovalRequest request = objectMapper.readValue(new ByteArrayInputStream(body),
+                LoanAmountApprovalRequest.class);
+        final Set<ConstraintViolation<LoanAmountApprovalRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException(violations.toString());
+        }
+        return request.getRequests();
+    }
+
+    @Benchmark
+    public List<LoanRequestDto> binder() throws IOException {
+        return binder.readRequests(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,108 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Pending requests keyed by customer id string in ConcurrentHashMap, as LoanRequestsCache kept them before, against
+ * LongKeyedMap keyed by encoded id. Lookup starts from id string in both cases, so encoding is part of the measured
+ * cost, though STRING lookups reuse id strings with cached hash, while ids parsed from requests are new strings.
+ * Footprint counts map structure only, requests and their ids are allocated before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class CustomerIdMapBenchmark {
+
+    public enum Keys {
+        STRING,
+        LONG
+    }
+
+    @Param({"STRING", "LONG"})
+    public Keys keys;
+    @Param({"10000", "1000000"})
+    public int customers;
+
+    private LoanRequest[] requests;
+    private String[] lookups;
+    private ConcurrentMap<String, LoanRequest> stringMap;
+    private LongKeyedMap<LoanRequest> longMap;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        requests = createRequests(customers);
+        lookups = new String[customers];
+        for (int i = 0; i < customers; i++) {
+            lookups[i] = new String(requests[(int) ((i * 2_654_435_761L) % customers)].getCustomerId());
+        }
+        stringMap = new ConcurrentHashMap<>();
+        longMap = new LongKeyedMap<>();
+        fill(keys, requests, stringMap, longMap);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double bytesPerRequest;
+    }
+
+    @Benchmark
+    public LoanRequest get() {
+        final String customerId = lookups[next++ % customers];
+        return keys == Keys.STRING ? stringMap.get(customerId) : longMap.get(LoanRequestsCache.toKey(customerId));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public Object fill(final Footprint footprint) {
+        final ConcurrentMap<String, LoanRequest> filledStringMap = new ConcurrentHashMap<>();
+        final LongKeyedMap<LoanRequest> filledLongMap = new LongKeyedMap<>();
+        final long before = usedMemory();
+        fill(keys, requests, filledStringMap, filledLongMap);
+        footprint.bytesPerRequest = (usedMemory() - before) / (double) customers;
+        return keys == Keys.STRING ? filledStringMap : filledLongMap;
+    }
+
+    private static void fill(final Keys keys, final LoanRequest[] requests,
+                             final ConcurrentMap<String, LoanRequest> stringMap,
+                             final LongKeyedMap<LoanRequest> longMap) {
+        for (final LoanRequest request : requests) {
+            if (keys == Keys.STRING) {
+                stringMap.put(request.getCustomerId(), request);
+            } else {
+                longMap.put(LoanRequestsCache.toKey(request.getCustomerId()), request);
+            }
+        }
+    }
+
+    private static LoanRequest[] createRequests(final int customers) {
+        final LoanRequest[] requests = new LoanRequest[customers];
+        for (int i = 0; i < customers; i++) {
+            final LoanRequest request = new LoanRequest();
+            request.setCustomerId(String.format("%02d-%04d-%03d", i / 10_000_000, i / 1000 % 10_000, i % 1000));
+            request.setAmount(BigDecimal.valueOf(i));
+            requests[i] = request;
+        }
+        return requests;
+    }
+
+    private static long usedMemory() {
+        System.gc();
+        System.gc();
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
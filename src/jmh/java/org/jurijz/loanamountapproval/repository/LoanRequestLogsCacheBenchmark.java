@@ -0,0 +1,128 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Logs cache with given number of logs spread evenly over one week and HISTORY_DAYS of rolled up hours before it,
+ * queried by periods of different length ending in the middle of that week. add measures time to add NEW_LOGS logs
+ * after that week into cache refilled before every iteration, so cache does not grow from iteration to iteration.
+ * aggregateWindow and readWindow aggregate the last minute of that week, the first one allocates new aggregate for
+ * every call, the second reuses window accumulator, run with -PjmhProfilers=gc to compare allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanRequestLogsCacheBenchmark {
+
+    private static final LocalDateTime WEEK_START = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final Duration WEEK = Duration.ofDays(7);
+    private static final long SEED = 42;
+    private static final int HISTORY_DAYS = 90;
+    private static final int NEW_LOGS = 1 << 16;
+
+    @Param({"10000", "1000000"})
+    public int logs;
+    @Param({"PT1M", "PT1H", "P1D", "P90D"})
+    public String period;
+
+    private LoanAmountAggregate[] rolledUpHours;
+    private LoanRequestLog[] weekLogs;
+    private LoanRequestLog[] newLogs;
+    private LoanRequestLogsCache cache;
+    private LocalDateTime periodStart;
+    private LocalDateTime periodEnd;
+    private LocalDateTime windowEnd;
+
+    @State(Scope.Benchmark)
+    public static class Additions {
+
+        private LoanRequestLogsCache cache;
+        private int nextLog;
+
+        @Setup(Level.Iteration)
+        public void refill(final LoanRequestLogsCacheBenchmark benchmark) {
+            cache = benchmark.createCache();
+            nextLog = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(SEED);
+        final long stepNanos = WEEK.toNanos() / logs;
+        rolledUpHours = new LoanAmountAggregate[HISTORY_DAYS * 24];
+        for (int hour = 0; hour < rolledUpHours.length; hour++) {
+            rolledUpHours[hour] = new LoanAmountAggregate();
+            rolledUpHours[hour].add(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+        }
+        weekLogs = new LoanRequestLog[logs];
+        for (int i = 0; i < logs; i++) {
+            weekLogs[i] = LoanRequestLog.builder()
+                    .amount(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+                    .sentToCustomerTime(WEEK_START.plusNanos(i * stepNanos))
+                    .build();
+        }
+        newLogs = new LoanRequestLog[NEW_LOGS];
+        for (int i = 0; i < newLogs.length; i++) {
+            newLogs[i] = LoanRequestLog.builder()
+                    .amount(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+                    .sentToCustomerTime(WEEK_START.plus(WEEK).plusNanos(i * stepNanos))
+                    .build();
+        }
+        cache = createCache();
+        periodEnd = WEEK_START.plus(WEEK.dividedBy(2));
+        periodStart = periodEnd.minus(Duration.parse(period));
+        windowEnd = WEEK_START.plus(WEEK);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = NEW_LOGS)
+    @Measurement(iterations = 5, batchSize = NEW_LOGS)
+    public void add(final Additions additions) {
+        additions.cache.add(newLogs[additions.nextLog++]);
+    }
+
+    @Benchmark
+    public List<LoanRequestLog> getByPeriod() {
+        return cache.getByPeriod(periodStart, periodEnd);
+    }
+
+    @Benchmark
+    public LoanAmountAggregate aggregateByPeriod() {
+        return cache.aggregateByPeriod(periodStart, periodEnd);
+    }
+
+    @Benchmark
+    public LoanAmountAggregate aggregateWindow() {
+        return cache.aggregateWindow(windowEnd);
+    }
+
+    @Benchmark
+    public long readWindow() {
+        return cache.readWindow(windowEnd, LoanAmountAggregate::getCount);
+    }
+
+    private LoanRequestLogsCache createCache() {
+        final LoanRequestLogsCache created = new LoanRequestLogsCache();
+        for (int hour = 0; hour < rolledUpHours.length; hour++) {
+            created.addRolledUpHour(WEEK_START.minusHours(hour + 1), rolledUpHours[hour]);
+        }
+        for (final LoanRequestLog log : weekLogs) {
+            created.add(log);
+        }
+        return created;
+    }
+}
@@ -0,0 +1,59 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Fills logs cache in every storage mode and reports retained heap plus direct memory per log as bytesPerLog.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class LoanRequestLogsCacheFootprintBenchmark {
+
+    @Param({"OBJECTS", "COLUMNAR", "OFF_HEAP"})
+    public LoanRequestLogStorage storage;
+    @Param({"1000000"})
+    public int logs;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double bytesPerLog;
+    }
+
+    @Benchmark
+    public LoanRequestLogsCache fill(final Footprint footprint) {
+        final long before = usedMemory();
+        final LoanRequestLogsCache cache = new LoanRequestLogsCache(storage);
+        final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < logs; i++) {
+            cache.add(LoanRequestLog.builder()
+                    .amount(BigDecimal.valueOf(100_000L + i % 50_000, 2))
+                    .sentToCustomerTime(start.plusNanos(i * 10_000_000L))
+                    .build());
+        }
+        footprint.bytesPerLog = (usedMemory() - before) / (double) logs;
+        return cache;
+    }
+
+    private static long usedMemory() {
+        System.gc();
+        System.gc();
+        final Runtime runtime = Runtime.getRuntime();
+        final long direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+        return runtime.totalMemory() - runtime.freeMemory() + direct;
+    }
+}
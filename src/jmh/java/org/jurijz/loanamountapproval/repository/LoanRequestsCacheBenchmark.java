@@ -0,0 +1,81 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Contention benchmark for pending requests cache. Half of the customers stay pending, every operation looks up
+ * random customer, tries to claim it and releases successful claim again, so threads keep fighting over same keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanRequestsCacheBenchmark {
+
+    private static final int CUSTOMERS = 1 << 14;
+
+    private LoanRequestsCache cache;
+    private LoanRequest[] requests;
+
+    @Setup
+    public void setUp() {
+        cache = new LoanRequestsCache();
+        requests = new LoanRequest[CUSTOMERS];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            final LoanRequest request = new LoanRequest();
+            request.setCustomerId(String.format("AB-%04d-%03d", i / 1000, i % 1000));
+            request.setAmount(BigDecimal.valueOf(i));
+            requests[i] = request;
+            if (i % 2 == 0) {
+                cache.add(request);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean claimOrReject01Thread() {
+        return claimOrReject();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean claimOrReject04Threads() {
+        return claimOrReject();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean claimOrReject08Threads() {
+        return claimOrReject();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean claimOrReject16Threads() {
+        return claimOrReject();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean claimOrReject32Threads() {
+        return claimOrReject();
+    }
+
+    private boolean claimOrReject() {
+        final LoanRequest request = requests[ThreadLocalRandom.current().nextInt(CUSTOMERS)];
+        final boolean pending = cache.get(request.getCustomerId()) != null;
+        if (cache.addIfAbsent(request)) {
+            cache.remove(request.getCustomerId());
+            return !pending;
+        }
+        return pending;
+    }
+}
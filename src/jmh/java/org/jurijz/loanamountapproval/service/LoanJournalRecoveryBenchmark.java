@@ -0,0 +1,100 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanSnapshotStore;
+import org.jurijz.loanamountapproval.repository.MappedLoanJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+ * Startup recovery of journal holding given number of days of completed requests at constant rate, either from
+ * the whole journal or from snapshot taken at the end of history plus a fixed tail of later records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class LoanJournalRecoveryBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(1);
+    private static final long RETENTION_HOURS = 24;
+    private static final int REQUESTS_PER_HOUR = 1_000;
+    private static final int TAIL_REQUESTS = 10_000;
+
+    @Param({"1", "7", "30"})
+    public int days;
+    @Param({"JOURNAL", "SNAPSHOT"})
+    public String recovery;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("loan-journal");
+        final int requests = days * 24 * REQUESTS_PER_HOUR;
+        final LocalDateTime start = LocalDateTime.now().minusDays(days);
+        final long stepNanos = Duration.ofDays(days).toNanos() / requests;
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            for (int i = 0; i < requests; i++) {
+                completeRequest(journal, i, start.plusNanos(i * stepNanos));
+            }
+            if ("SNAPSHOT".equals(recovery)) {
+                createService(journal, new LoanRequestsCache(), new LoanRequestLogsCache()).takeSnapshot();
+            }
+            for (int i = 0; i < TAIL_REQUESTS; i++) {
+                completeRequest(journal, requests + i, LocalDateTime.now());
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public LoanRequestLogsCache recover() throws IOException {
+        final LoanRequestLogsCache logsCache = new LoanRequestLogsCache();
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            createService(journal, new LoanRequestsCache(), logsCache).recover();
+        }
+        return logsCache;
+    }
+
+    private LoanJournalRecoveryService createService(final MappedLoanJournal journal,
+                                                     final LoanRequestsCache requestsCache,
+                                                     final LoanRequestLogsCache logsCache) throws IOException {
+        return new LoanJournalRecoveryService(journal, new LoanSnapshotStore(directory), requestsCache, logsCache,
+                RETENTION_HOURS);
+    }
+
+    private static void completeRequest(final MappedLoanJournal journal, final int index, final LocalDateTime time) {
+        final String customerId = String.format("%02d-%04d-%03d", index % 100, index % 10_000, index % 1000);
+        final LoanRequest loanRequest = new LoanRequest();
+        loanRequest.setCustomerId(customerId);
+        loanRequest.setAmount(BigDecimal.valueOf(100_000L + index % 50_000, 2));
+        loanRequest.setApprovers(Set.of("aaa"));
+        journal.requestAdded(loanRequest);
+        journal.requestApproved(customerId, "aaa");
+        journal.logAdded(new LoanRequestLog(loanRequest.getAmount(), time));
+        journal.requestRemoved(customerId);
+    }
+}
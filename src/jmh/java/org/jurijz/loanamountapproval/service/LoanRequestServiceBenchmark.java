@@ -0,0 +1,204 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.jurijz.loanamountapproval.converter.LoanRequestConverter;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.NotificationToCustomerDto;
+import org.jurijz.loanamountapproval.domain.dto.NotificationToManagerDto;
+import org.jurijz.loanamountapproval.exception.ManagerApprovalException;
+import org.jurijz.loanamountapproval.repository.LoanJournal;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * In-memory cost of request processing and approvals, outbound notifications are replaced by no-op. Every request
+ * state change is handed over to customer shard thread, approvals of many threads show how it scales with shards.
+ * With contended approvals all threads approve and resubmit requests of the same CONTENDED_CUSTOMERS customers, so
+ * they meet on the same shard and the same requests, approval of request completed by another thread is rejected.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanRequestServiceBenchmark {
+
+    private static final Set<String> APPROVERS = Set.of("aaa", "bbb", "ccc");
+    private static final int CUSTOMERS_PER_THREAD = 1024;
+    private static final int CONTENDED_CUSTOMERS = 16;
+    private static final int PARTITION_SIZE = 256;
+
+    @State(Scope.Thread)
+    public static class Batch {
+
+        @Param({"1", "100", "10000"})
+        public int batchSize;
+
+        @Param({"1", "8"})
+        public int parallelism;
+
+        private List<LoanRequestDto> requests;
+        private PartitionedBatchExecutor batchExecutor;
+        private CustomerShardExecutor shardExecutor;
+        private LoanRequestService service;
+
+        @Setup(Level.Trial)
+        public void createRequests() {
+            requests = IntStream.range(0, batchSize)
+                    .mapToObj(index -> createRequest(index, 0))
+                    .collect(Collectors.toList());
+            batchExecutor = new PartitionedBatchExecutor(parallelism, PARTITION_SIZE, false);
+            shardExecutor = new CustomerShardExecutor(parallelism, false);
+        }
+
+        @Setup(Level.Invocation)
+        public void createService() {
+            service = createService(new LoanRequestsCache(), new LoanRequestLogsCache(), batchExecutor,
+                    shardExecutor);
+        }
+
+        @TearDown(Level.Trial)
+        public void shutdown() {
+            batchExecutor.shutdown();
+            shardExecutor.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedCaches {
+
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Param({"1", "8"})
+        public int shards;
+
+        @Param({"false", "true"})
+        public boolean contended;
+
+        private final PartitionedBatchExecutor batchExecutor = new PartitionedBatchExecutor(1, PARTITION_SIZE, false);
+        private CustomerShardExecutor shardExecutor;
+        private LoanRequestService service;
+
+        @Setup
+        public void setUp() {
+            shardExecutor = new CustomerShardExecutor(shards, false);
+            service = createService(new LoanRequestsCache(), new LoanRequestLogsCache(), batchExecutor,
+                    shardExecutor);
+        }
+
+        @TearDown
+        public void shutdown() {
+            batchExecutor.shutdown();
+            shardExecutor.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Approvals {
+
+        private int thread;
+        private int customers;
+        private int next;
+        private List<ManagerApprovalDto> approvals;
+
+        @Setup
+        public void setUp(final SharedCaches caches) {
+            thread = caches.contended ? 0 : caches.threads.getAndIncrement();
+            customers = caches.contended ? CONTENDED_CUSTOMERS : CUSTOMERS_PER_THREAD;
+            approvals = APPROVERS.stream().map(username -> {
+                final ManagerApprovalDto approval = new ManagerApprovalDto();
+                approval.setUsername(username);
+                return approval;
+            }).collect(Collectors.toList());
+            caches.service.processRequests(IntStream.range(0, customers)
+                    .mapToObj(index -> createRequest(index, thread))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Benchmark
+    public List<LoanRequestResultDto> processRequests(final Batch batch) {
+        return batch.service.processRequests(batch.requests);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void approveRequest01Thread(final SharedCaches caches, final Approvals approvals) {
+        approveAndResubmit(caches, approvals);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void approveRequest08Threads(final SharedCaches caches, final Approvals approvals) {
+        approveAndResubmit(caches, approvals);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void approveRequest32Threads(final SharedCaches caches, final Approvals approvals) {
+        approveAndResubmit(caches, approvals);
+    }
+
+    /*
+     * All approvers approve one request of the thread, which completes it, and same request is submitted again.
+     * Contended threads share requests, approval of request already completed by another thread is rejected.
+     */
+    private static void approveAndResubmit(final SharedCaches caches, final Approvals approvals) {
+        final int customer = approvals.next++ % approvals.customers;
+        final String customerId = createCustomerId(customer, approvals.thread);
+        for (final ManagerApprovalDto approval : approvals.approvals) {
+            approval.setCustomerId(customerId);
+            try {
+                caches.service.approveRequest(approval);
+            } catch (final ManagerApprovalException exception) {
+                break;
+            }
+        }
+        caches.service.processRequests(List.of(createRequest(customer, approvals.thread)));
+    }
+
+    private static LoanRequestService createService(final LoanRequestsCache requestsCache,
+                                                    final LoanRequestLogsCache logsCache,
+                                                    final PartitionedBatchExecutor batchExecutor,
+                                                    final CustomerShardExecutor shardExecutor) {
+        return new LoanRequestService(requestsCache, logsCache, new LoanRequestConverter(),
+                new NoOpLoanExternalService(), batchExecutor, shardExecutor, LoanJournal.NONE);
+    }
+
+    private static LoanRequestDto createRequest(final int customer, final int thread) {
+        return LoanRequestDto.builder()
+                .customerId(createCustomerId(customer, thread))
+                .amount(BigDecimal.valueOf(1000 + customer))
+                .approvers(APPROVERS)
+                .build();
+    }
+
+    private static String createCustomerId(final int customer, final int thread) {
+        return String.format("%02d-%04d-%03d", thread, customer / 1000, customer % 1000);
+    }
+
+    private static class NoOpLoanExternalService extends LoanExternalService {
+
+        NoOpLoanExternalService() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public void sendToManagers(final List<NotificationToManagerDto> notificationDtos) {
+        }
+
+        @Override
+        public void sendToCustomer(final NotificationToCustomerDto notificationToCustomerDto) {
+        }
+    }
+}
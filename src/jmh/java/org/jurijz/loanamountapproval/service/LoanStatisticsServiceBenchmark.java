@@ -0,0 +1,76 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanStatisticsCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Statistics of one day of logs, queried by explicit periods of different length and by default last minute period.
+ * Service clock is fixed at the end of that day, so every invocation sees the same logs. Explicit periods end a second
+ * before it, so with non-zero cache size repeated queries are answered from statistics cache. Cluster has this node
+ * only, so statistics are gathered locally.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanStatisticsServiceBenchmark {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long SEED = 42;
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 1, 2, 0, 0);
+
+    @Param({"100000", "1000000"})
+    public int logs;
+    @Param({"DEFAULT", "PT1M", "PT1H", "P1D"})
+    public String period;
+    @Param({"0", "1024"})
+    public int cacheSize;
+
+    private LoanStatisticsService service;
+    private String periodStart;
+    private String periodEnd;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(SEED);
+        final LocalDateTime dayStart = NOW.minusDays(1);
+        final long stepNanos = Duration.ofDays(1).toNanos() / logs;
+        final LoanRequestLogsCache cache = new LoanRequestLogsCache();
+        for (int i = 0; i < logs; i++) {
+            cache.add(LoanRequestLog.builder()
+                    .amount(BigDecimal.valueOf(random.nextInt(1_000_000), 2))
+                    .sentToCustomerTime(dayStart.plusNanos(i * stepNanos))
+                    .build());
+        }
+        final LoanClusterService clusterService = new LoanClusterService(null, new LoanRequestsCache(), cache,
+                LoanClusterTransport.NONE, "localhost:8080", List.of(), 128);
+        service = new LoanStatisticsService(cache, new LoanStatisticsCache(cache, cacheSize), clusterService,
+                Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        if (!"DEFAULT".equals(period)) {
+            final LocalDateTime end = NOW.minusSeconds(1);
+            periodStart = DATE_TIME_FORMATTER.format(end.minus(Duration.parse(period)));
+            periodEnd = DATE_TIME_FORMATTER.format(end);
+        }
+    }
+
+    @Benchmark
+    public LoanApprovalStatistics gatherStatistics() {
+        return service.gatherStatistics(periodStart, periodEnd);
+    }
+}
@@ -0,0 +1,79 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * Time to deliver burst of notifications with 20 ms remote latency each, by pool of 200 platform threads (Tomcat
+ * default) and by one virtual thread per notification. virtualThreads runs only on Java 21 or newer, build excludes
+ * it on older Java.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NotificationDispatcherThreadsBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+    private static final Duration REMOTE_LATENCY = Duration.ofMillis(20);
+
+    public abstract static class Dispatcher {
+
+        @Param({"1000", "10000"})
+        public int notifications;
+
+        protected NotificationDispatcher dispatcher;
+
+        @TearDown
+        public void tearDown() throws InterruptedException {
+            dispatcher.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PlatformDispatcher extends Dispatcher {
+
+        @Setup
+        public void setUp() {
+            dispatcher = new NotificationDispatcher(notifications, PLATFORM_THREADS, 0, Duration.ofMillis(10),
+                    Duration.ofSeconds(30), false);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class VirtualDispatcher extends Dispatcher {
+
+        @Setup
+        public void setUp() {
+            dispatcher = new NotificationDispatcher(notifications, notifications, 0, Duration.ofMillis(10),
+                    Duration.ofSeconds(30), true);
+        }
+    }
+
+    @Benchmark
+    public void platformThreads(final PlatformDispatcher state) throws InterruptedException {
+        deliverBurst(state);
+    }
+
+    @Benchmark
+    public void virtualThreads(final VirtualDispatcher state) throws InterruptedException {
+        deliverBurst(state);
+    }
+
+    private static void deliverBurst(final Dispatcher state) throws InterruptedException {
+        final CountDownLatch delivered = new CountDownLatch(state.notifications);
+        final List<Mono<Void>> deliveries = IntStream.range(0, state.notifications)
+                .mapToObj(index -> Mono.delay(REMOTE_LATENCY).then(Mono.fromRunnable(delivered::countDown)).then())
+                .collect(Collectors.toList());
+        state.dispatcher.dispatch(deliveries);
+        delivered.await();
+    }
+}
@@ -0,0 +1,48 @@
+package org.jurijz.loanamountapproval.configuration;
+
+import org.jurijz.loanamountapproval.converter.LoanAmountAggregateConverter;
+import org.jurijz.loanamountapproval.service.HttpLoanClusterTransport;
+import org.jurijz.loanamountapproval.service.LoanClusterTransport;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+@Configuration
+public class ClusterConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "loan.approval.cluster.enabled", havingValue = "true")
+    public LoanClusterTransport httpLoanClusterTransport(final WebClient webClient,
+                                                         final LoanAmountAggregateConverter aggregateConverter,
+                                                         @Value("${loan.approval.cluster.timeout}") final Duration timeout,
+                                                         @Value("${loan.approval.cluster.secret}") final String secret) {
+        return new HttpLoanClusterTransport(webClient, aggregateConverter, timeout, secret);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(LoanClusterTransport.class)
+    public LoanClusterTransport loanClusterTransport() {
+        return LoanClusterTransport.NONE;
+    }
+
+    /*
+     * Requests are routed to owning nodes and cluster endpoints are served by Spring MVC handlers only, reactive
+     * handlers would process requests of customers owned by other nodes locally, so such node refuses to start.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @ConditionalOnProperty(name = "loan.approval.cluster.enabled", havingValue = "true")
+    public SmartInitializingSingleton reactiveClusterGuard() {
+        return () -> {
+            throw new IllegalStateException("Cluster mode is not supported by reactive web application, "
+                    + "run cluster nodes with spring.main.web-application-type=servlet");
+        };
+    }
+}
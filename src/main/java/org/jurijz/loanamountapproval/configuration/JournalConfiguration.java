@@ -0,0 +1,41 @@
+package org.jurijz.loanamountapproval.configuration;
+
+import org.jurijz.loanamountapproval.repository.LoanJournal;
+import org.jurijz.loanamountapproval.repository.LoanSnapshotStore;
+import org.jurijz.loanamountapproval.repository.MappedLoanJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class JournalConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "loan.approval.journal.enabled", havingValue = "true")
+    public MappedLoanJournal mappedLoanJournal(@Value("${loan.approval.journal.directory}") final Path directory,
+                                              @Value("${loan.approval.journal.segment-size}") final DataSize segmentSize,
+                                              @Value("${loan.approval.journal.flush-interval}") final Duration flushInterval)
+            throws IOException {
+        return new MappedLoanJournal(directory, Math.toIntExact(segmentSize.toBytes()), flushInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "loan.approval.journal.enabled", havingValue = "true")
+    public LoanSnapshotStore loanSnapshotStore(@Value("${loan.approval.journal.directory}") final Path directory)
+            throws IOException {
+        return new LoanSnapshotStore(directory);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(LoanJournal.class)
+    public LoanJournal loanJournal() {
+        return LoanJournal.NONE;
+    }
+}
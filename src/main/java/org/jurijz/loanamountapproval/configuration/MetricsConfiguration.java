@@ -0,0 +1,95 @@
+package org.jurijz.loanamountapproval.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanStatisticsCache;
+import org.jurijz.loanamountapproval.repository.MappedLoanJournal;
+import org.jurijz.loanamountapproval.service.LoanExternalService;
+import org.jurijz.loanamountapproval.service.NotificationDispatcher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Supplier;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(final MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder loanApprovalMetrics(final LoanRequestsCache loanRequestsCache,
+                                           final LoanRequestLogsCache loanRequestLogsCache,
+                                           final LoanStatisticsCache loanStatisticsCache,
+                                           final NotificationDispatcher notificationDispatcher,
+                                           final LoanExternalService loanExternalService) {
+        return registry -> {
+            Gauge.builder("loan.requests.pending", loanRequestsCache, LoanRequestsCache::size)
+                    .description("Loan requests waiting for manager approvals")
+                    .register(registry);
+            FunctionCounter.builder("loan.requests.rejected", loanRequestsCache, LoanRequestsCache::getRejectedCount)
+                    .description("Loan requests rejected because customer already has pending request")
+                    .tag("reason", "duplicate")
+                    .register(registry);
+            Gauge.builder("loan.logs.buckets", loanRequestLogsCache, LoanRequestLogsCache::getBucketCount)
+                    .description("Minute buckets keeping raw approval logs")
+                    .register(registry);
+            Gauge.builder("loan.logs", loanRequestLogsCache, LoanRequestLogsCache::getLogCount)
+                    .description("Raw approval logs kept in cache")
+                    .register(registry);
+            Gauge.builder("loan.statistics.cache.size", loanStatisticsCache, LoanStatisticsCache::size)
+                    .description("Statistics of past periods kept in cache")
+                    .register(registry);
+            FunctionCounter.builder("loan.statistics.cache", loanStatisticsCache, LoanStatisticsCache::getHitCount)
+                    .description("Statistics of past periods answered from cache")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("loan.statistics.cache", loanStatisticsCache, LoanStatisticsCache::getMissCount)
+                    .description("Statistics of past periods computed and offered to cache")
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("loan.notifications.backlog", notificationDispatcher, NotificationDispatcher::getBacklogSize)
+                    .description("Notifications queued or being delivered")
+                    .register(registry);
+            registerNotificationCounters(registry, "managers", loanExternalService::getDeliveredToManagers,
+                    loanExternalService::getFailedToManagers);
+            registerNotificationCounters(registry, "customers", loanExternalService::getDeliveredToCustomers,
+                    loanExternalService::getFailedToCustomers);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "loan.approval.journal.enabled", havingValue = "true")
+    public MeterBinder loanJournalMetrics(final MappedLoanJournal mappedLoanJournal) {
+        return registry -> {
+            Gauge.builder("loan.journal.healthy", mappedLoanJournal, journal -> journal.isHealthy() ? 1 : 0)
+                    .description("1 when last journal flush succeeded, 0 while records cannot be forced to disk")
+                    .register(registry);
+            FunctionCounter.builder("loan.journal.flush.failed", mappedLoanJournal,
+                    MappedLoanJournal::getFlushFailureCount)
+                    .description("Journal flushes failed since start")
+                    .register(registry);
+        };
+    }
+
+    private static void registerNotificationCounters(final MeterRegistry registry, final String recipient,
+                                                     final Supplier<Number> delivered,
+                                                     final Supplier<Number> failed) {
+        FunctionCounter.builder("loan.notifications.delivered", delivered, count -> count.get().doubleValue())
+                .description("Notifications delivered to external service")
+                .tag("recipient", recipient)
+                .register(registry);
+        FunctionCounter.builder("loan.notifications.failed", failed, count -> count.get().doubleValue())
+                .description("Notifications not delivered after all retries")
+                .tag("recipient", recipient)
+                .register(registry);
+    }
+}
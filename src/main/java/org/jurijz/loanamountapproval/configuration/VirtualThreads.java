@@ -0,0 +1,52 @@
+package org.jurijz.loanamountapproval.configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when application runs on Java 21 or newer. Project is compiled for Java 15, see
+ * sourceCompatibility in build.gradle, so thread builder API is looked up reflectively and
+ * loan.approval.threads.virtual=true requires Java 21 or newer at runtime, older Java fails at startup with
+ * IllegalStateException.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates factory of virtual threads named by prefix and sequence number.
+     * @param namePrefix String thread name prefix
+     * @return ThreadFactory virtual thread factory
+     * @throws IllegalStateException thrown when running Java does not support virtual threads
+     */
+    public static ThreadFactory newThreadFactory(final String namePrefix) {
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (final ReflectiveOperationException exception) {
+            throw new IllegalStateException(String.format("Virtual threads require Java 21 or newer, running on %s",
+                    Runtime.version()), exception);
+        }
+    }
+
+    /**
+     * Creates executor starting new virtual thread for every task.
+     * @param namePrefix String thread name prefix
+     * @return ExecutorService virtual thread per task executor
+     * @throws IllegalStateException thrown when running Java does not support virtual threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(final String namePrefix) {
+        final ThreadFactory threadFactory = newThreadFactory(namePrefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (final ReflectiveOperationException exception) {
+            throw new IllegalStateException(String.format("Virtual threads require Java 21 or newer, running on %s",
+                    Runtime.version()), exception);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.jurijz.loanamountapproval.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "loan.approval.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-"));
+    }
+}
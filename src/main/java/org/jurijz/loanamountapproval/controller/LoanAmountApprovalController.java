@@ -1,42 +1,110 @@
 package org.jurijz.loanamountapproval.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.converter.LoanRequestBinder;
 import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
-import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalRequest;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalResponse;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
 import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
-import org.jurijz.loanamountapproval.exception.CustomerLoanApprovalException;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsRequest;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsResponse;
+import org.jurijz.loanamountapproval.domain.dto.PendingRequestsResponse;
+import org.jurijz.loanamountapproval.exception.ClusterNodeException;
+import org.jurijz.loanamountapproval.exception.CustomerIdException;
+import org.jurijz.loanamountapproval.exception.LoanRequestBindingException;
 import org.jurijz.loanamountapproval.exception.ManagerApprovalException;
+import org.jurijz.loanamountapproval.exception.NotificationBacklogException;
 import org.jurijz.loanamountapproval.exception.StatisticsPeriodException;
+import org.jurijz.loanamountapproval.service.LoanClusterService;
 import org.jurijz.loanamountapproval.service.LoanRequestService;
+import org.jurijz.loanamountapproval.service.LoanRequestStreamService;
 import org.jurijz.loanamountapproval.service.LoanStatisticsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
+@Validated
 @RequestMapping("loan")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LoanAmountApprovalController {
 
     private final LoanRequestService loanRequestService;
+    private final LoanClusterService loanClusterService;
     private final LoanStatisticsService loanStatisticsService;
+    private final LoanRequestStreamService loanRequestStreamService;
+    private final LoanRequestBinder loanRequestBinder;
 
-    @PostMapping(path = "/requests", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public void createLoanAmountApprovalRequest(@Valid @NotNull @RequestBody final LoanAmountApprovalRequest request) {
-        loanRequestService.processRequests(request.getRequests());
+    /*
+     * Body is LoanAmountApprovalRequest, bound and validated by LoanRequestBinder instead of data binding and Bean
+     * Validation, with the same violation messages.
+     */
+    @PostMapping(path = "/requests", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public LoanAmountApprovalResponse createLoanAmountApprovalRequest(final HttpServletRequest request)
+            throws IOException {
+        final List<LoanRequestDto> requests;
+        try {
+            requests = loanRequestBinder.readRequests(request.getInputStream());
+        } catch (final JsonProcessingException exception) {
+            throw new HttpMessageNotReadableException(exception.getOriginalMessage(), exception,
+                    new ServletServerHttpRequest(request));
+        }
+        return new LoanAmountApprovalResponse(loanClusterService.processRequests(requests));
+    }
+
+    @PostMapping(path = "/requests/stream",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamLoanAmountApprovalRequests(final HttpServletRequest request, final HttpServletResponse response)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        loanRequestStreamService.processStream(request.getInputStream(), response.getOutputStream());
     }
 
     @PutMapping(path = "/approvals", consumes = MediaType.APPLICATION_JSON_VALUE)
     public void approveLoanAmountRequest(@Valid @RequestBody final ManagerApprovalDto approvalDto) {
-        loanRequestService.approveRequest(approvalDto);
+        loanClusterService.approveRequest(approvalDto);
+    }
+
+    @PutMapping(path = "/approvals/bulk", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ManagerApprovalsResponse approveLoanAmountRequests(
+            @Valid @NotNull @RequestBody final ManagerApprovalsRequest request) {
+        return new ManagerApprovalsResponse(loanClusterService.approveRequests(request.getApprovals()));
+    }
+
+    @GetMapping(path = "/managers/{username}/pending", produces = MediaType.APPLICATION_JSON_VALUE)
+    public PendingRequestsResponse getPendingRequests(@PathVariable("username") final String username,
+                                                      @RequestParam(required = false, name = "after") final String after,
+                                                      @RequestParam(defaultValue = "100", name = "limit")
+                                                      @Min(value = 1, message = "Limit cannot be less than 1.")
+                                                      @Max(value = 1000, message = "Limit cannot be more than 1000.")
+                                                      final int limit) {
+        return loanRequestService.getPendingRequests(username, after, limit);
     }
 
     @GetMapping(path = "/statistics", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -54,8 +122,23 @@ public class LoanAmountApprovalController {
                 .collect(Collectors.joining("\n")));
     }
 
-    @ExceptionHandler({CustomerLoanApprovalException.class, ManagerApprovalException.class, StatisticsPeriodException.class})
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<String> handleException(final ConstraintViolationException exception) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(exception.getConstraintViolations()
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("\n")));
+    }
+
+    @ExceptionHandler({ManagerApprovalException.class, StatisticsPeriodException.class,
+            LoanRequestBindingException.class, CustomerIdException.class})
     public ResponseEntity<String> handleException(final RuntimeException exception) {
         return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(exception.getMessage());
     }
+
+    @ExceptionHandler({NotificationBacklogException.class, ClusterNodeException.class})
+    public ResponseEntity<String> handleUnavailable(final RuntimeException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.TEXT_PLAIN)
+                .body(exception.getMessage());
+    }
 }
@@ -0,0 +1,133 @@
+package org.jurijz.loanamountapproval.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.jurijz.loanamountapproval.converter.LoanAmountAggregateConverter;
+import org.jurijz.loanamountapproval.converter.TransferredRequestConverter;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountAggregateDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalResponse;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsResponse;
+import org.jurijz.loanamountapproval.domain.dto.TransferredRequestDto;
+import org.jurijz.loanamountapproval.exception.ClusterAccessException;
+import org.jurijz.loanamountapproval.exception.CustomerIdException;
+import org.jurijz.loanamountapproval.service.HttpLoanClusterTransport;
+import org.jurijz.loanamountapproval.service.LoanClusterService;
+import org.jurijz.loanamountapproval.service.LoanRequestService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Internal endpoints called by other cluster nodes, forwarded items are validated again and processed locally without
+ * routing. Every call must carry shared cluster secret in HttpLoanClusterTransport.SECRET_HEADER, calls without it are
+ * forbidden, as are all calls when no secret is configured.
+ */
+@RestController
+@Validated
+@RequestMapping("loan/cluster")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "loan.approval.cluster.enabled", havingValue = "true")
+public class LoanClusterController {
+
+    private final LoanRequestService loanRequestService;
+    private final LoanClusterService loanClusterService;
+    private final TransferredRequestConverter transferredRequestConverter;
+    private final LoanAmountAggregateConverter aggregateConverter;
+    @Value("${loan.approval.cluster.secret}")
+    private final String secret;
+
+    /*
+     * Runs before body of any endpoint is read, secrets are compared in constant time.
+     */
+    @ModelAttribute
+    public void checkSecret(@RequestHeader(name = HttpLoanClusterTransport.SECRET_HEADER, required = false)
+                            final String givenSecret) {
+        if (secret.isEmpty() || givenSecret == null || !MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), givenSecret.getBytes(StandardCharsets.UTF_8))) {
+            throw new ClusterAccessException("Cluster secret is missing or does not match.");
+        }
+    }
+
+    @PostMapping(path = "/requests", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public LoanAmountApprovalResponse processForwardedRequests(
+            @NotNull @RequestBody final List<@Valid @NotNull LoanRequestDto> requests) {
+        return new LoanAmountApprovalResponse(loanRequestService.processRequests(requests));
+    }
+
+    @PutMapping(path = "/approvals", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ManagerApprovalsResponse approveForwardedRequests(
+            @NotNull @RequestBody final List<@Valid @NotNull ManagerApprovalDto> approvals) {
+        return new ManagerApprovalsResponse(loanRequestService.approveRequests(approvals));
+    }
+
+    @PutMapping(path = "/transfers", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void acceptTransferredRequests(
+            @NotNull @RequestBody final List<@Valid @NotNull TransferredRequestDto> requests) {
+        loanRequestService.acceptRequests(requests.stream()
+                .map(transferredRequestConverter::convert)
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping(path = "/aggregates", produces = MediaType.APPLICATION_JSON_VALUE)
+    public LoanAmountAggregateDto aggregateLogs(@RequestParam(required = false, name = "periodStart")
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                final LocalDateTime periodStart,
+                                                @RequestParam(name = "periodEnd")
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                final LocalDateTime periodEnd) {
+        return aggregateConverter.convert(loanClusterService.aggregateLocally(periodStart, periodEnd));
+    }
+
+    @GetMapping(path = "/nodes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<String> getNodes() {
+        return loanClusterService.getNodes();
+    }
+
+    @PutMapping(path = "/nodes", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void updateNodes(
+            @NotEmpty(message = "Cluster must have at least one node.") @RequestBody
+            final List<@NotBlank(message = "Node id cannot be empty.") String> nodes) {
+        loanClusterService.updateNodes(nodes);
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<String> handleException(final ConstraintViolationException exception) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(exception.getConstraintViolations()
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("\n")));
+    }
+
+    @ExceptionHandler(CustomerIdException.class)
+    public ResponseEntity<String> handleException(final CustomerIdException exception) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(exception.getMessage());
+    }
+
+    @ExceptionHandler(ClusterAccessException.class)
+    public ResponseEntity<String> handleException(final ClusterAccessException exception) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.TEXT_PLAIN)
+                .body(exception.getMessage());
+    }
+}
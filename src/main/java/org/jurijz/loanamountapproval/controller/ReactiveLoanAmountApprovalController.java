@@ -0,0 +1,133 @@
+package org.jurijz.loanamountapproval.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalRequest;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalResponse;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsRequest;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsResponse;
+import org.jurijz.loanamountapproval.domain.dto.PendingRequestsResponse;
+import org.jurijz.loanamountapproval.exception.ClusterNodeException;
+import org.jurijz.loanamountapproval.exception.CustomerIdException;
+import org.jurijz.loanamountapproval.exception.ManagerApprovalException;
+import org.jurijz.loanamountapproval.exception.NotificationBacklogException;
+import org.jurijz.loanamountapproval.exception.StatisticsPeriodException;
+import org.jurijz.loanamountapproval.service.LoanRequestService;
+import org.jurijz.loanamountapproval.service.LoanRequestStreamService;
+import org.jurijz.loanamountapproval.service.LoanStatisticsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.stream.Collectors;
+
+/**
+ * Loan endpoints served by WebFlux, active when application runs with spring.main.web-application-type=reactive.
+ */
+@Slf4j
+@RestController
+@Validated
+@RequestMapping("loan")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanAmountApprovalController {
+
+    private final LoanRequestService loanRequestService;
+    private final LoanStatisticsService loanStatisticsService;
+    private final LoanRequestStreamService loanRequestStreamService;
+
+    @PostMapping(path = "/requests", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<LoanAmountApprovalResponse> createLoanAmountApprovalRequest(
+            @Valid @RequestBody final Mono<LoanAmountApprovalRequest> request) {
+        return request.flatMap(body -> loanRequestService.processRequestsReactive(body.getRequests()))
+                .map(LoanAmountApprovalResponse::new);
+    }
+
+    @PostMapping(path = "/requests/stream",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<LoanRequestResultDto> streamLoanAmountApprovalRequests(@RequestBody final Flux<LoanRequestDto> requests) {
+        return loanRequestStreamService.processStreamReactive(requests);
+    }
+
+    @PutMapping(path = "/approvals", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Void> approveLoanAmountRequest(@Valid @RequestBody final Mono<ManagerApprovalDto> approvalDto) {
+        return approvalDto.flatMap(loanRequestService::approveRequestReactive);
+    }
+
+    @PutMapping(path = "/approvals/bulk", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ManagerApprovalsResponse> approveLoanAmountRequests(
+            @Valid @RequestBody final Mono<ManagerApprovalsRequest> request) {
+        return request.flatMap(body -> loanRequestService.approveRequestsReactive(body.getApprovals()))
+                .map(ManagerApprovalsResponse::new);
+    }
+
+    @GetMapping(path = "/managers/{username}/pending", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<PendingRequestsResponse> getPendingRequests(@PathVariable("username") final String username,
+                                                            @RequestParam(required = false, name = "after") final String after,
+                                                            @RequestParam(defaultValue = "100", name = "limit")
+                                                            @Min(value = 1, message = "Limit cannot be less than 1.")
+                                                            @Max(value = 1000, message = "Limit cannot be more than 1000.")
+                                                            final int limit) {
+        return Mono.fromSupplier(() -> loanRequestService.getPendingRequests(username, after, limit));
+    }
+
+    /*
+     * Statistics may scan many logs or wait for partial aggregates of other cluster nodes, so they are gathered on
+     * bounded elastic scheduler and never block event loop.
+     */
+    @GetMapping(path = "/statistics", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<LoanApprovalStatistics> getStatistics(@RequestParam(required = false, name = "periodStart") final String periodStart,
+                                                      @RequestParam(required = false, name = "periodEnd") final String periodEnd) {
+        log.info("Request for statistics received, start: {}, end: {}", periodStart, periodEnd);
+        return Mono.fromSupplier(() -> loanStatisticsService.gatherStatistics(periodStart, periodEnd))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<String> handleException(final WebExchangeBindException exception) {
+        return ResponseEntity.badRequest().body(exception.getBindingResult().getAllErrors()
+                .stream()
+                .map(DefaultMessageSourceResolvable::getDefaultMessage)
+                .collect(Collectors.joining("\n")));
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<String> handleException(final ConstraintViolationException exception) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(exception.getConstraintViolations()
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining("\n")));
+    }
+
+    @ExceptionHandler({ManagerApprovalException.class, StatisticsPeriodException.class,
+            CustomerIdException.class})
+    public ResponseEntity<String> handleException(final RuntimeException exception) {
+        return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(exception.getMessage());
+    }
+
+    @ExceptionHandler({NotificationBacklogException.class, ClusterNodeException.class})
+    public ResponseEntity<String> handleUnavailable(final RuntimeException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.TEXT_PLAIN)
+                .body(exception.getMessage());
+    }
+}
@@ -0,0 +1,55 @@
+package org.jurijz.loanamountapproval.converter;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanAmountSketch;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountAggregateDto;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@Component
+public class LoanAmountAggregateConverter implements Converter<LoanAmountAggregate, LoanAmountAggregateDto> {
+
+    @Override
+    public LoanAmountAggregateDto convert(final LoanAmountAggregate source) {
+        final ByteArrayOutputStream sketch = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(sketch)) {
+            source.getSketch().writeTo(output);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return LoanAmountAggregateDto.builder()
+                .count(source.getCount())
+                .sum(source.getSum())
+                .min(source.getMin())
+                .max(source.getMax())
+                .sketch(sketch.toByteArray())
+                .build();
+    }
+
+    /**
+     * Restores aggregate from its partial form, aggregate without sketch gets empty one.
+     * @param source LoanAmountAggregateDto partial aggregate
+     * @return LoanAmountAggregate aggregate ready to be merged
+     */
+    public LoanAmountAggregate toAggregate(final LoanAmountAggregateDto source) {
+        final LoanAmountSketch sketch;
+        if (source.getSketch() == null) {
+            sketch = new LoanAmountSketch();
+        } else {
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(source.getSketch()))) {
+                sketch = LoanAmountSketch.readFrom(input);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+        return new LoanAmountAggregate(source.getCount(), source.getSum(), source.getMin(), source.getMax(), sketch);
+    }
+
+}
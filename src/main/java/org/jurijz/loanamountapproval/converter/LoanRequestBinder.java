@@ -0,0 +1,299 @@
+package org.jurijz.loanamountapproval.converter;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalRequest;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.exception.LoanRequestBindingException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fast path of loan requests binding. Requests are read straight from JSON tokens, without tree or data binding, and
+ * checked by hand-written rules giving the same messages as Bean Validation constraints of LoanRequestDto. Values are
+ * coerced the way ObjectMapper does it, so both paths bind the same requests. Requests are bound into LoanRequestDto,
+ * the same object data binding creates, and are converted to LoanRequest later by LoanRequestConverter. Binding into
+ * LoanRequest directly would save one object and approvers set per request, but requests of customers owned by other
+ * cluster nodes are forwarded as LoanRequestDto, so the DTO stays the one bound type and LoanRequest, mutable state of
+ * pending request, is created only by node which stores it.
+ */
+@Component
+public class LoanRequestBinder {
+
+    private static final String REQUESTS = "requests";
+    private static final String CUSTOMER_ID = "customerId";
+    private static final String AMOUNT = "amount";
+    private static final String APPROVERS = "approvers";
+    private static final int CUSTOMER_ID_LENGTH = 11;
+    private static final int MIN_APPROVERS = 1;
+    private static final int MAX_APPROVERS = 3;
+    private static final int MAX_USERNAME_LENGTH = 64;
+
+    private static final String EMPTY_CUSTOMER_ID = "Customer Id cannot be empty.";
+    private static final String INVALID_CUSTOMER_ID = "Customer id must match pattern 'XX-XXXX-XXX'.";
+    private static final String NULL_AMOUNT = "Amount cannot be null.";
+    private static final String NULL_APPROVERS = "Approvers cannot be null.";
+    private static final String NULL_APPROVER = "Approver username cannot be null.";
+    private static final String TOO_FEW_APPROVERS = "Approvers cannot be less than 1.";
+    private static final String TOO_MANY_APPROVERS = "Approvers cannot be more than 3.";
+    private static final String TOO_LONG_APPROVER = "Approver username cannot be longer than 64 characters.";
+
+    private final ObjectMapper objectMapper;
+    private final boolean failOnUnknownProperties;
+
+    public LoanRequestBinder(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.failOnUnknownProperties = objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Reads and validates body of loan requests batch, object with requests array.
+     * @param input InputStream JSON body
+     * @return List<LoanRequestDto> valid requests in received order, empty when body has no requests
+     * @throws LoanRequestBindingException thrown when any request has value of wrong type or is not valid, whole batch
+     * is then rejected as with Bean Validation, message has messages of all such requests in received order separated
+     * by new line
+     * @throws JsonProcessingException thrown when body is missing or is not readable JSON
+     * @throws IOException thrown when body cannot be read
+     */
+    public List<LoanRequestDto> readRequests(final InputStream input) throws IOException {
+        final List<LoanRequestDto> requests = new ArrayList<>();
+        final StringBuilder violations = new StringBuilder();
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            expectBody(parser, parser.nextToken());
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+                if (!REQUESTS.equals(field)) {
+                    skipUnknown(parser, field);
+                } else if (token == JsonToken.START_ARRAY) {
+                    requests.clear();
+                    violations.setLength(0);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        readInto(parser, requests, violations);
+                    }
+                } else if (token != JsonToken.VALUE_NULL) {
+                    throw mismatch(null, String.format("Cannot deserialize instance of `java.util.ArrayList` out of %s "
+                            + "token", token));
+                }
+            }
+        }
+        if (violations.length() > 0) {
+            throw new LoanRequestBindingException(null, violations.toString());
+        }
+        return requests;
+    }
+
+    /**
+     * Reads one request object, parser stands on its START_OBJECT token and is left on its END_OBJECT token.
+     * @param parser JsonParser positioned at request
+     * @return LoanRequestDto bound, not yet validated request
+     * @throws LoanRequestBindingException thrown when value of field has wrong type, after whole object was read,
+     * so customer id is known and parser can continue with next request
+     * @throws IOException thrown when input is not readable JSON
+     */
+    public LoanRequestDto read(final JsonParser parser) throws IOException {
+        final JsonToken start = parser.currentToken();
+        if (start != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw mismatch(null, String.format("Cannot deserialize instance of `%s` out of %s token",
+                    LoanRequestDto.class.getName(), start));
+        }
+        final LoanRequestDto request = new LoanRequestDto();
+        String mismatch = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            try {
+                switch (field) {
+                    case CUSTOMER_ID:
+                        request.setCustomerId(readString(parser, token));
+                        break;
+                    case AMOUNT:
+                        request.setAmount(readAmount(parser, token));
+                        break;
+                    case APPROVERS:
+                        request.setApprovers(readApprovers(parser, token));
+                        break;
+                    default:
+                        skipUnknown(parser, field);
+                }
+            } catch (final LoanRequestBindingException exception) {
+                parser.skipChildren();
+                mismatch = mismatch == null ? exception.getMessage() : mismatch;
+            }
+        }
+        if (mismatch != null) {
+            throw new LoanRequestBindingException(request.getCustomerId(), mismatch);
+        }
+        return request;
+    }
+
+    /**
+     * Checks request by rules of LoanRequestDto constraints.
+     * @param request LoanRequestDto bound request
+     * @return String violation messages in order of LoanRequestDto fields separated by new line, empty when request
+     * is valid
+     */
+    public String validate(final LoanRequestDto request) {
+        final List<String> violations = new ArrayList<>(2);
+        final String customerId = request.getCustomerId();
+        if (customerId == null || customerId.trim().isEmpty()) {
+            violations.add(EMPTY_CUSTOMER_ID);
+        }
+        if (customerId != null && !isValidCustomerId(customerId)) {
+            violations.add(INVALID_CUSTOMER_ID);
+        }
+        if (request.getAmount() == null) {
+            violations.add(NULL_AMOUNT);
+        }
+        if (request.getApprovers() == null) {
+            violations.add(NULL_APPROVERS);
+        }
+        if (request.getApprovers() != null && request.getApprovers().size() < MIN_APPROVERS) {
+            violations.add(TOO_FEW_APPROVERS);
+        }
+        if (request.getApprovers() != null && request.getApprovers().size() > MAX_APPROVERS) {
+            violations.add(TOO_MANY_APPROVERS);
+        }
+        if (request.getApprovers() != null) {
+            for (final String approver : request.getApprovers()) {
+                if (approver == null) {
+                    violations.add(NULL_APPROVER);
+                } else if (approver.length() > MAX_USERNAME_LENGTH) {
+                    violations.add(TOO_LONG_APPROVER);
+                }
+            }
+        }
+        return String.join("\n", violations);
+    }
+
+    /*
+     * Request with value of wrong type is not bound, its message takes place of its violations, so the following
+     * requests are still read and checked.
+     */
+    private void readInto(final JsonParser parser, final List<LoanRequestDto> requests,
+                          final StringBuilder violations) throws IOException {
+        String requestViolations;
+        try {
+            final LoanRequestDto request = read(parser);
+            requests.add(request);
+            requestViolations = validate(request);
+        } catch (final LoanRequestBindingException exception) {
+            requestViolations = exception.getMessage();
+        }
+        if (!requestViolations.isEmpty()) {
+            violations.append(violations.length() == 0 ? "" : "\n").append(requestViolations);
+        }
+    }
+
+    /*
+     * Same as (?i)[A-Z0-9]{2}[-][A-Z0-9]{4}[-][A-Z0-9]{3}$ matched against whole id, case is ignored for ASCII only.
+     */
+    private static boolean isValidCustomerId(final String customerId) {
+        if (customerId.length() != CUSTOMER_ID_LENGTH) {
+            return false;
+        }
+        for (int index = 0; index < CUSTOMER_ID_LENGTH; index++) {
+            final char character = customerId.charAt(index);
+            final boolean valid = index == 2 || index == 7 ? character == '-'
+                    : character >= '0' && character <= '9' || character >= 'A' && character <= 'Z'
+                    || character >= 'a' && character <= 'z';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readString(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        throw mismatch(null, String.format("Cannot deserialize instance of `java.lang.String` out of %s token",
+                token));
+    }
+
+    private static BigDecimal readAmount(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isNumeric()) {
+            return parser.getDecimalValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            final String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (final NumberFormatException exception) {
+                throw mismatch(null, String.format("Cannot deserialize value of type `java.math.BigDecimal` from "
+                        + "String \"%s\": not a valid representation", parser.getText()));
+            }
+        }
+        throw mismatch(null, String.format("Cannot deserialize instance of `java.math.BigDecimal` out of %s token",
+                token));
+    }
+
+    private static Set<String> readApprovers(final JsonParser parser, final JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw mismatch(null, String.format("Cannot deserialize instance of `java.util.HashSet` out of %s token",
+                    token));
+        }
+        final Set<String> approvers = new HashSet<>();
+        LoanRequestBindingException mismatch = null;
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            try {
+                approvers.add(readString(parser, element));
+            } catch (final LoanRequestBindingException exception) {
+                parser.skipChildren();
+                mismatch = mismatch == null ? exception : mismatch;
+            }
+        }
+        if (mismatch != null) {
+            throw mismatch;
+        }
+        return approvers;
+    }
+
+    private void skipUnknown(final JsonParser parser, final String field) throws IOException {
+        if (failOnUnknownProperties) {
+            throw mismatch(null, String.format("Unrecognized field \"%s\", not marked as ignorable", field));
+        }
+        parser.skipChildren();
+    }
+
+    private static void expectBody(final JsonParser parser, final JsonToken token) throws JsonParseException {
+        if (token == null) {
+            throw new JsonParseException(parser, "Required request body is missing");
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw mismatch(null, String.format("Cannot deserialize instance of `%s` out of %s token",
+                    LoanAmountApprovalRequest.class.getName(), token));
+        }
+    }
+
+    private static LoanRequestBindingException mismatch(final String customerId, final String reason) {
+        return new LoanRequestBindingException(customerId, String.format("Malformed request: %s", reason));
+    }
+}
@@ -0,0 +1,20 @@
+package org.jurijz.loanamountapproval.converter;
+
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.dto.TransferredRequestDto;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TransferredRequestConverter implements Converter<TransferredRequestDto, LoanRequest> {
+
+    @Override
+    public LoanRequest convert(final TransferredRequestDto source) {
+        final LoanRequest target = new LoanRequest();
+        target.setCustomerId(source.getCustomerId());
+        target.setAmount(source.getAmount());
+        target.setManagerApprovals(source.getManagerApprovals());
+        return target;
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.jurijz.loanamountapproval.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Running count, sum, min, max and distribution sketch of loan amounts. Aggregates of separate periods can be merged
+ * into one.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class LoanAmountAggregate {
+
+    private int count;
+    private BigDecimal sum;
+    private BigDecimal min;
+    private BigDecimal max;
+    @ToString.Exclude
+    private LoanAmountSketch sketch = new LoanAmountSketch();
+
+    /**
+     * Adds single amount to aggregate.
+     * @param amount BigDecimal loan amount
+     */
+    public void add(final BigDecimal amount) {
+        sketch.add(amount.doubleValue());
+        if (count++ == 0) {
+            sum = amount;
+            min = amount;
+            max = amount;
+            return;
+        }
+        sum = sum.add(amount);
+        if (amount.compareTo(min) < 0) {
+            min = amount;
+        }
+        if (amount.compareTo(max) > 0) {
+            max = amount;
+        }
+    }
+
+    /**
+     * Adds all amounts of other aggregate to this one.
+     * @param other LoanAmountAggregate to merge, stays unchanged
+     */
+    public void merge(final LoanAmountAggregate other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            sum = other.sum;
+            min = other.min;
+            max = other.max;
+        } else {
+            sum = sum.add(other.sum);
+            min = min.min(other.min);
+            max = max.max(other.max);
+        }
+        count += other.count;
+        sketch.merge(other.sketch);
+    }
+
+    /**
+     * Amount of given quantile, within LoanAmountSketch.RELATIVE_ACCURACY of the exact amount of that rank and never
+     * outside of min and max.
+     * @param quantile double between 0 and 1
+     * @return BigDecimal amount rounded to 2 decimal places, null when aggregate is empty or sketch does not count
+     * every amount, because aggregate without sketch was merged into it
+     */
+    public BigDecimal getPercentile(final double quantile) {
+        if (count == 0 || sketch.getCount() != count) {
+            return null;
+        }
+        final BigDecimal estimate = BigDecimal.valueOf(sketch.quantile(quantile));
+        return estimate.max(min).min(max).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Clears aggregate, so the same object can be reused for other period.
+     */
+    public void reset() {
+        count = 0;
+        sum = null;
+        min = null;
+        max = null;
+        sketch.reset();
+    }
+}
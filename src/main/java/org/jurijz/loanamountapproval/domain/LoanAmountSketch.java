@@ -0,0 +1,208 @@
+package org.jurijz.loanamountapproval.domain;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Mergeable sketch of loan amounts distribution with relative error guarantee, in the way of DDSketch. Amounts are
+ * counted in logarithmic bins, bin i holding absolute values in (GAMMA^(i-1), GAMMA^i], and quantile is answered by
+ * representative of the bin holding amount of that rank, which is within RELATIVE_ACCURACY of every value of the bin.
+ * Merged sketch is exactly the sketch of all merged amounts, so merging adds no error. Amounts with absolute value
+ * below ZERO_THRESHOLD are counted as zero, amounts above MAX_AMOUNT, infinite ones included, are counted in the bin
+ * of MAX_AMOUNT. Sketch keeps one int per bin between the smallest and largest bin seen, about 1600 bins for amounts
+ * from a cent to a trillion and never more than about 2600 bins.
+ */
+public class LoanAmountSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    public static final double ZERO_THRESHOLD = 1e-4;
+    public static final double MAX_AMOUNT = 1e18;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int MIN_INDEX = (int) Math.ceil(Math.log(ZERO_THRESHOLD) / LOG_GAMMA);
+    private static final int MAX_INDEX = (int) Math.ceil(Math.log(MAX_AMOUNT) / LOG_GAMMA);
+    private static final int MAX_BINS = MAX_INDEX - MIN_INDEX + 1;
+
+    private final Bins positive = new Bins();
+    private final Bins negative = new Bins();
+    private long zeroCount;
+
+    /**
+     * Counts single amount.
+     * @param amount double loan amount
+     */
+    public void add(final double amount) {
+        if (Double.isNaN(amount)) {
+            throw new IllegalArgumentException("Amount must be a number.");
+        }
+        if (Math.abs(amount) < ZERO_THRESHOLD) {
+            zeroCount++;
+        } else if (amount > 0) {
+            positive.add(index(amount), 1);
+        } else {
+            negative.add(index(-amount), 1);
+        }
+    }
+
+    /**
+     * Adds all amounts of other sketch to this one.
+     * @param other LoanAmountSketch to merge, stays unchanged
+     */
+    public void merge(final LoanAmountSketch other) {
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    /**
+     * Amount of given rank, 0-based rank of quantile q among n counted amounts is floor(q * (n - 1)). Returned value is
+     * within RELATIVE_ACCURACY of the exact amount of that rank.
+     * @param quantile double between 0 and 1
+     * @return double amount estimate, NaN when sketch is empty
+     */
+    public double quantile(final double quantile) {
+        final long count = getCount();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        if (rank < negative.total) {
+            for (int position = negative.counts.length - 1; position >= 0; position--) {
+                rank -= negative.counts[position];
+                if (rank < 0) {
+                    return -value(negative.offset + position);
+                }
+            }
+        }
+        rank -= negative.total;
+        if (rank < zeroCount) {
+            return 0;
+        }
+        rank -= zeroCount;
+        for (int position = 0; position < positive.counts.length; position++) {
+            rank -= positive.counts[position];
+            if (rank < 0) {
+                return value(positive.offset + position);
+            }
+        }
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    public long getCount() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    /**
+     * Clears sketch, so the same object can be reused for other period.
+     */
+    public void reset() {
+        positive.reset();
+        negative.reset();
+        zeroCount = 0;
+    }
+
+    /**
+     * Writes bins in compact binary form.
+     * @param output DataOutput target
+     * @throws IOException thrown when output fails
+     */
+    public void writeTo(final DataOutput output) throws IOException {
+        output.writeLong(zeroCount);
+        positive.writeTo(output);
+        negative.writeTo(output);
+    }
+
+    /**
+     * Reads sketch written by writeTo.
+     * @param input DataInput source
+     * @return LoanAmountSketch read sketch
+     * @throws IOException thrown when input fails
+     */
+    public static LoanAmountSketch readFrom(final DataInput input) throws IOException {
+        final LoanAmountSketch sketch = new LoanAmountSketch();
+        sketch.zeroCount = input.readLong();
+        sketch.positive.readFrom(input);
+        sketch.negative.readFrom(input);
+        return sketch;
+    }
+
+    private static int index(final double absoluteAmount) {
+        return (int) Math.ceil(Math.log(Math.min(absoluteAmount, MAX_AMOUNT)) / LOG_GAMMA);
+    }
+
+    private static double value(final int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /*
+     * Dense counts of consecutive bins starting with bin offset, grown on both sides when needed. Bins are kept between
+     * MIN_INDEX and MAX_INDEX, merged or read bins out of that range are moved to the nearest edge bin.
+     */
+    private static final class Bins {
+
+        private static final int[] NO_COUNTS = new int[0];
+        private static final int GROWTH = 8;
+
+        private int[] counts = NO_COUNTS;
+        private int offset;
+        private long total;
+
+        void add(final int unboundedIndex, final int count) {
+            final int index = Math.max(MIN_INDEX, Math.min(MAX_INDEX, unboundedIndex));
+            if (counts.length == 0) {
+                counts = new int[GROWTH];
+                offset = index - GROWTH / 2;
+            } else if (index < offset) {
+                final int[] grown = new int[counts.length + offset - index + GROWTH];
+                System.arraycopy(counts, 0, grown, grown.length - counts.length, counts.length);
+                offset -= grown.length - counts.length;
+                counts = grown;
+            } else if (index >= offset + counts.length) {
+                final int[] grown = new int[index - offset + 1 + GROWTH];
+                System.arraycopy(counts, 0, grown, 0, counts.length);
+                counts = grown;
+            }
+            counts[index - offset] += count;
+            total += count;
+        }
+
+        void merge(final Bins other) {
+            for (int position = 0; position < other.counts.length; position++) {
+                if (other.counts[position] != 0) {
+                    add(other.offset + position, other.counts[position]);
+                }
+            }
+        }
+
+        void reset() {
+            counts = NO_COUNTS;
+            offset = 0;
+            total = 0;
+        }
+
+        void writeTo(final DataOutput output) throws IOException {
+            output.writeInt(offset);
+            output.writeInt(counts.length);
+            for (final int count : counts) {
+                output.writeInt(count);
+            }
+        }
+
+        void readFrom(final DataInput input) throws IOException {
+            final int readOffset = input.readInt();
+            final int length = input.readInt();
+            if (length < 0 || length > MAX_BINS + 2 * GROWTH) {
+                throw new IOException(String.format("Sketch cannot have %d bins.", length));
+            }
+            reset();
+            for (int position = 0; position < length; position++) {
+                final int count = input.readInt();
+                if (count != 0) {
+                    add(readOffset + position, count);
+                }
+            }
+        }
+    }
+}
@@ -4,6 +4,10 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 
+/**
+ * Statistics of approved loan amounts. Percentiles p50, p95 and p99 are estimated from amount sketches and are within
+ * 1% of the exact amount of that rank.
+ */
 @Data
 public class LoanApprovalStatistics {
 
@@ -12,5 +16,8 @@ public class LoanApprovalStatistics {
     private BigDecimal avg;
     private BigDecimal max;
     private BigDecimal min;
+    private BigDecimal p50;
+    private BigDecimal p95;
+    private BigDecimal p99;
 
 }
@@ -1,15 +1,137 @@
 package org.jurijz.loanamountapproval.domain;
 
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
-@Data
+/**
+ * Pending loan request. Approvers are kept in sorted slots and approvals as bitmask, bit i is set when approver of
+ * slot i approved, so approver lookup, approval and all approved check do not allocate. Request has at most
+ * MAX_APPROVERS approvers.
+ */
+@ToString
+@EqualsAndHashCode
 public class LoanRequest {
 
+    public static final int MAX_APPROVERS = Integer.SIZE - 1;
+
+    private static final String[] NO_APPROVERS = new String[0];
+    private static final AtomicIntegerFieldUpdater<LoanRequest> APPROVALS =
+            AtomicIntegerFieldUpdater.newUpdater(LoanRequest.class, "approvals");
+
+    @Getter
+    @Setter
     private String customerId;
+    @Getter
+    @Setter
     private BigDecimal amount;
-    private Set<ManagerApproval> managerApprovals;
+    private String[] approvers = NO_APPROVERS;
+    private volatile int approvals;
+    /**
+     * Set on shard of customer while notification to customer of fully approved request is delivered, request then
+     * accepts no more approvals. It is not part of request state and is never journaled or handed over.
+     */
+    @Getter
+    @Setter
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private boolean completing;
+
+    /**
+     * Replaces approvers, none of them approved yet.
+     * @param usernames Set<String> managers usernames
+     */
+    public void setApprovers(final Set<String> usernames) {
+        approvers = toSlots(usernames.toArray(NO_APPROVERS));
+        approvals = 0;
+    }
+
+    /**
+     * Replaces approvers and their approvals.
+     * @param managerApprovals Set<ManagerApproval> managers usernames with approval flags
+     */
+    public void setManagerApprovals(final Set<ManagerApproval> managerApprovals) {
+        approvers = toSlots(managerApprovals.stream().map(ManagerApproval::getUsername).toArray(String[]::new));
+        int mask = 0;
+        for (final ManagerApproval managerApproval : managerApprovals) {
+            if (managerApproval.isApproved()) {
+                mask |= 1 << indexOf(managerApproval.getUsername());
+            }
+        }
+        approvals = mask;
+    }
+
+    /**
+     * Copy of approvers with their approval flags.
+     * @return Set<ManagerApproval> managers usernames with approval flags
+     */
+    public Set<ManagerApproval> getManagerApprovals() {
+        final int mask = approvals;
+        final Set<ManagerApproval> managerApprovals = new HashSet<>();
+        for (int index = 0; index < approvers.length; index++) {
+            managerApprovals.add(new ManagerApproval(approvers[index], (mask & (1 << index)) != 0));
+        }
+        return managerApprovals;
+    }
+
+    public int getApproverCount() {
+        return approvers.length;
+    }
+
+    public String getApprover(final int index) {
+        return approvers[index];
+    }
+
+    /**
+     * Slot of manager among approvers.
+     * @param username String manager username
+     * @return int slot index or -1 when manager is not approver
+     */
+    public int indexOf(final String username) {
+        for (int index = 0; index < approvers.length; index++) {
+            if (approvers[index].equals(username)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Marks approval of manager, safe to call concurrently for the same request.
+     * @param username String manager username
+     * @return boolean false when manager is not approver
+     */
+    public boolean approve(final String username) {
+        final int index = indexOf(username);
+        if (index < 0) {
+            return false;
+        }
+        APPROVALS.getAndAccumulate(this, 1 << index, (mask, bit) -> mask | bit);
+        return true;
+    }
+
+    public boolean isApproved(final String username) {
+        final int index = indexOf(username);
+        return index >= 0 && (approvals & (1 << index)) != 0;
+    }
+
+    public boolean isFullyApproved() {
+        return approvals == (1 << approvers.length) - 1;
+    }
 
+    private static String[] toSlots(final String[] usernames) {
+        if (usernames.length > MAX_APPROVERS) {
+            throw new IllegalArgumentException(String.format("Loan request cannot have more than %d approvers.",
+                    MAX_APPROVERS));
+        }
+        Arrays.sort(usernames);
+        return usernames;
+    }
 }
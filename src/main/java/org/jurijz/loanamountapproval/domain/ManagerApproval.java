@@ -2,6 +2,9 @@ package org.jurijz.loanamountapproval.domain;
 
 import lombok.*;
 
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
 @EqualsAndHashCode(exclude = "isApproved")
 @Getter
 @Setter
@@ -9,6 +12,8 @@ import lombok.*;
 @AllArgsConstructor
 public class ManagerApproval {
 
+    @NotNull(message = "Approver username cannot be null.")
+    @Size(max = 64, message = "Approver username cannot be longer than 64 characters.")
     private String username;
     private boolean isApproved;
 
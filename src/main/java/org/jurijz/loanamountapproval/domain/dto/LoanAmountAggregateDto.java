@@ -0,0 +1,25 @@
+package org.jurijz.loanamountapproval.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Partial aggregate of loan amounts of one node, partials of all nodes are merged into cluster statistics. Sketch is
+ * binary LoanAmountSketch, when it is missing merged statistics have no percentiles.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanAmountAggregateDto {
+
+    private int count;
+    private BigDecimal sum;
+    private BigDecimal min;
+    private BigDecimal max;
+    private byte[] sketch;
+}
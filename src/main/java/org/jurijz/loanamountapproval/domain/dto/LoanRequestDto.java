@@ -24,7 +24,9 @@ public class LoanRequestDto {
     private String customerId;
     @NotNull(message = "Amount cannot be null.")
     private BigDecimal amount;
+    @NotNull(message = "Approvers cannot be null.")
     @Size(min = 1, message = "Approvers cannot be less than 1.")
     @Size(max = 3, message = "Approvers cannot be more than 3.")
-    private Set<String> approvers;
+    private Set<@NotNull(message = "Approver username cannot be null.")
+    @Size(max = 64, message = "Approver username cannot be longer than 64 characters.") String> approvers;
 }
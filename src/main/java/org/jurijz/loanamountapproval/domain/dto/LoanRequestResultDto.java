@@ -0,0 +1,32 @@
+package org.jurijz.loanamountapproval.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanRequestResultDto {
+
+    private String customerId;
+    private Status status;
+    private String reason;
+
+    public enum Status {
+        /**
+         * Request is kept in cache and managers are notified.
+         */
+        ACCEPTED,
+        /**
+         * Request is invalid or customer has already pending request.
+         */
+        REJECTED,
+        /**
+         * Notification backlog is full, request is not kept and can be retried later.
+         */
+        BACKLOGGED
+    }
+}
@@ -4,11 +4,13 @@ import lombok.Data;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
 
 @Data
 public class ManagerApprovalDto {
 
     @NotBlank(message = "Managers username cannot be empty.")
+    @Size(max = 64, message = "Managers username cannot be longer than 64 characters.")
     private String username;
     @NotBlank(message = "Customer Id cannot be empty.")
     @Pattern(regexp = "(?i)[A-Z0-9]{2}[-][A-Z0-9]{4}[-][A-Z0-9]{3}$",
@@ -0,0 +1,38 @@
+package org.jurijz.loanamountapproval.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ManagerApprovalResultDto {
+
+    private String username;
+    private String customerId;
+    private Status status;
+    private String reason;
+
+    public enum Status {
+        /**
+         * Approval is kept, request is waiting for approvals of other managers.
+         */
+        APPROVED,
+        /**
+         * Request got all approvals and is completed, customer is notified.
+         */
+        COMPLETED,
+        /**
+         * Request is not pending or manager is not among its approvers.
+         */
+        REJECTED,
+        /**
+         * Notification backlog is full and approval is kept, or node owning the request is not reachable, approval
+         * can be retried later.
+         */
+        BACKLOGGED
+    }
+}
@@ -0,0 +1,15 @@
+package org.jurijz.loanamountapproval.domain.dto;
+
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+public class ManagerApprovalsRequest {
+
+    @NotNull(message = "Approvals cannot be null.")
+    private List<@Valid @NotNull(message = "Approval cannot be null.") ManagerApprovalDto> approvals;
+
+}
@@ -0,0 +1,16 @@
+package org.jurijz.loanamountapproval.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManagerApprovalsResponse {
+
+    private List<ManagerApprovalResultDto> results;
+
+}
@@ -0,0 +1,20 @@
+package org.jurijz.loanamountapproval.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingRequestsResponse {
+
+    private List<PendingRequestDto> requests;
+    /**
+     * Customer id to pass as after parameter for next page, null when there are no more pending requests.
+     */
+    private String next;
+
+}
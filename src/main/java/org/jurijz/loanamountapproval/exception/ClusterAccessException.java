@@ -5,7 +5,7 @@ import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 @Getter
-public class CustomerLoanApprovalException extends RuntimeException {
+public class ClusterAccessException extends RuntimeException {
 
     private final String message;
 }
@@ -0,0 +1,11 @@
+package org.jurijz.loanamountapproval.exception;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
+public class CustomerIdException extends RuntimeException {
+
+    private final String message;
+}
@@ -0,0 +1,12 @@
+package org.jurijz.loanamountapproval.exception;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
+public class LoanRequestBindingException extends RuntimeException {
+
+    private final String customerId;
+    private final String message;
+}
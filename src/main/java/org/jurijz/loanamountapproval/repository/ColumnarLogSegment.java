@@ -0,0 +1,43 @@
+package org.jurijz.loanamountapproval.repository;
+
+import java.util.Arrays;
+
+/*
+ * Primitive columns kept in on-heap arrays.
+ */
+class ColumnarLogSegment extends PrimitiveLogSegment {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private long[] unscaledAmounts = new long[INITIAL_CAPACITY];
+    private byte[] scales = new byte[INITIAL_CAPACITY];
+
+    @Override
+    protected void append(final long time, final long unscaledAmount, final byte scale) {
+        if (size == times.length) {
+            final int capacity = size + (size >> 1);
+            times = Arrays.copyOf(times, capacity);
+            unscaledAmounts = Arrays.copyOf(unscaledAmounts, capacity);
+            scales = Arrays.copyOf(scales, capacity);
+        }
+        times[size] = time;
+        unscaledAmounts[size] = unscaledAmount;
+        scales[size] = scale;
+    }
+
+    @Override
+    protected long time(final int index) {
+        return times[index];
+    }
+
+    @Override
+    protected long unscaledAmount(final int index) {
+        return unscaledAmounts[index];
+    }
+
+    @Override
+    protected byte scale(final int index) {
+        return scales[index];
+    }
+}
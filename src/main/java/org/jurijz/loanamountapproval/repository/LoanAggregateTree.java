@@ -0,0 +1,111 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Segment tree of aggregates over consecutive slots, aggregate of any slot range is merged from O(log n) nodes and
+ * adding to a slot updates O(log n) nodes. Slots are kept from the first to the last added one, capacity doubles when
+ * slot after the last one is added, so appending at the tail costs O(log n) amortized.
+ *
+ * LoanRequestLogsCache keeps only rolled up hours here, minute buckets of retained hours are not indexed and periods
+ * starting or ending inside them still merge their buckets one by one. Capacity is computed in long and limited to
+ * MAX_CAPACITY slots, so node array index cannot overflow, slots spanning more are rejected before tree changes.
+ */
+class LoanAggregateTree {
+
+    static final int MAX_CAPACITY = 1 << 29;
+
+    private long firstSlot;
+    private int capacity;
+    private LoanAmountAggregate[] nodes = new LoanAmountAggregate[0];
+
+    synchronized void add(final long slot, final LoanAmountAggregate aggregate) {
+        ensureCapacity(slot);
+        for (int node = capacity + (int) (slot - firstSlot); node > 0; node >>= 1) {
+            if (nodes[node] == null) {
+                nodes[node] = new LoanAmountAggregate();
+            }
+            nodes[node].merge(aggregate);
+        }
+    }
+
+    synchronized void mergeInto(final LoanAmountAggregate target, final long fromSlot, final long toSlot) {
+        if (capacity == 0 || toSlot < firstSlot || fromSlot >= firstSlot + capacity) {
+            return;
+        }
+        int left = capacity + (int) (Math.max(fromSlot, firstSlot) - firstSlot);
+        int right = capacity + (int) (Math.min(toSlot, firstSlot + capacity - 1) - firstSlot) + 1;
+        while (left < right) {
+            if ((left & 1) == 1) {
+                merge(target, left++);
+            }
+            if ((right & 1) == 1) {
+                merge(target, --right);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+    }
+
+    synchronized Map<Long, LoanAmountAggregate> getSlots() {
+        final Map<Long, LoanAmountAggregate> slots = new LinkedHashMap<>();
+        for (int leaf = 0; leaf < capacity; leaf++) {
+            if (nodes[capacity + leaf] != null) {
+                final LoanAmountAggregate copy = new LoanAmountAggregate();
+                copy.merge(nodes[capacity + leaf]);
+                slots.put(firstSlot + leaf, copy);
+            }
+        }
+        return slots;
+    }
+
+    private void merge(final LoanAmountAggregate target, final int node) {
+        if (nodes[node] != null) {
+            target.merge(nodes[node]);
+        }
+    }
+
+    private void ensureCapacity(final long slot) {
+        if (capacity == 0) {
+            firstSlot = slot;
+            capacity = 1;
+            nodes = new LoanAmountAggregate[2];
+            return;
+        }
+        if (slot >= firstSlot && slot < firstSlot + capacity) {
+            return;
+        }
+        final long newFirstSlot = Math.min(firstSlot, slot);
+        final long lastSlot = Math.max(firstSlot + capacity - 1, slot);
+        if (lastSlot - newFirstSlot >= MAX_CAPACITY || lastSlot - newFirstSlot < 0) {
+            throw new IllegalArgumentException(String.format("Slot %d is too far from slots %d to %d, tree is limited "
+                    + "to %d slots.", slot, firstSlot, firstSlot + capacity - 1, MAX_CAPACITY));
+        }
+        final long span = lastSlot - newFirstSlot + 1;
+        long newCapacity = capacity * 2L;
+        while (newCapacity < span) {
+            newCapacity *= 2;
+        }
+        final LoanAmountAggregate[] newNodes = new LoanAmountAggregate[Math.toIntExact(newCapacity * 2)];
+        System.arraycopy(nodes, capacity, newNodes, Math.toIntExact(newCapacity + firstSlot - newFirstSlot), capacity);
+        for (int node = (int) newCapacity - 1; node > 0; node--) {
+            final LoanAmountAggregate left = newNodes[node * 2];
+            final LoanAmountAggregate right = newNodes[node * 2 + 1];
+            if (left != null || right != null) {
+                newNodes[node] = new LoanAmountAggregate();
+                if (left != null) {
+                    newNodes[node].merge(left);
+                }
+                if (right != null) {
+                    newNodes[node].merge(right);
+                }
+            }
+        }
+        firstSlot = newFirstSlot;
+        capacity = (int) newCapacity;
+        nodes = newNodes;
+    }
+}
@@ -0,0 +1,45 @@
+package org.jurijz.loanamountapproval.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+/**
+ * Journal target applying replayed records to caches.
+ */
+@RequiredArgsConstructor
+public class LoanCacheLoader implements LoanJournal {
+
+    private final LoanRequestsCache loanRequestsCache;
+    private final LoanRequestLogsCache loanRequestLogsCache;
+    @Getter
+    private long recordCount;
+
+    @Override
+    public void requestAdded(final LoanRequest loanRequest) {
+        recordCount++;
+        loanRequestsCache.add(loanRequest);
+    }
+
+    @Override
+    public void requestApproved(final String customerId, final String username) {
+        recordCount++;
+        final LoanRequest loanRequest = loanRequestsCache.get(customerId);
+        if (loanRequest != null) {
+            loanRequestsCache.approve(loanRequest, username);
+        }
+    }
+
+    @Override
+    public void requestRemoved(final String customerId) {
+        recordCount++;
+        loanRequestsCache.remove(customerId);
+    }
+
+    @Override
+    public void logAdded(final LoanRequestLog loanRequestLog) {
+        recordCount++;
+        loanRequestLogsCache.add(loanRequestLog);
+    }
+}
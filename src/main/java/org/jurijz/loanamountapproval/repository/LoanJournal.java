@@ -0,0 +1,58 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+/**
+ * Append only record of every change of pending requests and approval logs, replayed on startup to rebuild
+ * LoanRequestsCache and LoanRequestLogsCache. Implementations append without waiting for the record to reach disk.
+ * Journal keeping its records implements LoanJournalSource as well, replay target implements this interface only.
+ */
+public interface LoanJournal {
+
+    /**
+     * Journal keeping nothing, used when journaling is disabled.
+     */
+    LoanJournal NONE = new LoanJournal() {
+        @Override
+        public void requestAdded(final LoanRequest loanRequest) {
+        }
+
+        @Override
+        public void requestApproved(final String customerId, final String username) {
+        }
+
+        @Override
+        public void requestRemoved(final String customerId) {
+        }
+
+        @Override
+        public void logAdded(final LoanRequestLog loanRequestLog) {
+        }
+    };
+
+    /**
+     * Records new pending request with its approvers, none of them approved yet.
+     * @param loanRequest LoanRequest object
+     */
+    void requestAdded(LoanRequest loanRequest);
+
+    /**
+     * Records approval of pending request by manager.
+     * @param customerId String customer id
+     * @param username String manager username
+     */
+    void requestApproved(String customerId, String username);
+
+    /**
+     * Records pending request removal, either completed or released.
+     * @param customerId String customer id
+     */
+    void requestRemoved(String customerId);
+
+    /**
+     * Records approval log of completed request.
+     * @param loanRequestLog LoanRequestLog object
+     */
+    void logAdded(LoanRequestLog loanRequestLog);
+}
@@ -0,0 +1,13 @@
+package org.jurijz.loanamountapproval.repository;
+
+/**
+ * Journal which keeps appended records and can pass them to LoanJournal, such as LoanCacheLoader rebuilding caches.
+ */
+public interface LoanJournalSource {
+
+    /**
+     * Passes every kept record to target in the order records were appended.
+     * @param target LoanJournal receiving records
+     */
+    void replay(LoanJournal target);
+}
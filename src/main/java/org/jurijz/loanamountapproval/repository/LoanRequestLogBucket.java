@@ -0,0 +1,50 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * Logs of one time bucket together with running aggregate of their amounts. Once closed for eviction bucket does
+ * not accept logs anymore.
+ */
+class LoanRequestLogBucket {
+
+    private final LoanRequestLogSegment logs;
+    private final LoanAmountAggregate aggregate = new LoanAmountAggregate();
+    private boolean closed;
+
+    LoanRequestLogBucket(final LoanRequestLogSegment logs) {
+        this.logs = logs;
+    }
+
+    synchronized boolean add(final LoanRequestLog loanRequestLog) {
+        if (closed) {
+            return false;
+        }
+        logs.add(loanRequestLog);
+        aggregate.add(loanRequestLog.getAmount());
+        return true;
+    }
+
+    synchronized LoanAmountAggregate close() {
+        closed = true;
+        return aggregate;
+    }
+
+    synchronized void collect(final List<LoanRequestLog> target, final LocalDateTime periodStart,
+                              final LocalDateTime periodEnd) {
+        logs.collect(target, periodStart, periodEnd);
+    }
+
+    synchronized void mergeInto(final LoanAmountAggregate target) {
+        target.merge(aggregate);
+    }
+
+    synchronized void mergeInto(final LoanAmountAggregate target, final LocalDateTime periodStart,
+                                final LocalDateTime periodEnd) {
+        logs.mergeInto(target, periodStart, periodEnd);
+    }
+}
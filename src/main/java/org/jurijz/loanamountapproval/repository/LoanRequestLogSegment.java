@@ -0,0 +1,19 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * Storage of raw logs of one bucket. Implementations are not thread safe, bucket guards them.
+ */
+interface LoanRequestLogSegment {
+
+    void add(LoanRequestLog loanRequestLog);
+
+    void collect(List<LoanRequestLog> target, LocalDateTime periodStart, LocalDateTime periodEnd);
+
+    void mergeInto(LoanAmountAggregate target, LocalDateTime periodStart, LocalDateTime periodEnd);
+}
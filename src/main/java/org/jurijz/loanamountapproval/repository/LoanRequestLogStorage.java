@@ -0,0 +1,23 @@
+package org.jurijz.loanamountapproval.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * How LoanRequestLogsCache keeps raw logs: as received objects, as primitive columns on heap or off heap.
+ */
+public enum LoanRequestLogStorage {
+
+    OBJECTS(ObjectLogSegment::new),
+    COLUMNAR(ColumnarLogSegment::new),
+    OFF_HEAP(OffHeapLogSegment::new);
+
+    private final Supplier<LoanRequestLogSegment> segmentFactory;
+
+    LoanRequestLogStorage(final Supplier<LoanRequestLogSegment> segmentFactory) {
+        this.segmentFactory = segmentFactory;
+    }
+
+    LoanRequestLogSegment newSegment() {
+        return segmentFactory.get();
+    }
+}
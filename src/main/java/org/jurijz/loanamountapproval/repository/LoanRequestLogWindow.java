@@ -0,0 +1,63 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/*
+ * Ring of per second aggregates of the most recent logs. Slot of a second is reused when ring comes around, so
+ * neither adding nor aggregating whole window allocates anything depending on the number of logs. Reads merge slots
+ * into one accumulator reused by every read, its sketch keeps bins grown by earlier reads, so read allocates nothing
+ * but result of reader.
+ */
+class LoanRequestLogWindow {
+
+    private final int seconds;
+    private final long[] slotSeconds;
+    private final LoanAmountAggregate[] slots;
+    private final LoanAmountAggregate accumulator = new LoanAmountAggregate();
+
+    LoanRequestLogWindow(final int seconds) {
+        this.seconds = seconds;
+        this.slotSeconds = new long[seconds];
+        this.slots = new LoanAmountAggregate[seconds];
+        Arrays.fill(slotSeconds, Long.MIN_VALUE);
+        Arrays.setAll(slots, index -> new LoanAmountAggregate());
+    }
+
+    void add(final long epochSecond, final BigDecimal amount) {
+        final int index = Math.floorMod(epochSecond, seconds);
+        final LoanAmountAggregate slot = slots[index];
+        synchronized (slot) {
+            if (slotSeconds[index] < epochSecond) {
+                slot.reset();
+                slotSeconds[index] = epochSecond;
+            }
+            if (slotSeconds[index] == epochSecond) {
+                slot.add(amount);
+            }
+        }
+    }
+
+    <R> R read(final long lastEpochSecond, final Function<LoanAmountAggregate, R> reader) {
+        synchronized (accumulator) {
+            accumulator.reset();
+            mergeInto(accumulator, lastEpochSecond);
+            return reader.apply(accumulator);
+        }
+    }
+
+    void mergeInto(final LoanAmountAggregate target, final long lastEpochSecond) {
+        final long firstEpochSecond = lastEpochSecond - seconds;
+        for (int index = 0; index < seconds; index++) {
+            final LoanAmountAggregate slot = slots[index];
+            synchronized (slot) {
+                if (slotSeconds[index] > firstEpochSecond && slotSeconds[index] <= lastEpochSecond) {
+                    target.merge(slot);
+                }
+            }
+        }
+    }
+}
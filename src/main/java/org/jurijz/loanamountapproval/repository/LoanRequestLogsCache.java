@@ -1,65 +1,199 @@
 package org.jurijz.loanamountapproval.repository;
 
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
 import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 @Component
 public class LoanRequestLogsCache {
 
-    private final Map<LocalDateTime, List<LoanRequestLog>> cache = new HashMap<>();
+    public static final int WINDOW_SECONDS = 60;
+    private static final long BUCKET_SECONDS = 60;
+    private static final long BUCKETS_PER_HOUR = 3600 / BUCKET_SECONDS;
+
+    private final ConcurrentNavigableMap<Long, LoanRequestLogBucket> cache = new ConcurrentSkipListMap<>();
+    private final LoanAggregateTree rolledUpHours = new LoanAggregateTree();
+    private final LoanRequestLogWindow window = new LoanRequestLogWindow(WINDOW_SECONDS);
+    private final LongAdder logCount = new LongAdder();
+    private final List<LoanRequestLogsListener> listeners = new CopyOnWriteArrayList<>();
+    private final LoanRequestLogStorage storage;
+
+    public LoanRequestLogsCache() {
+        this(LoanRequestLogStorage.OBJECTS);
+    }
+
+    @Autowired
+    public LoanRequestLogsCache(@Value("${loan.approval.logs.storage}") final LoanRequestLogStorage storage) {
+        this.storage = storage;
+    }
 
     /**
-     * Stores log object in cache.
+     * Stores log object in cache and adds its amount to aggregates of its minute and second.
      * @param loanRequestLog LoanRequestLog object
      */
     public void add(final LoanRequestLog loanRequestLog) {
-        final LocalDateTime logHour = loanRequestLog.getSentToCustomerTime().truncatedTo(ChronoUnit.HOURS);
-        cache.computeIfAbsent(logHour, key -> new ArrayList<>()).add(loanRequestLog);
+        final long epochSecond = loanRequestLog.getSentToCustomerTime().toEpochSecond(ZoneOffset.UTC);
+        final long bucketKey = Math.floorDiv(epochSecond, BUCKET_SECONDS);
+        boolean added;
+        do {
+            added = cache.computeIfAbsent(bucketKey, key -> new LoanRequestLogBucket(storage.newSegment()))
+                    .add(loanRequestLog);
+        } while (!added);
+        logCount.increment();
+        window.add(epochSecond, loanRequestLog.getAmount());
+        for (final LoanRequestLogsListener listener : listeners) {
+            listener.logAdded(loanRequestLog.getSentToCustomerTime());
+        }
     }
 
     /**
-     * Get logs by time period, both periods should be non-null and start before end.
+     * Registers listener notified after every stored log and every roll up.
+     * @param listener LoanRequestLogsListener listener
+     */
+    public void addListener(final LoanRequestLogsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Get logs by time period, both periods should be non-null and start before end. Logs of evicted hours are not
+     * returned anymore.
      * @param periodStart LocalDateTime start
      * @param periodEnd LocalDateTime end
      * @return List<LoanRequestLog> list of logs in period
      */
     public List<LoanRequestLog> getByPeriod(final LocalDateTime periodStart, final LocalDateTime periodEnd) {
-        final LocalDateTime hourStart = periodStart.truncatedTo(ChronoUnit.HOURS);
-        final LocalDateTime hourEnd = periodEnd.truncatedTo(ChronoUnit.HOURS);
-        if (hourStart.equals(hourEnd)) {
-            return cache.getOrDefault(hourStart, new ArrayList<>()).stream()
-                    .filter(log -> log.getSentToCustomerTime().isAfter(periodStart) &&
-                            log.getSentToCustomerTime().isBefore(periodEnd))
-                    .collect(Collectors.toList());
-        }
-        final List<LocalDateTime> hours = getHoursBetween(hourStart, hourEnd);
+        final List<LoanRequestLog> logs = new ArrayList<>();
+        cache.subMap(toBucket(periodStart), true, toBucket(periodEnd), true).values()
+                .forEach(bucket -> bucket.collect(logs, periodStart, periodEnd));
+        return logs;
+    }
 
-        return Stream.of(
-                cache.getOrDefault(hourStart, new ArrayList<>()).stream().filter(log -> log.getSentToCustomerTime().isAfter(periodStart)),
-                hours.stream().map(hour -> cache.getOrDefault(hour, new ArrayList<>())).flatMap(List::stream),
-                cache.getOrDefault(hourEnd, new ArrayList<>()).stream().filter(log -> log.getSentToCustomerTime().isBefore(periodEnd))
-        ).reduce(Stream::concat).orElseGet(Stream::empty).collect(Collectors.toList());
+    /**
+     * Aggregate amounts of logs by time period, both periods should be non-null and start before end.
+     * Whole minutes inside period use precalculated aggregates, only first and last minute logs are scanned.
+     * Evicted hours are known only as a whole, they are counted when period overlaps them and are merged from tree
+     * index in O(log n) of rolled up hours, so only retained minutes add cost proportional to period length.
+     * @param periodStart LocalDateTime start
+     * @param periodEnd LocalDateTime end
+     * @return LoanAmountAggregate aggregate of logs in period
+     */
+    public LoanAmountAggregate aggregateByPeriod(final LocalDateTime periodStart, final LocalDateTime periodEnd) {
+        final long firstBucket = toBucket(periodStart);
+        final long lastBucket = toBucket(periodEnd);
+        final LoanAmountAggregate aggregate = new LoanAmountAggregate();
+        cache.subMap(firstBucket, true, lastBucket, true).forEach((bucketKey, bucket) -> {
+            if (bucketKey == firstBucket || bucketKey == lastBucket) {
+                bucket.mergeInto(aggregate, periodStart, periodEnd);
+            } else {
+                bucket.mergeInto(aggregate);
+            }
+        });
+        rolledUpHours.mergeInto(aggregate, toHour(firstBucket), toHour(lastBucket));
+        return aggregate;
     }
 
-    private List<LocalDateTime> getHoursBetween(final LocalDateTime hourStart, final LocalDateTime hourEnd) {
-        final List<LocalDateTime> hours = new ArrayList<>();
-        int i = 1;
-        while (true) {
-            final LocalDateTime nextHour = hourStart.plusHours(i++);
-            if (nextHour.equals(hourEnd)) {
-                break;
+    /**
+     * Drops logs of all hours before hour of given time, keeping only one aggregate per dropped hour.
+     * @param time LocalDateTime retention limit
+     * @return int count of evicted buckets
+     */
+    public int evictBefore(final LocalDateTime time) {
+        final long firstRetainedBucket = toHour(toBucket(time)) * BUCKETS_PER_HOUR;
+        int evicted = 0;
+        for (final Map.Entry<Long, LoanRequestLogBucket> entry : cache.headMap(firstRetainedBucket).entrySet()) {
+            if (cache.remove(entry.getKey(), entry.getValue())) {
+                final LoanAmountAggregate bucketAggregate = entry.getValue().close();
+                logCount.add(-bucketAggregate.getCount());
+                rolledUpHours.add(toHour(entry.getKey()), bucketAggregate);
+                evicted++;
             }
-            hours.add(nextHour);
         }
+        if (evicted > 0) {
+            for (final LoanRequestLogsListener listener : listeners) {
+                listener.logsRolledUp(time);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Aggregates of hours already rolled up by evictBefore, keyed by hour start.
+     * @return Map<LocalDateTime, LoanAmountAggregate> hour aggregates ordered by hour
+     */
+    public Map<LocalDateTime, LoanAmountAggregate> getRolledUpHours() {
+        final Map<LocalDateTime, LoanAmountAggregate> hours = new LinkedHashMap<>();
+        rolledUpHours.getSlots().forEach((hour, aggregate) -> hours.put(
+                LocalDateTime.ofEpochSecond(hour * BUCKETS_PER_HOUR * BUCKET_SECONDS, 0, ZoneOffset.UTC), aggregate));
         return hours;
     }
+
+    /**
+     * Merges aggregate of already rolled up hour, used to restore cache from snapshot.
+     * @param hour LocalDateTime any time of the hour
+     * @param aggregate LoanAmountAggregate aggregate of hour logs, stays unchanged
+     */
+    public void addRolledUpHour(final LocalDateTime hour, final LoanAmountAggregate aggregate) {
+        rolledUpHours.add(toHour(toBucket(hour)), aggregate);
+    }
+
+    /**
+     * Aggregate amounts of logs sent during last WINDOW_SECONDS whole seconds up to and including the second of
+     * given time. Uses only fixed ring of per second aggregates, so cost does not depend on number of logs.
+     * @param periodEnd LocalDateTime end, usually current time
+     * @return LoanAmountAggregate aggregate of logs in window
+     */
+    public LoanAmountAggregate aggregateWindow(final LocalDateTime periodEnd) {
+        final LoanAmountAggregate aggregate = new LoanAmountAggregate();
+        window.mergeInto(aggregate, periodEnd.toEpochSecond(ZoneOffset.UTC));
+        return aggregate;
+    }
+
+    /**
+     * Reads aggregate of the same window as aggregateWindow without allocating it. Aggregate is reused by every read,
+     * so reader must not keep it nor pass it on.
+     * @param periodEnd LocalDateTime end, usually current time
+     * @param reader Function<LoanAmountAggregate, R> converts aggregate of logs in window to result
+     * @return R result of reader
+     */
+    public <R> R readWindow(final LocalDateTime periodEnd, final Function<LoanAmountAggregate, R> reader) {
+        return window.read(periodEnd.toEpochSecond(ZoneOffset.UTC), reader);
+    }
+
+    /**
+     * Count of buckets still keeping raw logs.
+     * @return int bucket count
+     */
+    public int getBucketCount() {
+        return cache.size();
+    }
+
+    /**
+     * Count of raw logs kept in cache, logs rolled up into hour aggregates are not counted.
+     * @return long log count
+     */
+    public long getLogCount() {
+        return logCount.sum();
+    }
+
+    private static long toBucket(final LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), BUCKET_SECONDS);
+    }
+
+    private static long toHour(final long bucketKey) {
+        return Math.floorDiv(bucketKey, BUCKETS_PER_HOUR);
+    }
 }
@@ -0,0 +1,21 @@
+package org.jurijz.loanamountapproval.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Receives changes of LoanRequestLogsCache after they are applied.
+ */
+public interface LoanRequestLogsListener {
+
+    /**
+     * Called after log is stored.
+     * @param sentToCustomerTime LocalDateTime time of stored log
+     */
+    void logAdded(LocalDateTime sentToCustomerTime);
+
+    /**
+     * Called after logs are rolled up into hour aggregates.
+     * @param time LocalDateTime retention limit, logs of hours before hour of it were rolled up
+     */
+    void logsRolledUp(LocalDateTime time);
+}
@@ -1,33 +1,82 @@
 package org.jurijz.loanamountapproval.repository;
 
 import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.exception.CustomerIdException;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class LoanRequestsCache {
 
-    private final Map<String, LoanRequest> cache = new HashMap<>();
+    private static final int DEFAULT_PAGE_CAPACITY = 64;
+    private static final int CUSTOMER_ID_LENGTH = 11;
+    private static final int BITS_PER_CHARACTER = 6;
+    private static final long NO_KEY = -1;
+
+    private final LongKeyedMap<LoanRequest> cache = new LongKeyedMap<>();
+    private final ConcurrentMap<String, NavigableSet<String>> pendingByManager = new ConcurrentHashMap<>();
+    private final LongAdder rejectedClaims = new LongAdder();
 
     /**
-     * Stores loan request object in cache.
+     * Stores loan request object in cache, replacing pending request of the same customer.
      * @param loanRequest LoanRequest object
      * @return LoanRequest stored in cache object
+     * @throws CustomerIdException thrown when customer id does not match pattern
      */
     public LoanRequest add(final LoanRequest loanRequest) {
-        cache.put(loanRequest.getCustomerId(), loanRequest);
+        final LoanRequest replaced = cache.put(requireKey(loanRequest.getCustomerId()), loanRequest);
+        if (replaced != null) {
+            unindex(replaced);
+        }
+        index(loanRequest);
         return loanRequest;
     }
 
+    /**
+     * Atomically stores loan request object in cache, only if customer has no pending request yet.
+     * @param loanRequest LoanRequest object
+     * @return boolean true if request was stored, false if customer already has pending request
+     * @throws CustomerIdException thrown when customer id does not match pattern
+     */
+    public boolean addIfAbsent(final LoanRequest loanRequest) {
+        if (cache.putIfAbsent(requireKey(loanRequest.getCustomerId()), loanRequest) != null) {
+            rejectedClaims.increment();
+            return false;
+        }
+        index(loanRequest);
+        return true;
+    }
+
+    /**
+     * Marks approval of manager on pending loan request and drops the request from managers pending index.
+     * @param loanRequest LoanRequest object taken from cache
+     * @param username String manager username
+     * @return boolean false when manager is not among request approvers
+     */
+    public boolean approve(final LoanRequest loanRequest, final String username) {
+        if (!loanRequest.approve(username)) {
+            return false;
+        }
+        unindex(username, loanRequest.getCustomerId());
+        return true;
+    }
+
     /**
      * Get loan request from cache by customer id.
      * @param customerId String customer id
      * @return LoanRequest object
      */
     public LoanRequest get(final String customerId) {
-        return cache.get(customerId);
+        final long key = toKey(customerId);
+        return key == NO_KEY ? null : cache.get(key);
     }
 
     /**
@@ -35,6 +84,132 @@ public class LoanRequestsCache {
      * @param customerId String customer id
      */
     public void remove(final String customerId) {
-        cache.remove(customerId);
+        final long key = toKey(customerId);
+        final LoanRequest removed = key == NO_KEY ? null : cache.remove(key);
+        if (removed != null) {
+            unindex(removed);
+        }
+    }
+
+    /**
+     * Page of pending requests still waiting for approval of manager, ordered by customer id. Page is found in time
+     * proportional to its size.
+     * @param username String manager username
+     * @param after String customer id after which page starts, null for first page
+     * @param limit int maximum page size
+     * @return List<LoanRequest> pending requests not approved by manager yet
+     */
+    public List<LoanRequest> getPendingForManager(final String username, final String after, final int limit) {
+        final NavigableSet<String> customerIds = pendingByManager.get(username);
+        if (customerIds == null) {
+            return List.of();
+        }
+        final List<LoanRequest> page = new ArrayList<>(Math.min(limit, DEFAULT_PAGE_CAPACITY));
+        final Iterator<String> iterator = (after == null ? customerIds : customerIds.tailSet(after, false)).iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            final LoanRequest loanRequest = get(iterator.next());
+            if (loanRequest != null && loanRequest.indexOf(username) >= 0 && !loanRequest.isApproved(username)) {
+                page.add(loanRequest);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Copy of all pending loan requests, in no particular order.
+     * @return List<LoanRequest> pending requests
+     */
+    public List<LoanRequest> getAll() {
+        final List<LoanRequest> all = new ArrayList<>(cache.size());
+        cache.forEachValue(all::add);
+        return all;
+    }
+
+    /**
+     * Count of pending loan requests.
+     * @return int cache size
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Count of requests rejected by addIfAbsent, because customer already had pending request.
+     * @return long rejected requests count
+     */
+    public long getRejectedCount() {
+        return rejectedClaims.sum();
+    }
+
+    /*
+     * Customer id XX-XXXX-XXX has 9 significant characters from [0-9A-Za-z], each packed into 6 bits in ASCII order,
+     * so ids differing in letter case stay different customers.
+     */
+    static long toKey(final String customerId) {
+        if (customerId == null || customerId.length() != CUSTOMER_ID_LENGTH
+                || customerId.charAt(2) != '-' || customerId.charAt(7) != '-') {
+            return NO_KEY;
+        }
+        long key = 0;
+        for (int index = 0; index < CUSTOMER_ID_LENGTH; index++) {
+            if (index == 2 || index == 7) {
+                continue;
+            }
+            final int code = toCode(customerId.charAt(index));
+            if (code < 0) {
+                return NO_KEY;
+            }
+            key = key << BITS_PER_CHARACTER | code;
+        }
+        return key;
+    }
+
+    private static int toCode(final char character) {
+        if (character >= '0' && character <= '9') {
+            return character - '0';
+        }
+        if (character >= 'A' && character <= 'Z') {
+            return character - 'A' + 10;
+        }
+        if (character >= 'a' && character <= 'z') {
+            return character - 'a' + 36;
+        }
+        return -1;
+    }
+
+    private static long requireKey(final String customerId) {
+        final long key = toKey(customerId);
+        if (key == NO_KEY) {
+            throw new CustomerIdException(String.format("Customer id %s does not match pattern 'XX-XXXX-XXX'.",
+                    customerId));
+        }
+        return key;
+    }
+
+    private void index(final LoanRequest loanRequest) {
+        for (int index = 0; index < loanRequest.getApproverCount(); index++) {
+            final String username = loanRequest.getApprover(index);
+            if (!loanRequest.isApproved(username)) {
+                pendingByManager.compute(username, (key, customerIds) -> {
+                    final NavigableSet<String> target = customerIds == null
+                            ? new ConcurrentSkipListSet<>() : customerIds;
+                    target.add(loanRequest.getCustomerId());
+                    return target;
+                });
+            }
+        }
+    }
+
+    private void unindex(final LoanRequest loanRequest) {
+        for (int index = 0; index < loanRequest.getApproverCount(); index++) {
+            unindex(loanRequest.getApprover(index), loanRequest.getCustomerId());
+        }
+    }
+
+    private void unindex(final String username, final String customerId) {
+        pendingByManager.computeIfPresent(username, (key, customerIds) -> {
+            customerIds.remove(customerId);
+            return customerIds.isEmpty() ? null : customerIds;
+        });
     }
 }
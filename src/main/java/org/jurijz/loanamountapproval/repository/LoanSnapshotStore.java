@@ -0,0 +1,233 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanAmountSketch;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of pending requests, raw approval logs and rolled up hours, covering every journal record
+ * before given segment. Snapshot is written into temporary file, forced and renamed, so the latest snapshot file is
+ * always complete, and only the latest one is kept.
+ */
+public class LoanSnapshotStore {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4c4f414e;
+    private static final int VERSION = 2;
+
+    private final Path directory;
+
+    public LoanSnapshotStore(final Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Writes snapshot of caches and drops older snapshots. Caches must not change while snapshot is written.
+     * @param segment long index of first journal segment not covered by snapshot
+     * @param requestsCache LoanRequestsCache pending requests
+     * @param logsCache LoanRequestLogsCache approval logs and rolled up hours
+     */
+    public void write(final long segment, final LoanRequestsCache requestsCache,
+                      final LoanRequestLogsCache logsCache) {
+        final Path target = snapshotPath(segment);
+        final Path temporary = target.resolveSibling(target.getFileName() + TEMPORARY_SUFFIX);
+        final CRC32 checksum = new CRC32();
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                         new BufferedOutputStream(Channels.newOutputStream(channel)), checksum))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(segment);
+                writeRequests(output, requestsCache.getAll());
+                writeHours(output, logsCache.getRolledUpHours());
+                writeLogs(output, logsCache.getByPeriod(LocalDateTime.MIN, LocalDateTime.MAX));
+                output.writeInt((int) checksum.getValue());
+                output.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (final Path path : listSnapshots()) {
+                if (parseIndex(path) < segment) {
+                    Files.delete(path);
+                }
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Loads the latest snapshot into caches.
+     * @param requestsCache LoanRequestsCache receiving pending requests
+     * @param logsCache LoanRequestLogsCache receiving approval logs and rolled up hours
+     * @return long index of first journal segment not covered by loaded snapshot, 0 when there is no snapshot
+     */
+    public long load(final LoanRequestsCache requestsCache, final LoanRequestLogsCache logsCache) {
+        try {
+            final Optional<Path> latest = listSnapshots().stream().reduce((first, second) -> second);
+            if (latest.isEmpty()) {
+                return 0;
+            }
+            final CRC32 checksum = new CRC32();
+            try (DataInputStream input = new DataInputStream(new CheckedInputStream(
+                    new BufferedInputStream(Files.newInputStream(latest.get())), checksum))) {
+                if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                    throw new IllegalStateException(String.format("Snapshot %s has unknown format.", latest.get()));
+                }
+                final long segment = input.readLong();
+                readRequests(input, requestsCache);
+                readHours(input, logsCache);
+                readLogs(input, logsCache);
+                final int expected = (int) checksum.getValue();
+                if (input.readInt() != expected) {
+                    throw new IllegalStateException(String.format("Snapshot %s is corrupted.", latest.get()));
+                }
+                return segment;
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static void writeRequests(final DataOutputStream output, final List<LoanRequest> requests)
+            throws IOException {
+        output.writeInt(requests.size());
+        for (final LoanRequest request : requests) {
+            output.writeUTF(request.getCustomerId());
+            writeAmount(output, request.getAmount());
+            output.writeByte(request.getApproverCount());
+            for (int index = 0; index < request.getApproverCount(); index++) {
+                output.writeUTF(request.getApprover(index));
+                output.writeBoolean(request.isApproved(request.getApprover(index)));
+            }
+        }
+    }
+
+    private static void readRequests(final DataInputStream input, final LoanRequestsCache requestsCache)
+            throws IOException {
+        for (int remaining = input.readInt(); remaining > 0; remaining--) {
+            final LoanRequest request = new LoanRequest();
+            request.setCustomerId(input.readUTF());
+            request.setAmount(readAmount(input));
+            final int approverCount = input.readByte();
+            final Set<String> approvers = new HashSet<>();
+            final Set<String> approved = new HashSet<>();
+            for (int index = 0; index < approverCount; index++) {
+                final String username = input.readUTF();
+                approvers.add(username);
+                if (input.readBoolean()) {
+                    approved.add(username);
+                }
+            }
+            request.setApprovers(approvers);
+            approved.forEach(request::approve);
+            requestsCache.add(request);
+        }
+    }
+
+    private static void writeHours(final DataOutputStream output, final Map<LocalDateTime, LoanAmountAggregate> hours)
+            throws IOException {
+        output.writeInt(hours.size());
+        for (final Map.Entry<LocalDateTime, LoanAmountAggregate> hour : hours.entrySet()) {
+            output.writeLong(hour.getKey().toEpochSecond(ZoneOffset.UTC));
+            output.writeInt(hour.getValue().getCount());
+            writeAmount(output, hour.getValue().getSum());
+            writeAmount(output, hour.getValue().getMin());
+            writeAmount(output, hour.getValue().getMax());
+            hour.getValue().getSketch().writeTo(output);
+        }
+    }
+
+    private static void readHours(final DataInputStream input, final LoanRequestLogsCache logsCache)
+            throws IOException {
+        for (int remaining = input.readInt(); remaining > 0; remaining--) {
+            final LocalDateTime hour = LocalDateTime.ofEpochSecond(input.readLong(), 0, ZoneOffset.UTC);
+            final int count = input.readInt();
+            logsCache.addRolledUpHour(hour, new LoanAmountAggregate(count, readAmount(input), readAmount(input),
+                    readAmount(input), LoanAmountSketch.readFrom(input)));
+        }
+    }
+
+    private static void writeLogs(final DataOutputStream output, final List<LoanRequestLog> logs)
+            throws IOException {
+        output.writeInt(logs.size());
+        for (final LoanRequestLog log : logs) {
+            writeAmount(output, log.getAmount());
+            output.writeLong(log.getSentToCustomerTime().toEpochSecond(ZoneOffset.UTC));
+            output.writeInt(log.getSentToCustomerTime().getNano());
+        }
+    }
+
+    private static void readLogs(final DataInputStream input, final LoanRequestLogsCache logsCache)
+            throws IOException {
+        for (int remaining = input.readInt(); remaining > 0; remaining--) {
+            final BigDecimal amount = readAmount(input);
+            logsCache.add(new LoanRequestLog(amount,
+                    LocalDateTime.ofEpochSecond(input.readLong(), input.readInt(), ZoneOffset.UTC)));
+        }
+    }
+
+    private static void writeAmount(final DataOutputStream output, final BigDecimal amount) throws IOException {
+        final byte[] unscaled = amount.unscaledValue().toByteArray();
+        output.writeInt(amount.scale());
+        output.writeShort(unscaled.length);
+        output.write(unscaled);
+    }
+
+    private static BigDecimal readAmount(final DataInputStream input) throws IOException {
+        final int scale = input.readInt();
+        final byte[] unscaled = new byte[input.readUnsignedShort()];
+        input.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                    && path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path snapshotPath(final long segment) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX));
+    }
+
+    private static long parseIndex(final Path path) {
+        final String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,114 @@
+package org.jurijz.loanamountapproval.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded least recently used cache of statistics of periods ending in the past. Entry is dropped as soon as log
+ * lands inside its period or its logs are rolled up, adding log later than every cached period costs one volatile
+ * read only.
+ */
+@Component
+public class LoanStatisticsCache implements LoanRequestLogsListener {
+
+    private final Map<Period, LoanApprovalStatistics> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile LocalDateTime watchedUntil = LocalDateTime.MIN;
+    private long invalidations;
+
+    public LoanStatisticsCache(final LoanRequestLogsCache loanRequestLogsCache,
+                               @Value("${loan.approval.statistics.cache-size}") final int maxSize) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Period, LoanApprovalStatistics> eldest) {
+                return size() > maxSize;
+            }
+        };
+        loanRequestLogsCache.addListener(this);
+    }
+
+    /**
+     * Cached statistics of period, computed and cached when missing. Result computed while log landed inside any
+     * watched period is returned, but not cached.
+     * @param periodStart LocalDateTime start
+     * @param periodEnd LocalDateTime end, in the past
+     * @param statistics Supplier<LoanApprovalStatistics> computes statistics of period
+     * @return LoanApprovalStatistics statistics of period
+     */
+    public LoanApprovalStatistics computeIfAbsent(final LocalDateTime periodStart, final LocalDateTime periodEnd,
+                                                  final Supplier<LoanApprovalStatistics> statistics) {
+        final Period period = new Period(periodStart, periodEnd);
+        final long version;
+        synchronized (entries) {
+            final LoanApprovalStatistics cached = entries.get(period);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            if (periodEnd.isAfter(watchedUntil)) {
+                watchedUntil = periodEnd;
+            }
+            version = invalidations;
+        }
+        misses.increment();
+        final LoanApprovalStatistics computed = statistics.get();
+        synchronized (entries) {
+            if (version == invalidations) {
+                entries.put(period, computed);
+            }
+        }
+        return computed;
+    }
+
+    @Override
+    public void logAdded(final LocalDateTime sentToCustomerTime) {
+        if (sentToCustomerTime.isAfter(watchedUntil)) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations++;
+            entries.keySet().removeIf(period -> !sentToCustomerTime.isBefore(period.start)
+                    && !sentToCustomerTime.isAfter(period.end));
+        }
+    }
+
+    @Override
+    public void logsRolledUp(final LocalDateTime time) {
+        synchronized (entries) {
+            invalidations++;
+            entries.keySet().removeIf(period -> period.start.isBefore(time));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Period {
+
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+    }
+}
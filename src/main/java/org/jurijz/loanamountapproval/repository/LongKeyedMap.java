@@ -0,0 +1,229 @@
+package org.jurijz.loanamountapproval.repository;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/*
+ * Concurrent open-addressing map from primitive long keys to non-null values. Keys are spread over segments by mixed
+ * hash, every segment keeps keys and values in parallel arrays probed linearly, so entry costs one long and one
+ * reference instead of boxed key and node object. Removal shifts following entries back instead of leaving
+ * tombstones. Writers lock their segment, readers probe optimistically and repeat under read lock only when a write
+ * to the same segment interfered.
+ */
+class LongKeyedMap<V> {
+
+    private static final int SEGMENTS = 64;
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(SEGMENTS);
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+
+    @SuppressWarnings("unchecked")
+    LongKeyedMap() {
+        segments = new Segment[SEGMENTS];
+        for (int index = 0; index < SEGMENTS; index++) {
+            segments[index] = new Segment<>();
+        }
+    }
+
+    V get(final long key) {
+        final long hash = mix(key);
+        return segmentOf(hash).get(key, hash);
+    }
+
+    V put(final long key, final V value) {
+        final long hash = mix(key);
+        return segmentOf(hash).put(key, hash, value, true);
+    }
+
+    V putIfAbsent(final long key, final V value) {
+        final long hash = mix(key);
+        return segmentOf(hash).put(key, hash, value, false);
+    }
+
+    V remove(final long key) {
+        final long hash = mix(key);
+        return segmentOf(hash).remove(key, hash);
+    }
+
+    int size() {
+        int size = 0;
+        for (final Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    void forEachValue(final Consumer<V> action) {
+        for (final Segment<V> segment : segments) {
+            segment.forEachValue(action);
+        }
+    }
+
+    private Segment<V> segmentOf(final long hash) {
+        return segments[(int) (hash >>> SEGMENT_SHIFT)];
+    }
+
+    /*
+     * Murmur3 finalizer, encoded customer ids differ in few low bits, so they are spread before taking segment from
+     * high bits and slot from low bits.
+     */
+    private static long mix(final long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Segment<V> {
+
+        private final StampedLock lock = new StampedLock();
+        private Table<V> table = new Table<>(INITIAL_CAPACITY);
+        private volatile int size;
+
+        V get(final long key, final long hash) {
+            final long stamp = lock.tryOptimisticRead();
+            final V value = table.find(key, hash);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            final long readStamp = lock.readLock();
+            try {
+                return table.find(key, hash);
+            } finally {
+                lock.unlockRead(readStamp);
+            }
+        }
+
+        V put(final long key, final long hash, final V value, final boolean replace) {
+            final long stamp = lock.writeLock();
+            try {
+                final int slot = table.slotOf(key, hash);
+                final V previous = table.values[slot];
+                if (previous != null) {
+                    if (replace) {
+                        table.values[slot] = value;
+                    }
+                    return previous;
+                }
+                table.keys[slot] = key;
+                table.values[slot] = value;
+                size++;
+                if (size > table.capacity() - (table.capacity() >> 2)) {
+                    table = table.resize();
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V remove(final long key, final long hash) {
+            final long stamp = lock.writeLock();
+            try {
+                final int slot = table.slotOf(key, hash);
+                final V previous = table.values[slot];
+                if (previous != null) {
+                    table.shiftBack(slot);
+                    size--;
+                }
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void forEachValue(final Consumer<V> action) {
+            final long stamp = lock.readLock();
+            try {
+                for (final V value : table.values) {
+                    if (value != null) {
+                        action.accept(value);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /*
+     * Keys and values are replaced together on resize, so optimistic reader never mixes arrays of different size.
+     * Empty slot is the one with null value, any key is allowed.
+     */
+    private static final class Table<V> {
+
+        private final long[] keys;
+        private final V[] values;
+
+        @SuppressWarnings("unchecked")
+        Table(final int capacity) {
+            keys = new long[capacity];
+            values = (V[]) new Object[capacity];
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        /*
+         * Probe count is bounded by capacity, so reader racing with writer always finishes, its result is then
+         * discarded by failed validation.
+         */
+        V find(final long key, final long hash) {
+            final int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            for (int probe = 0; probe <= mask; probe++) {
+                final V value = values[slot];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[slot] == key) {
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        int slotOf(final long key, final long hash) {
+            final int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (values[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        void shiftBack(final int removed) {
+            final int mask = keys.length - 1;
+            int gap = removed;
+            int slot = (gap + 1) & mask;
+            while (values[slot] != null) {
+                final int home = (int) mix(keys[slot]) & mask;
+                if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                    keys[gap] = keys[slot];
+                    values[gap] = values[slot];
+                    gap = slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            values[gap] = null;
+        }
+
+        Table<V> resize() {
+            final Table<V> resized = new Table<>(keys.length << 1);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (values[slot] != null) {
+                    final int target = resized.slotOf(keys[slot], mix(keys[slot]));
+                    resized.keys[target] = keys[slot];
+                    resized.values[target] = values[slot];
+                }
+            }
+            return resized;
+        }
+    }
+}
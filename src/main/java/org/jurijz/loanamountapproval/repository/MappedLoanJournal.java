@@ -0,0 +1,424 @@
+package org.jurijz.loanamountapproval.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal appended into memory mapped segment files of fixed size. Record is written into mapped memory only, so it
+ * survives process crash as soon as append returns, and reaches disk by group commit: all records appended since
+ * last flush are forced together every flush interval, appending threads never wait for it.
+ * <p>
+ * Record layout is payload length, CRC32 of payload and payload starting with record type. Zero length marks end of
+ * segment, record with wrong checksum marks torn tail of last segment and is overwritten by next append.
+ * <p>
+ * Records are encoded and checksummed by appending thread into its own buffer, only copying into the active segment
+ * and rolling it are done under segment lock. Failed flush is logged and counted, flusher keeps running and journal
+ * reports unhealthy until next flush succeeds.
+ */
+@Slf4j
+public class MappedLoanJournal implements LoanJournal, LoanJournalSource, Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final byte REQUEST_ADDED = 1;
+    private static final byte REQUEST_APPROVED = 2;
+    private static final byte REQUEST_REMOVED = 3;
+    private static final byte LOG_ADDED = 4;
+
+    private static final ThreadLocal<ByteBuffer> RECORD = ThreadLocal.withInitial(() ->
+            ByteBuffer.allocate(MAX_RECORD_BYTES));
+    private static final ThreadLocal<CRC32> CHECKSUM = ThreadLocal.withInitial(CRC32::new);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Object segmentLock = new Object();
+    private final LongAdder flushFailures = new LongAdder();
+    private final ScheduledExecutorService flusher;
+
+    private long segmentIndex;
+    private volatile MappedByteBuffer segment;
+    private volatile boolean dirty;
+    private volatile boolean healthy = true;
+
+    public MappedLoanJournal(final Path directory, final int segmentSize, final Duration flushInterval)
+            throws IOException {
+        if (segmentSize <= HEADER_BYTES + MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException(String.format("Journal segment size must be more than %d bytes.",
+                    HEADER_BYTES + MAX_RECORD_BYTES));
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        openLastSegment();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void requestAdded(final LoanRequest loanRequest) {
+        final ByteBuffer record = RECORD.get().clear();
+        record.put(REQUEST_ADDED);
+        putString(record, loanRequest.getCustomerId());
+        putAmount(record, loanRequest.getAmount());
+        record.put((byte) loanRequest.getApproverCount());
+        for (int index = 0; index < loanRequest.getApproverCount(); index++) {
+            putString(record, loanRequest.getApprover(index));
+        }
+        append(record);
+    }
+
+    @Override
+    public void requestApproved(final String customerId, final String username) {
+        final ByteBuffer record = RECORD.get().clear();
+        record.put(REQUEST_APPROVED);
+        putString(record, customerId);
+        putString(record, username);
+        append(record);
+    }
+
+    @Override
+    public void requestRemoved(final String customerId) {
+        final ByteBuffer record = RECORD.get().clear();
+        record.put(REQUEST_REMOVED);
+        putString(record, customerId);
+        append(record);
+    }
+
+    @Override
+    public void logAdded(final LoanRequestLog loanRequestLog) {
+        final ByteBuffer record = RECORD.get().clear();
+        record.put(LOG_ADDED);
+        putAmount(record, loanRequestLog.getAmount());
+        record.putLong(loanRequestLog.getSentToCustomerTime().toEpochSecond(ZoneOffset.UTC));
+        record.putInt(loanRequestLog.getSentToCustomerTime().getNano());
+        append(record);
+    }
+
+    @Override
+    public void replay(final LoanJournal target) {
+        replay(target, 0);
+    }
+
+    /**
+     * Passes records of segments starting with given one up to the open segment to target, used on startup after
+     * snapshot of earlier segments is loaded.
+     * @param target LoanJournal receiving records
+     * @param fromSegment long index of first replayed segment
+     */
+    public void replay(final LoanJournal target, final long fromSegment) {
+        synchronized (segmentLock) {
+            replaySegments(target, fromSegment, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Passes records of closed segments to target without blocking appends, so they can be compacted into snapshot
+     * while writers go on.
+     * @param target LoanJournal receiving records
+     * @param fromSegment long index of first replayed segment
+     * @param toSegment long index of segment after last replayed one, not later than last checkpoint
+     */
+    public void replayClosed(final LoanJournal target, final long fromSegment, final long toSegment) {
+        replaySegments(target, fromSegment, toSegment);
+    }
+
+    /**
+     * Closes open segment, so every record appended so far is kept in segments before returned index and later
+     * records are appended to segments starting with it.
+     * @return long index of the open segment
+     */
+    public long checkpoint() {
+        synchronized (segmentLock) {
+            if (segment.position() > 0) {
+                rollSegment();
+            }
+            return segmentIndex;
+        }
+    }
+
+    /**
+     * Deletes segments covered by snapshot.
+     * @param toSegment long index of first kept segment, not later than last checkpoint
+     */
+    public void deleteSegmentsBefore(final long toSegment) {
+        try {
+            for (final Path path : listSegments()) {
+                if (parseIndex(path) < toSegment) {
+                    Files.delete(path);
+                }
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Forces records appended since last flush to disk, called every flush interval.
+     */
+    public void flush() {
+        if (dirty) {
+            dirty = false;
+            segment.force();
+        }
+    }
+
+    /**
+     * Tells whether the last flush succeeded.
+     * @return boolean false while records cannot be forced to disk
+     */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Count of failed flushes since journal was opened.
+     * @return long flush failures count
+     */
+    public long getFlushFailureCount() {
+        return flushFailures.sum();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        synchronized (segmentLock) {
+            segment.force();
+        }
+    }
+
+    /*
+     * Exception thrown by scheduled task would cancel all its next runs, so it is logged and flush is tried again.
+     */
+    private void scheduledFlush() {
+        try {
+            flush();
+            healthy = true;
+        } catch (final RuntimeException exception) {
+            dirty = true;
+            healthy = false;
+            flushFailures.increment();
+            log.error("Journal flush failed, records appended since last flush are not on disk yet.", exception);
+        }
+    }
+
+    private void append(final ByteBuffer record) {
+        record.flip();
+        final int length = record.remaining();
+        final CRC32 checksum = CHECKSUM.get();
+        checksum.reset();
+        checksum.update(record.array(), 0, length);
+        final int crc = (int) checksum.getValue();
+        synchronized (segmentLock) {
+            if (segment.remaining() < HEADER_BYTES + length) {
+                rollSegment();
+            }
+            segment.putInt(length);
+            segment.putInt(crc);
+            segment.put(record);
+            dirty = true;
+        }
+    }
+
+    private void rollSegment() {
+        segment.force();
+        try {
+            segmentIndex++;
+            segment = map(segmentPath(segmentIndex), FileChannel.MapMode.READ_WRITE);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void replaySegments(final LoanJournal target, final long fromSegment, final long toSegment) {
+        final CRC32 replayChecksum = new CRC32();
+        try {
+            for (final Path path : listSegments()) {
+                final long index = parseIndex(path);
+                if (index < fromSegment || index >= toSegment) {
+                    continue;
+                }
+                final ByteBuffer buffer = map(path, FileChannel.MapMode.READ_ONLY);
+                ByteBuffer payload;
+                while ((payload = nextRecord(buffer, replayChecksum)) != null) {
+                    dispatch(payload, target);
+                }
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void openLastSegment() throws IOException {
+        final List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            segmentIndex = 0;
+            segment = map(segmentPath(segmentIndex), FileChannel.MapMode.READ_WRITE);
+            return;
+        }
+        final Path last = segments.get(segments.size() - 1);
+        segmentIndex = parseIndex(last);
+        segment = map(last, FileChannel.MapMode.READ_WRITE);
+        final CRC32 checksum = new CRC32();
+        ByteBuffer payload = nextRecord(segment, checksum);
+        while (payload != null) {
+            payload = nextRecord(segment, checksum);
+        }
+        final int tail = segment.position();
+        if (tail + Integer.BYTES <= segment.limit() && segment.getInt(tail) != 0) {
+            log.warn("Journal segment {} has torn record at {}, it is discarded.", last, tail);
+            for (int position = tail; position < segment.limit(); position++) {
+                segment.put(position, (byte) 0);
+            }
+        }
+    }
+
+    private static ByteBuffer nextRecord(final ByteBuffer buffer, final CRC32 checksum) {
+        final int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        final int length = buffer.getInt(start);
+        if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        final ByteBuffer payload = buffer.slice(start + HEADER_BYTES, length);
+        checksum.reset();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != buffer.getInt(start + Integer.BYTES)) {
+            return null;
+        }
+        buffer.position(start + HEADER_BYTES + length);
+        return payload;
+    }
+
+    private void dispatch(final ByteBuffer payload, final LoanJournal target) {
+        final byte type = payload.get();
+        switch (type) {
+            case REQUEST_ADDED:
+                final LoanRequest loanRequest = new LoanRequest();
+                loanRequest.setCustomerId(getString(payload));
+                loanRequest.setAmount(getAmount(payload));
+                final String[] approvers = new String[payload.get()];
+                for (int index = 0; index < approvers.length; index++) {
+                    approvers[index] = getString(payload);
+                }
+                loanRequest.setApprovers(new HashSet<>(Arrays.asList(approvers)));
+                target.requestAdded(loanRequest);
+                break;
+            case REQUEST_APPROVED:
+                target.requestApproved(getString(payload), getString(payload));
+                break;
+            case REQUEST_REMOVED:
+                target.requestRemoved(getString(payload));
+                break;
+            case LOG_ADDED:
+                final BigDecimal amount = getAmount(payload);
+                target.logAdded(new LoanRequestLog(amount,
+                        LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC)));
+                break;
+            default:
+                throw new IllegalStateException(String.format("Unknown journal record type %d.", type));
+        }
+    }
+
+    private static void putString(final ByteBuffer record, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        requireRoom(record, bytes.length);
+        record.putShort((short) bytes.length);
+        record.put(bytes);
+    }
+
+    private static String getString(final ByteBuffer payload) {
+        final byte[] bytes = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putAmount(final ByteBuffer record, final BigDecimal amount) {
+        final byte[] unscaled = amount.unscaledValue().toByteArray();
+        record.putInt(amount.scale());
+        requireRoom(record, unscaled.length);
+        record.putShort((short) unscaled.length);
+        record.put(unscaled);
+    }
+
+    /*
+     * Record holds at most 64 KB, so value fitting into it after its short prefix always fits unsigned short length.
+     * Values are limited by request validation, failing here means value bypassed it.
+     */
+    private static void requireRoom(final ByteBuffer record, final int length) {
+        if (length > record.remaining() - Short.BYTES) {
+            throw new IllegalArgumentException(String.format("Journal record cannot hold value of %d bytes, record "
+                    + "is limited to %d bytes.", length, MAX_RECORD_BYTES));
+        }
+    }
+
+    private static BigDecimal getAmount(final ByteBuffer payload) {
+        final int scale = payload.getInt();
+        final byte[] unscaled = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private MappedByteBuffer map(final Path path, final FileChannel.MapMode mode) throws IOException {
+        final boolean write = mode == FileChannel.MapMode.READ_WRITE;
+        try (FileChannel channel = write
+                ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(mode, 0, write ? segmentSize : channel.size());
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private Path segmentPath(final long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static long parseIndex(final Path path) {
+        final String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
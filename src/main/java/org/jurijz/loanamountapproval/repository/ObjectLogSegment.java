@@ -0,0 +1,39 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Keeps logs as they were received.
+ */
+class ObjectLogSegment implements LoanRequestLogSegment {
+
+    private final List<LoanRequestLog> logs = new ArrayList<>();
+
+    @Override
+    public void add(final LoanRequestLog loanRequestLog) {
+        logs.add(loanRequestLog);
+    }
+
+    @Override
+    public void collect(final List<LoanRequestLog> target, final LocalDateTime periodStart,
+                        final LocalDateTime periodEnd) {
+        logs.stream().filter(log -> isInPeriod(log, periodStart, periodEnd)).forEach(target::add);
+    }
+
+    @Override
+    public void mergeInto(final LoanAmountAggregate target, final LocalDateTime periodStart,
+                          final LocalDateTime periodEnd) {
+        logs.stream().filter(log -> isInPeriod(log, periodStart, periodEnd))
+                .forEach(log -> target.add(log.getAmount()));
+    }
+
+    private static boolean isInPeriod(final LoanRequestLog log, final LocalDateTime periodStart,
+                                      final LocalDateTime periodEnd) {
+        return log.getSentToCustomerTime().isAfter(periodStart) && log.getSentToCustomerTime().isBefore(periodEnd);
+    }
+}
@@ -0,0 +1,44 @@
+package org.jurijz.loanamountapproval.repository;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Primitive columns kept in direct memory, one fixed size record per log, so logs add nothing to the heap.
+ */
+class OffHeapLogSegment extends PrimitiveLogSegment {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int AMOUNT_OFFSET = Long.BYTES;
+    private static final int SCALE_OFFSET = AMOUNT_OFFSET + Long.BYTES;
+    private static final int RECORD_BYTES = SCALE_OFFSET + Byte.BYTES;
+
+    private ByteBuffer records = ByteBuffer.allocateDirect(INITIAL_CAPACITY * RECORD_BYTES);
+
+    @Override
+    protected void append(final long time, final long unscaledAmount, final byte scale) {
+        final int offset = size * RECORD_BYTES;
+        if (offset == records.capacity()) {
+            final ByteBuffer grown = ByteBuffer.allocateDirect((size + (size >> 1)) * RECORD_BYTES);
+            grown.put(records.duplicate().clear());
+            records = grown;
+        }
+        records.putLong(offset, time);
+        records.putLong(offset + AMOUNT_OFFSET, unscaledAmount);
+        records.put(offset + SCALE_OFFSET, scale);
+    }
+
+    @Override
+    protected long time(final int index) {
+        return records.getLong(index * RECORD_BYTES);
+    }
+
+    @Override
+    protected long unscaledAmount(final int index) {
+        return records.getLong(index * RECORD_BYTES + AMOUNT_OFFSET);
+    }
+
+    @Override
+    protected byte scale(final int index) {
+        return records.get(index * RECORD_BYTES + SCALE_OFFSET);
+    }
+}
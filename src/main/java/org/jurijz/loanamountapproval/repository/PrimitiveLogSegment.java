@@ -0,0 +1,111 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/*
+ * Keeps every log as three primitive columns: epoch nanos of sent time, unscaled amount and amount scale.
+ * Log objects are recreated only when they leave the cache, period filtering compares plain longs. Rare log with
+ * unscaled amount out of long range, scale out of byte range or sent time out of epoch nanos range, years 1677 to 2262,
+ * is kept as object in overflow segment instead. Period bounds out of that range are clamped to it, so any period can
+ * be filtered, e.g. LocalDateTime.MIN to LocalDateTime.MAX.
+ */
+abstract class PrimitiveLogSegment implements LoanRequestLogSegment {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long MIN_EPOCH_SECOND = Long.MIN_VALUE / NANOS_PER_SECOND;
+    private static final long MAX_EPOCH_SECOND = Long.MAX_VALUE / NANOS_PER_SECOND;
+
+    protected int size;
+    private ObjectLogSegment overflow;
+
+    @Override
+    public void add(final LoanRequestLog loanRequestLog) {
+        final BigDecimal amount = loanRequestLog.getAmount();
+        if (!fitsColumns(amount) || !fitsEpochNanos(loanRequestLog.getSentToCustomerTime())) {
+            if (overflow == null) {
+                overflow = new ObjectLogSegment();
+            }
+            overflow.add(loanRequestLog);
+            return;
+        }
+        append(toEpochNanos(loanRequestLog.getSentToCustomerTime()), amount.unscaledValue().longValueExact(),
+                (byte) amount.scale());
+        size++;
+    }
+
+    @Override
+    public void collect(final List<LoanRequestLog> target, final LocalDateTime periodStart,
+                        final LocalDateTime periodEnd) {
+        final long start = toEpochNanos(periodStart);
+        final long end = toEpochNanos(periodEnd);
+        for (int index = 0; index < size; index++) {
+            final long time = time(index);
+            if (time > start && time < end) {
+                target.add(new LoanRequestLog(amount(index), toLocalDateTime(time)));
+            }
+        }
+        if (overflow != null) {
+            overflow.collect(target, periodStart, periodEnd);
+        }
+    }
+
+    @Override
+    public void mergeInto(final LoanAmountAggregate target, final LocalDateTime periodStart,
+                          final LocalDateTime periodEnd) {
+        final long start = toEpochNanos(periodStart);
+        final long end = toEpochNanos(periodEnd);
+        for (int index = 0; index < size; index++) {
+            final long time = time(index);
+            if (time > start && time < end) {
+                target.add(amount(index));
+            }
+        }
+        if (overflow != null) {
+            overflow.mergeInto(target, periodStart, periodEnd);
+        }
+    }
+
+    protected abstract void append(long time, long unscaledAmount, byte scale);
+
+    protected abstract long time(int index);
+
+    protected abstract long unscaledAmount(int index);
+
+    protected abstract byte scale(int index);
+
+    private BigDecimal amount(final int index) {
+        return BigDecimal.valueOf(unscaledAmount(index), scale(index));
+    }
+
+    private static boolean fitsColumns(final BigDecimal amount) {
+        return amount.scale() >= Byte.MIN_VALUE && amount.scale() <= Byte.MAX_VALUE
+                && amount.unscaledValue().bitLength() < Long.SIZE;
+    }
+
+    private static boolean fitsEpochNanos(final LocalDateTime time) {
+        final long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        return epochSecond >= MIN_EPOCH_SECOND && epochSecond < MAX_EPOCH_SECOND;
+    }
+
+    private static long toEpochNanos(final LocalDateTime time) {
+        final long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        if (epochSecond < MIN_EPOCH_SECOND) {
+            return Long.MIN_VALUE;
+        }
+        if (epochSecond >= MAX_EPOCH_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        return epochSecond * NANOS_PER_SECOND + time.getNano();
+    }
+
+    private static LocalDateTime toLocalDateTime(final long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,100 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.jurijz.loanamountapproval.configuration.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * Single writer executors of pending requests state. Customers are spread over shards by customer id hash and every
+ * shard runs its tasks one after another on its own thread, so tasks of the same customer never overlap and run in
+ * submission order, while tasks of different customers run in parallel on different shards.
+ */
+@Component
+public class CustomerShardExecutor {
+
+    private static final ThreadLocal<ExecutorService> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final ExecutorService[] shards;
+
+    public CustomerShardExecutor(@Value("${loan.approval.requests.shards}") final int shardCount,
+                                 @Value("${loan.approval.threads.virtual}") final boolean virtualThreads) {
+        final ThreadFactory threadFactory = virtualThreads
+                ? VirtualThreads.newThreadFactory("loan-shard-")
+                : new CustomizableThreadFactory("loan-shard-");
+        this.shards = new ExecutorService[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards[shard] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+    }
+
+    /**
+     * Queues task to shard of customer.
+     * @param customerId String customer id
+     * @param task Supplier<R> task changing state of customer requests
+     * @return CompletableFuture<R> result of task, completed on shard thread
+     */
+    public <R> CompletableFuture<R> submit(final String customerId, final Supplier<R> task) {
+        final ExecutorService shard = shardOf(customerId);
+        if (CURRENT_SHARD.get() == shard) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (final RuntimeException exception) {
+                return CompletableFuture.failedFuture(exception);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            CURRENT_SHARD.set(shard);
+            return task.get();
+        }, shard);
+    }
+
+    /**
+     * Runs task on shard of customer and waits for its result. Task submitted from the same shard runs at once.
+     * @param customerId String customer id
+     * @param task Supplier<R> task changing state of customer requests
+     * @return R result of task
+     */
+    public <R> R execute(final String customerId, final Supplier<R> task) {
+        try {
+            return submit(customerId, task).join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /**
+     * Runs task on shard of customer and waits for its completion.
+     * @param customerId String customer id
+     * @param task Runnable task changing state of customer requests
+     */
+    public void run(final String customerId, final Runnable task) {
+        execute(customerId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (final ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    private ExecutorService shardOf(final String customerId) {
+        return shards[Math.floorMod(Objects.hashCode(customerId), shards.length)];
+    }
+}
@@ -0,0 +1,94 @@
+package org.jurijz.loanamountapproval.service;
+
+import lombok.RequiredArgsConstructor;
+import org.jurijz.loanamountapproval.converter.LoanAmountAggregateConverter;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountAggregateDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalResponse;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsResponse;
+import org.jurijz.loanamountapproval.domain.dto.TransferredRequestDto;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport calling internal cluster endpoints of other node over HTTP, node id is its host and port. Every call carries
+ * shared cluster secret in SECRET_HEADER, checked by receiving node.
+ */
+@RequiredArgsConstructor
+public class HttpLoanClusterTransport implements LoanClusterTransport {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final String REQUESTS_URI = "http://%s/loan/cluster/requests";
+    private static final String APPROVALS_URI = "http://%s/loan/cluster/approvals";
+    private static final String TRANSFERS_URI = "http://%s/loan/cluster/transfers";
+    private static final String AGGREGATES_URI = "http://%s/loan/cluster/aggregates?periodEnd={periodEnd}";
+    private static final String PERIOD_AGGREGATES_URI = AGGREGATES_URI + "&periodStart={periodStart}";
+
+    private final WebClient webClient;
+    private final LoanAmountAggregateConverter aggregateConverter;
+    private final Duration timeout;
+    private final String secret;
+
+    @Override
+    public CompletableFuture<List<LoanRequestResultDto>> processRequests(final String node,
+                                                                        final List<LoanRequestDto> requests) {
+        return webClient.post()
+                .uri(String.format(REQUESTS_URI, node))
+                .header(SECRET_HEADER, secret)
+                .bodyValue(requests)
+                .retrieve()
+                .bodyToMono(LoanAmountApprovalResponse.class)
+                .map(LoanAmountApprovalResponse::getResults)
+                .timeout(timeout)
+                .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<List<ManagerApprovalResultDto>> approveRequests(final String node,
+                                                                            final List<ManagerApprovalDto> approvals) {
+        return webClient.put()
+                .uri(String.format(APPROVALS_URI, node))
+                .header(SECRET_HEADER, secret)
+                .bodyValue(approvals)
+                .retrieve()
+                .bodyToMono(ManagerApprovalsResponse.class)
+                .map(ManagerApprovalsResponse::getResults)
+                .timeout(timeout)
+                .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> transferRequests(final String node, final List<TransferredRequestDto> requests) {
+        return webClient.put()
+                .uri(String.format(TRANSFERS_URI, node))
+                .header(SECRET_HEADER, secret)
+                .bodyValue(requests)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .timeout(timeout)
+                .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<LoanAmountAggregate> aggregateLogs(final String node, final LocalDateTime periodStart,
+                                                                final LocalDateTime periodEnd) {
+        return (periodStart == null
+                ? webClient.get().uri(String.format(AGGREGATES_URI, node), periodEnd)
+                : webClient.get().uri(String.format(PERIOD_AGGREGATES_URI, node), periodEnd, periodStart))
+                .header(SECRET_HEADER, secret)
+                .retrieve()
+                .bodyToMono(LoanAmountAggregateDto.class)
+                .map(aggregateConverter::toAggregate)
+                .timeout(timeout)
+                .toFuture();
+    }
+}
@@ -0,0 +1,82 @@
+package org.jurijz.loanamountapproval.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent hash ring of cluster nodes. Every node is placed on the ring at virtualNodes points and
+ * customer belongs to node of the first point at or after hash of customer id, so adding or removing one of n nodes
+ * moves only about 1/n of customers and spreads them over all other nodes. Owner is found by binary search over
+ * sorted point hashes.
+ */
+public class LoanClusterRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public LoanClusterRing(final Collection<String> nodes, final int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Cluster must have at least one node.");
+        }
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        final long[][] placed = new long[this.nodes.size() * virtualNodes][];
+        int position = 0;
+        for (int node = 0; node < this.nodes.size(); node++) {
+            for (int point = 0; point < virtualNodes; point++) {
+                placed[position++] = new long[]{hash(this.nodes.get(node) + "#" + point), node};
+            }
+        }
+        Arrays.sort(placed, (first, second) -> first[0] != second[0]
+                ? Long.compare(first[0], second[0])
+                : Long.compare(first[1], second[1]));
+        this.points = new long[placed.length];
+        this.owners = new String[placed.length];
+        for (int point = 0; point < placed.length; point++) {
+            points[point] = placed[point][0];
+            owners[point] = this.nodes.get((int) placed[point][1]);
+        }
+    }
+
+    /**
+     * Node owning customer.
+     * @param customerId String customer id
+     * @return String node id
+     */
+    public String ownerOf(final String customerId) {
+        if (nodes.size() == 1) {
+            return nodes.get(0);
+        }
+        final int found = Arrays.binarySearch(points, hash(customerId));
+        final int point = found >= 0 ? found : -found - 1;
+        return owners[point == points.length ? 0 : point];
+    }
+
+    /**
+     * Nodes of ring in ascending order.
+     * @return List<String> node ids
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /*
+     * 64 bit FNV-1a of UTF-8 bytes with murmur3 finalizer, so close ids land far apart on the ring.
+     */
+    private static long hash(final String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte current : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= current & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,285 @@
+package org.jurijz.loanamountapproval.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
+import org.jurijz.loanamountapproval.domain.dto.TransferredRequestDto;
+import org.jurijz.loanamountapproval.exception.ClusterNodeException;
+import org.jurijz.loanamountapproval.exception.ManagerApprovalException;
+import org.jurijz.loanamountapproval.exception.NotificationBacklogException;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Routes requests and approvals to cluster node owning their customer by consistent hashing. Items owned by local
+ * node are processed by LoanRequestService, items of other nodes are forwarded by LoanClusterTransport, all forwarded
+ * groups are sent before local group is processed and results are returned in received order. Statistics are
+ * gathered the same way, partial aggregates of all nodes are requested at once and merged. Without other nodes
+ * everything is processed locally.
+ */
+@Slf4j
+@Service
+public class LoanClusterService {
+
+    private static final String UNREACHABLE_REASON = "Node owning customer is not reachable, retry later.";
+
+    private final LoanRequestService loanRequestService;
+    private final LoanRequestsCache loanRequestsCache;
+    private final LoanRequestLogsCache loanRequestLogsCache;
+    private final LoanClusterTransport transport;
+    private final String localNode;
+    private final int virtualNodes;
+    private volatile LoanClusterRing ring;
+
+    public LoanClusterService(final LoanRequestService loanRequestService,
+                              final LoanRequestsCache loanRequestsCache,
+                              final LoanRequestLogsCache loanRequestLogsCache,
+                              final LoanClusterTransport transport,
+                              @Value("${loan.approval.cluster.node-id}") final String localNode,
+                              @Value("${loan.approval.cluster.nodes}") final List<String> nodes,
+                              @Value("${loan.approval.cluster.virtual-nodes}") final int virtualNodes) {
+        this.loanRequestService = loanRequestService;
+        this.loanRequestsCache = loanRequestsCache;
+        this.loanRequestLogsCache = loanRequestLogsCache;
+        this.transport = transport;
+        this.localNode = localNode;
+        this.virtualNodes = virtualNodes;
+        this.ring = new LoanClusterRing(nodes.isEmpty() ? List.of(localNode) : nodes, virtualNodes);
+    }
+
+    /**
+     * Processes requests on nodes owning their customers, see LoanRequestService.processRequests.
+     * @param requests List<LoanRequestDto> list of valid requests
+     * @return List<LoanRequestResultDto> result of every request in batch order, request of unreachable node is
+     * BACKLOGGED
+     */
+    public List<LoanRequestResultDto> processRequests(final List<LoanRequestDto> requests) {
+        return route(requests, LoanRequestDto::getCustomerId, loanRequestService::processRequests,
+                transport::processRequests, request -> LoanRequestResultDto.builder()
+                        .customerId(request.getCustomerId())
+                        .status(LoanRequestResultDto.Status.BACKLOGGED)
+                        .reason(UNREACHABLE_REASON)
+                        .build());
+    }
+
+    /**
+     * Processes approval on node owning its customer, see LoanRequestService.approveRequest.
+     * @param approvalDto ManagerApprovalDto object containing manager username and customer id
+     * @throws ManagerApprovalException thrown when customer has no pending request or manager username is not loan
+     * requests approvers list
+     * @throws NotificationBacklogException thrown when notification to customer did not fit into backlog or owning
+     * node is not reachable, approval can be retried
+     */
+    public void approveRequest(final ManagerApprovalDto approvalDto) {
+        final String owner = ring.ownerOf(approvalDto.getCustomerId());
+        if (owner.equals(localNode)) {
+            loanRequestService.approveRequest(approvalDto);
+            return;
+        }
+        final ManagerApprovalResultDto result;
+        try {
+            result = transport.approveRequests(owner, List.of(approvalDto)).join().get(0);
+        } catch (final CompletionException exception) {
+            log.warn("Cannot forward approval of customer {} to node {}.", approvalDto.getCustomerId(), owner,
+                    exception.getCause());
+            throw new NotificationBacklogException(UNREACHABLE_REASON);
+        }
+        if (result.getStatus() == ManagerApprovalResultDto.Status.REJECTED) {
+            throw new ManagerApprovalException(result.getReason());
+        }
+        if (result.getStatus() == ManagerApprovalResultDto.Status.BACKLOGGED) {
+            throw new NotificationBacklogException(result.getReason());
+        }
+    }
+
+    /**
+     * Processes approvals on nodes owning their customers, see LoanRequestService.approveRequests.
+     * @param approvals List<ManagerApprovalDto> list of valid approvals
+     * @return List<ManagerApprovalResultDto> result of every approval in received order, approval of unreachable node
+     * is BACKLOGGED
+     */
+    public List<ManagerApprovalResultDto> approveRequests(final List<ManagerApprovalDto> approvals) {
+        return route(approvals, ManagerApprovalDto::getCustomerId, loanRequestService::approveRequests,
+                transport::approveRequests, approval -> ManagerApprovalResultDto.builder()
+                        .username(approval.getUsername())
+                        .customerId(approval.getCustomerId())
+                        .status(ManagerApprovalResultDto.Status.BACKLOGGED)
+                        .reason(UNREACHABLE_REASON)
+                        .build());
+    }
+
+    /**
+     * Replaces cluster nodes and hands over pending requests, which now belong to other nodes. New requests and
+     * approvals are routed by new nodes at once, every moving request is dropped on its customer shard before it is
+     * sent, so approvals given afterwards cannot be lost, and requests stored by calls routed by old nodes are handed
+     * over by repeated passes. Requests of unreachable node are stored back and kept locally until nodes are updated
+     * again. Approval arriving while its request is handed over is rejected and should be retried.
+     * @param nodes List<String> ids of all cluster nodes
+     * @return int count of handed over requests
+     */
+    public synchronized int updateNodes(final List<String> nodes) {
+        final LoanClusterRing updated = new LoanClusterRing(nodes, virtualNodes);
+        ring = updated;
+        int moved = 0;
+        int passMoved;
+        do {
+            passMoved = handOver(updated);
+            moved += passMoved;
+        } while (passMoved > 0);
+        log.info("Cluster nodes updated to {}, {} requests handed over.", updated.getNodes(), moved);
+        return moved;
+    }
+
+    /**
+     * Aggregate of logs of all nodes, partial aggregates of other nodes are requested in parallel while local one is
+     * computed, and all are merged.
+     * @param periodStart LocalDateTime start, null for window of last seconds ending at periodEnd
+     * @param periodEnd LocalDateTime end
+     * @return LoanAmountAggregate aggregate of logs of all nodes
+     * @throws ClusterNodeException thrown when any node is not reachable, statistics without its logs would be wrong
+     */
+    public LoanAmountAggregate aggregateLogs(final LocalDateTime periodStart, final LocalDateTime periodEnd) {
+        final Map<String, CompletableFuture<LoanAmountAggregate>> partials = new LinkedHashMap<>();
+        ring.getNodes().stream()
+                .filter(node -> !node.equals(localNode))
+                .forEach(node -> partials.put(node, transport.aggregateLogs(node, periodStart, periodEnd)));
+        final LoanAmountAggregate aggregate = aggregateLocally(periodStart, periodEnd);
+        partials.forEach((node, partial) -> {
+            try {
+                aggregate.merge(partial.join());
+            } catch (final CompletionException exception) {
+                log.warn("Cannot gather logs aggregate of node {}.", node, exception.getCause());
+                throw new ClusterNodeException(String.format("Node %s is not reachable, retry later.", node));
+            }
+        });
+        return aggregate;
+    }
+
+    /**
+     * Aggregate of logs kept by this node only, partial aggregate requested by other nodes.
+     * @param periodStart LocalDateTime start, null for window of last seconds ending at periodEnd
+     * @param periodEnd LocalDateTime end
+     * @return LoanAmountAggregate aggregate of local logs
+     */
+    public LoanAmountAggregate aggregateLocally(final LocalDateTime periodStart, final LocalDateTime periodEnd) {
+        return periodStart == null
+                ? loanRequestLogsCache.aggregateWindow(periodEnd)
+                : loanRequestLogsCache.aggregateByPeriod(periodStart, periodEnd);
+    }
+
+    /**
+     * Tells whether other nodes than this one share the work.
+     * @return boolean true when cluster has other nodes
+     */
+    public boolean isDistributed() {
+        return isDistributed(ring);
+    }
+
+    /**
+     * Current cluster nodes.
+     * @return List<String> node ids in ascending order
+     */
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, R> List<R> route(final List<T> items, final Function<T, String> customerId,
+                                 final Function<List<T>, List<R>> local,
+                                 final BiFunction<String, List<T>, CompletableFuture<List<R>>> remote,
+                                 final Function<T, R> unreachable) {
+        final LoanClusterRing current = ring;
+        if (!isDistributed(current)) {
+            return local.apply(items);
+        }
+        final Map<String, List<Integer>> indexesByNode = new LinkedHashMap<>();
+        for (int index = 0; index < items.size(); index++) {
+            indexesByNode.computeIfAbsent(current.ownerOf(customerId.apply(items.get(index))),
+                    node -> new ArrayList<>()).add(index);
+        }
+        final Map<String, CompletableFuture<List<R>>> forwarded = new LinkedHashMap<>();
+        indexesByNode.forEach((node, indexes) -> {
+            if (!node.equals(localNode)) {
+                forwarded.put(node, remote.apply(node, select(items, indexes)));
+            }
+        });
+        final Object[] results = new Object[items.size()];
+        final List<Integer> localIndexes = indexesByNode.get(localNode);
+        if (localIndexes != null) {
+            fill(results, localIndexes, local.apply(select(items, localIndexes)));
+        }
+        forwarded.forEach((node, future) -> {
+            final List<Integer> indexes = indexesByNode.get(node);
+            try {
+                fill(results, indexes, future.join());
+            } catch (final CompletionException exception) {
+                log.warn("Cannot forward {} items to node {}.", indexes.size(), node, exception.getCause());
+                indexes.forEach(index -> results[index] = unreachable.apply(items.get(index)));
+            }
+        });
+        return (List<R>) Arrays.asList(results);
+    }
+
+    private int handOver(final LoanClusterRing updated) {
+        final Map<String, List<LoanRequest>> moving = loanRequestsCache.getAll().stream()
+                .filter(request -> !updated.ownerOf(request.getCustomerId()).equals(localNode))
+                .collect(Collectors.groupingBy(request -> updated.ownerOf(request.getCustomerId())));
+        int moved = 0;
+        for (final Map.Entry<String, List<LoanRequest>> node : moving.entrySet()) {
+            final List<LoanRequest> released = loanRequestService.releaseRequests(node.getValue());
+            if (released.isEmpty()) {
+                continue;
+            }
+            try {
+                transport.transferRequests(node.getKey(), released.stream()
+                        .map(request -> TransferredRequestDto.builder()
+                                .customerId(request.getCustomerId())
+                                .amount(request.getAmount())
+                                .managerApprovals(request.getManagerApprovals())
+                                .build())
+                        .collect(Collectors.toList())).join();
+            } catch (final CompletionException exception) {
+                log.warn("Cannot hand over {} requests to node {}.", released.size(), node.getKey(),
+                        exception.getCause());
+                loanRequestService.acceptRequests(released);
+                continue;
+            }
+            moved += released.size();
+        }
+        return moved;
+    }
+
+    private boolean isDistributed(final LoanClusterRing current) {
+        return current.getNodes().size() > 1 || !current.getNodes().get(0).equals(localNode);
+    }
+
+    private static <T> List<T> select(final List<T> items, final List<Integer> indexes) {
+        final List<T> selected = new ArrayList<>(indexes.size());
+        indexes.forEach(index -> selected.add(items.get(index)));
+        return selected;
+    }
+
+    private static void fill(final Object[] results, final List<Integer> indexes, final List<?> values) {
+        for (int position = 0; position < indexes.size(); position++) {
+            results[indexes.get(position)] = values.get(position);
+        }
+    }
+}
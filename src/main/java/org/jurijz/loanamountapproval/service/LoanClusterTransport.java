@@ -0,0 +1,89 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
+import org.jurijz.loanamountapproval.domain.dto.TransferredRequestDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers requests, approvals and transferred pending requests to other cluster node, which processes them locally,
+ * and collects partial aggregates of its logs.
+ * Returned futures fail when node cannot be reached.
+ */
+public interface LoanClusterTransport {
+
+    /**
+     * Transport of single node application, there is no other node to reach.
+     */
+    LoanClusterTransport NONE = new LoanClusterTransport() {
+        @Override
+        public CompletableFuture<List<LoanRequestResultDto>> processRequests(final String node,
+                                                                            final List<LoanRequestDto> requests) {
+            return CompletableFuture.failedFuture(unreachable(node));
+        }
+
+        @Override
+        public CompletableFuture<List<ManagerApprovalResultDto>> approveRequests(
+                final String node, final List<ManagerApprovalDto> approvals) {
+            return CompletableFuture.failedFuture(unreachable(node));
+        }
+
+        @Override
+        public CompletableFuture<Void> transferRequests(final String node,
+                                                        final List<TransferredRequestDto> requests) {
+            return CompletableFuture.failedFuture(unreachable(node));
+        }
+
+        @Override
+        public CompletableFuture<LoanAmountAggregate> aggregateLogs(final String node,
+                                                                    final LocalDateTime periodStart,
+                                                                    final LocalDateTime periodEnd) {
+            return CompletableFuture.failedFuture(unreachable(node));
+        }
+
+        private IllegalStateException unreachable(final String node) {
+            return new IllegalStateException(String.format("Cluster mode is disabled, node %s is not reachable.",
+                    node));
+        }
+    };
+
+    /**
+     * Processes requests on node, see LoanRequestService.processRequests.
+     * @param node String node id
+     * @param requests List<LoanRequestDto> requests of customers owned by node
+     * @return CompletableFuture<List<LoanRequestResultDto>> result of every request in given order
+     */
+    CompletableFuture<List<LoanRequestResultDto>> processRequests(String node, List<LoanRequestDto> requests);
+
+    /**
+     * Processes approvals on node, see LoanRequestService.approveRequests.
+     * @param node String node id
+     * @param approvals List<ManagerApprovalDto> approvals of customers owned by node
+     * @return CompletableFuture<List<ManagerApprovalResultDto>> result of every approval in given order
+     */
+    CompletableFuture<List<ManagerApprovalResultDto>> approveRequests(String node, List<ManagerApprovalDto> approvals);
+
+    /**
+     * Stores pending requests on node, which became their owner.
+     * @param node String node id
+     * @param requests List<TransferredRequestDto> pending requests with approvals given so far
+     * @return CompletableFuture<Void> completing when node keeps requests
+     */
+    CompletableFuture<Void> transferRequests(String node, List<TransferredRequestDto> requests);
+
+    /**
+     * Aggregates logs kept by node, see LoanRequestLogsCache.aggregateByPeriod and aggregateWindow.
+     * @param node String node id
+     * @param periodStart LocalDateTime start, null for window of last seconds ending at periodEnd
+     * @param periodEnd LocalDateTime end
+     * @return CompletableFuture<LoanAmountAggregate> partial aggregate of node logs
+     */
+    CompletableFuture<LoanAmountAggregate> aggregateLogs(String node, LocalDateTime periodStart,
+                                                         LocalDateTime periodEnd);
+}
@@ -7,40 +7,103 @@ import org.jurijz.loanamountapproval.domain.dto.NotificationToManagerDto;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class LoanExternalService {
 
     private final WebClient webClient;
+    private final NotificationDispatcher notificationDispatcher;
     @Value("${loan.approval.external.managers.uri}")
     private final String managersUri;
     @Value("${loan.approval.external.customers.uri}")
     private final String customersUri;
+    private final LongAdder deliveredToManagers = new LongAdder();
+    private final LongAdder failedToManagers = new LongAdder();
+    private final LongAdder deliveredToCustomers = new LongAdder();
+    private final LongAdder failedToCustomers = new LongAdder();
 
     /*
-     * Sends notification to manager, that there is request pending and needs managers attention.
+     * Queues notifications to managers, that there is request pending and needs managers attention.
+     * Either all notifications are queued or NotificationBacklogException is thrown.
      */
-    public void sendToManager(final NotificationToManagerDto notificationDto) {
-        log.info("Sending loan info to manager: {}", notificationDto);
-        webClient.post()
-                .uri(managersUri)
-                .body(Mono.just(notificationDto), NotificationToManagerDto.class)
-                .retrieve()
-                .bodyToMono(Void.class);
+    public void sendToManagers(final List<NotificationToManagerDto> notificationDtos) {
+        log.info("Sending loan info to managers: {}", notificationDtos);
+        notificationDispatcher.dispatch(notificationDtos.stream()
+                .map(this::postToManager)
+                .collect(Collectors.toList()));
     }
 
     /*
-     * Sends notification to customer, that his loan request was approved.
+     * Queues notification to customer, that his loan request was approved.
+     * NotificationBacklogException is thrown when notification cannot be queued.
      */
     public void sendToCustomer(final NotificationToCustomerDto notificationToCustomerDto) {
         log.info("Sending approved amount to customer: {}", notificationToCustomerDto);
-        webClient.post()
-                .uri(customersUri)
-                .body(Mono.just(notificationToCustomerDto), NotificationToCustomerDto.class)
-                .retrieve()
-                .bodyToMono(Void.class);
+        notificationDispatcher.dispatch(List.of(postToCustomer(notificationToCustomerDto)));
+    }
+
+    /*
+     * Sends notifications to managers as part of reactive chain, returned Mono completes when all are delivered.
+     */
+    public Mono<Void> notifyManagers(final List<NotificationToManagerDto> notificationDtos) {
+        log.info("Sending loan info to managers: {}", notificationDtos);
+        return Flux.fromIterable(notificationDtos)
+                .flatMap(this::postToManager)
+                .then();
+    }
+
+    /*
+     * Sends notification to customer as part of reactive chain, returned Mono completes when it is delivered.
+     */
+    public Mono<Void> notifyCustomer(final NotificationToCustomerDto notificationToCustomerDto) {
+        log.info("Sending approved amount to customer: {}", notificationToCustomerDto);
+        return postToCustomer(notificationToCustomerDto);
+    }
+
+    public long getDeliveredToManagers() {
+        return deliveredToManagers.sum();
+    }
+
+    public long getFailedToManagers() {
+        return failedToManagers.sum();
+    }
+
+    public long getDeliveredToCustomers() {
+        return deliveredToCustomers.sum();
+    }
+
+    public long getFailedToCustomers() {
+        return failedToCustomers.sum();
+    }
+
+    private Mono<Void> postToManager(final NotificationToManagerDto notificationDto) {
+        return post(managersUri, notificationDto, NotificationToManagerDto.class, deliveredToManagers, failedToManagers);
+    }
+
+    private Mono<Void> postToCustomer(final NotificationToCustomerDto notificationDto) {
+        return post(customersUri, notificationDto, NotificationToCustomerDto.class, deliveredToCustomers,
+                failedToCustomers);
+    }
+
+    /*
+     * Outbound call with retries, counted once as delivered or as failed after last retry.
+     */
+    private <T> Mono<Void> post(final String uri, final T body, final Class<T> bodyClass, final LongAdder delivered,
+                                final LongAdder failed) {
+        return notificationDispatcher.withRetries(webClient.post()
+                        .uri(uri)
+                        .body(Mono.just(body), bodyClass)
+                        .retrieve()
+                        .bodyToMono(Void.class))
+                .doOnSuccess(ignored -> delivered.increment())
+                .doOnError(exception -> failed.increment());
     }
 }
@@ -0,0 +1,67 @@
+package org.jurijz.loanamountapproval.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.repository.LoanCacheLoader;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanSnapshotStore;
+import org.jurijz.loanamountapproval.repository.MappedLoanJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "loan.approval.journal.enabled", havingValue = "true")
+public class LoanJournalRecoveryService {
+
+    private final MappedLoanJournal loanJournal;
+    private final LoanSnapshotStore snapshotStore;
+    private final LoanRequestsCache loanRequestsCache;
+    private final LoanRequestLogsCache loanRequestLogsCache;
+    @Value("${loan.approval.logs.retention.hours}")
+    private final long retentionHours;
+
+    /**
+     * Rebuilds pending requests and approval logs from the latest snapshot and journal segments appended after it,
+     * before application starts accepting requests. Recovery time depends on snapshot interval and retention period,
+     * not on how long the journal has been written.
+     */
+    @PostConstruct
+    public void recover() {
+        final long snapshotSegment = snapshotStore.load(loanRequestsCache, loanRequestLogsCache);
+        final LoanCacheLoader loader = new LoanCacheLoader(loanRequestsCache, loanRequestLogsCache);
+        loanJournal.replay(loader, snapshotSegment);
+        log.info("Recovered snapshot of journal before segment {} and {} later records, {} requests are pending.",
+                snapshotSegment, loader.getRecordCount(), loanRequestsCache.size());
+    }
+
+    /**
+     * Periodically compacts closed journal segments into new snapshot and deletes them. Writers are stopped only
+     * while open segment is closed, the previous snapshot and closed segments are folded into separate caches, so
+     * compaction keeps a copy of retained logs in memory while it runs.
+     */
+    @Scheduled(fixedDelayString = "${loan.approval.journal.snapshot-interval}")
+    public void takeSnapshot() {
+        final long checkpoint = loanJournal.checkpoint();
+        final LoanRequestsCache requestsCache = new LoanRequestsCache();
+        final LoanRequestLogsCache logsCache = new LoanRequestLogsCache();
+        final long snapshotSegment = snapshotStore.load(requestsCache, logsCache);
+        if (snapshotSegment == checkpoint) {
+            return;
+        }
+        final LoanCacheLoader loader = new LoanCacheLoader(requestsCache, logsCache);
+        loanJournal.replayClosed(loader, snapshotSegment, checkpoint);
+        logsCache.evictBefore(LocalDateTime.now().minusHours(retentionHours));
+        snapshotStore.write(checkpoint, requestsCache, logsCache);
+        loanJournal.deleteSegmentsBefore(checkpoint);
+        log.info("Compacted {} journal records into snapshot before segment {}.", loader.getRecordCount(),
+                checkpoint);
+    }
+}
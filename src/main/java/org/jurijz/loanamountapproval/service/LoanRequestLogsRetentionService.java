@@ -0,0 +1,31 @@
+package org.jurijz.loanamountapproval.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoanRequestLogsRetentionService {
+
+    private final LoanRequestLogsCache loanRequestLogsCache;
+    @Value("${loan.approval.logs.retention.hours}")
+    private final long retentionHours;
+
+    /**
+     * Periodically rolls logs older than retention period up into hour aggregates and drops them from cache.
+     */
+    @Scheduled(fixedDelayString = "${loan.approval.logs.retention.sweep-interval}")
+    public void evictExpiredLogs() {
+        final int evicted = loanRequestLogsCache.evictBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (evicted > 0) {
+            log.info("Rolled up {} log buckets older than {} hours.", evicted, retentionHours);
+        }
+    }
+}
@@ -1,88 +1,444 @@
 package org.jurijz.loanamountapproval.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jurijz.loanamountapproval.converter.LoanRequestConverter;
 import org.jurijz.loanamountapproval.domain.LoanRequest;
 import org.jurijz.loanamountapproval.domain.LoanRequestLog;
-import org.jurijz.loanamountapproval.domain.ManagerApproval;
 import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
 import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
 import org.jurijz.loanamountapproval.domain.dto.NotificationToCustomerDto;
 import org.jurijz.loanamountapproval.domain.dto.NotificationToManagerDto;
-import org.jurijz.loanamountapproval.exception.CustomerLoanApprovalException;
+import org.jurijz.loanamountapproval.domain.dto.PendingRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.PendingRequestsResponse;
 import org.jurijz.loanamountapproval.exception.ManagerApprovalException;
+import org.jurijz.loanamountapproval.exception.NotificationBacklogException;
+import org.jurijz.loanamountapproval.repository.LoanJournal;
 import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
 import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class LoanRequestService {
 
+    private static final String PENDING_REQUEST_REASON = "There is still pending request for customer.";
+    private static final String BACKLOG_REASON = "Notification backlog is full, retry later.";
+    private static final String NOT_NOTIFIED_REASON = "Managers were not notified, retry later.";
+    private static final String CUSTOMER_NOT_NOTIFIED_REASON = "Customer was not notified, retry later.";
+    private static final String NULL_APPROVERS_REASON = "Approvers cannot be null.";
+    private static final String NULL_APPROVER_REASON = "Approver username cannot be null.";
+
     private final LoanRequestsCache loanRequestsCache;
     private final LoanRequestLogsCache loanRequestLogsCache;
     private final LoanRequestConverter loanRequestConverter;
     private final LoanExternalService loanExternalService;
+    private final PartitionedBatchExecutor batchExecutor;
+    private final CustomerShardExecutor shardExecutor;
+    private final LoanJournal loanJournal;
+
+    /**
+     * Process requests received from loan preparators, stores in cache and then queues notifications to managers.
+     * Requests are processed in parallel partitions, requests of the same customer are processed in batch order.
+     * @param requests List<LoanRequestDto> list of valid requests
+     * @return List<LoanRequestResultDto> result of every request in batch order, see processRequest
+     */
+    @Timed(value = "loan.requests.process", histogram = true)
+    public List<LoanRequestResultDto> processRequests(final List<LoanRequestDto> requests) {
+        return batchExecutor.map(requests, LoanRequestDto::getCustomerId, this::processRequest);
+    }
+
+    /**
+     * Process single request received from loan preparators, stores in cache and then queues notifications to
+     * managers.
+     * @param dto LoanRequestDto valid request
+     * @return LoanRequestResultDto ACCEPTED result, REJECTED result when customer has already pending request or
+     * request cannot be converted, or BACKLOGGED result when notifications did not fit into backlog, such request is
+     * not kept in cache
+     */
+    public LoanRequestResultDto processRequest(final LoanRequestDto dto) {
+        final LoanRequest loanRequest;
+        try {
+            loanRequest = convertRequest(dto);
+        } catch (final IllegalArgumentException exception) {
+            return createResult(dto.getCustomerId(), LoanRequestResultDto.Status.REJECTED, exception.getMessage());
+        }
+        if (!shardExecutor.execute(dto.getCustomerId(), () -> claimRequest(loanRequest))) {
+            return createResult(dto.getCustomerId(), LoanRequestResultDto.Status.REJECTED, PENDING_REQUEST_REASON);
+        }
+        try {
+            loanExternalService.sendToManagers(createNotificationsToManagers(loanRequest));
+        } catch (final NotificationBacklogException exception) {
+            log.warn("Cannot process customer {} request, because notification backlog is full.",
+                    loanRequest.getCustomerId());
+            shardExecutor.run(dto.getCustomerId(), () -> releaseRequest(loanRequest));
+            return createResult(dto.getCustomerId(), LoanRequestResultDto.Status.BACKLOGGED, BACKLOG_REASON);
+        }
+        return createResult(dto.getCustomerId(), LoanRequestResultDto.Status.ACCEPTED, null);
+    }
 
     /**
-     * Process requests received from loan preparators, stores in cache and then send manager a notification.
-     * @param requests List<LoanRequestDto> list of requests
-     * @throws CustomerLoanApprovalException exception thrown after all request processed and if any request has already
-     * pending in cache
+     * Reactive counterpart of processRequests, requests are stored in cache on subscription in batch order and
+     * notifications to managers are sent as part of returned chain.
+     * @param requests List<LoanRequestDto> list of valid requests
+     * @return Mono<List<LoanRequestResultDto>> result of every request in batch order, see processRequestReactive
      */
-    public void processRequests(final List<LoanRequestDto> requests) {
-        final List<String> failedRequests = new ArrayList<>();
-        requests.forEach(dto -> {
-            log.info("Received request: {}", dto);
-            final String customerId = dto.getCustomerId();
-            if (loanRequestsCache.get(dto.getCustomerId()) != null) {
-                log.warn("Cannot process customer {} request, because older request is still pending.", customerId);
-                failedRequests.add(customerId);
-            } else {
-                final LoanRequest loanRequest = loanRequestsCache.add(loanRequestConverter.convert(dto));
-
-                loanRequest.getManagerApprovals().forEach(managerApproval -> loanExternalService.sendToManager(
-                        createNotificationDto(managerApproval.getUsername(), customerId, loanRequest.getAmount())));
+    public Mono<List<LoanRequestResultDto>> processRequestsReactive(final List<LoanRequestDto> requests) {
+        return Flux.fromIterable(requests)
+                .flatMapSequential(this::processRequestReactive)
+                .collectList();
+    }
+
+    /**
+     * Reactive counterpart of processRequest, request is stored in cache on subscription and notifications to managers
+     * are sent as part of returned chain.
+     * @param dto LoanRequestDto valid request
+     * @return Mono<LoanRequestResultDto> ACCEPTED result when notifications are delivered, REJECTED result when
+     * customer has already pending request or request cannot be converted, or BACKLOGGED result when notifications
+     * were not delivered, such request is not kept in cache
+     */
+    public Mono<LoanRequestResultDto> processRequestReactive(final LoanRequestDto dto) {
+        return Mono.defer(() -> {
+            final LoanRequest loanRequest;
+            try {
+                loanRequest = convertRequest(dto);
+            } catch (final IllegalArgumentException exception) {
+                return Mono.just(createResult(dto.getCustomerId(), LoanRequestResultDto.Status.REJECTED,
+                        exception.getMessage()));
             }
+            return Mono.fromFuture(shardExecutor.submit(dto.getCustomerId(), () -> claimRequest(loanRequest)))
+                    .flatMap(claimed -> {
+                        if (!claimed) {
+                            return Mono.just(createResult(dto.getCustomerId(), LoanRequestResultDto.Status.REJECTED,
+                                    PENDING_REQUEST_REASON));
+                        }
+                        return loanExternalService.notifyManagers(createNotificationsToManagers(loanRequest))
+                                .thenReturn(createResult(dto.getCustomerId(), LoanRequestResultDto.Status.ACCEPTED,
+                                        null))
+                                .onErrorResume(exception -> {
+                                    log.warn("Cannot process customer {} request, because managers were not "
+                                            + "notified.", loanRequest.getCustomerId());
+                                    return Mono.fromFuture(shardExecutor.submit(dto.getCustomerId(),
+                                            () -> releaseRequest(loanRequest)))
+                                            .thenReturn(createResult(dto.getCustomerId(),
+                                                    LoanRequestResultDto.Status.BACKLOGGED, NOT_NOTIFIED_REASON));
+                                });
+                    });
         });
-        if (!failedRequests.isEmpty()) {
-            throw new CustomerLoanApprovalException(String.format("There are still pending requests for customers: %s",
-                    String.join(",", failedRequests)));
-        }
     }
 
     /**
      * Process loan request approval received from manager, if all approvals true then sends notification to customer.
+     * Approval is applied on shard of customer, so concurrent approvals of the same request complete it only once.
      * @param approvalDto ManagerApprovalDto object containing manager username and customer id
-     * @throws ManagerApprovalException thrown when manager username is not loan requests approvers list
+     * @throws ManagerApprovalException thrown when customer has no pending request or manager username is not loan
+     * requests approvers list
+     * @throws NotificationBacklogException thrown when notification to customer did not fit into backlog, approval is
+     * kept and can be retried
      */
+    @Timed(value = "loan.requests.approve", histogram = true)
     public void approveRequest(final ManagerApprovalDto approvalDto) {
+        approve(approvalDto);
+    }
+
+    /**
+     * Process loan request approvals received from managers with approveRequest semantics. Approvals of different
+     * customers are processed in parallel, approvals of the same customer one after another in received order.
+     * @param approvals List<ManagerApprovalDto> list of valid approvals
+     * @return List<ManagerApprovalResultDto> result of every approval in received order
+     */
+    @Timed(value = "loan.requests.approve.bulk", histogram = true)
+    public List<ManagerApprovalResultDto> approveRequests(final List<ManagerApprovalDto> approvals) {
+        return batchExecutor.map(approvals, ManagerApprovalDto::getCustomerId, this::processApproval);
+    }
+
+    /**
+     * Reactive counterpart of approveRequest, notification to customer is sent as part of returned chain and fully
+     * approved request is completed only after it was delivered, as in approveRequest.
+     * @param approvalDto ManagerApprovalDto object containing manager username and customer id
+     * @return Mono<Void> completing when notification to customer is delivered, or failing with
+     * ManagerApprovalException when customer has no pending request, its request is already being completed or
+     * manager username is not loan requests approvers list, or with NotificationBacklogException when customer was not
+     * notified, approval is then kept and request stays pending
+     */
+    public Mono<Void> approveRequestReactive(final ManagerApprovalDto approvalDto) {
+        return approveReactive(approvalDto).then();
+    }
+
+    /**
+     * Reactive counterpart of approveRequests, approvals of the same customer are processed one after another in
+     * received order.
+     * @param approvals List<ManagerApprovalDto> list of valid approvals
+     * @return Mono<List<ManagerApprovalResultDto>> result of every approval in received order, approval of request
+     * whose customer was not notified is BACKLOGGED and the request stays pending
+     */
+    public Mono<List<ManagerApprovalResultDto>> approveRequestsReactive(final List<ManagerApprovalDto> approvals) {
+        final ManagerApprovalResultDto[] results = new ManagerApprovalResultDto[approvals.size()];
+        final Collection<List<Integer>> customers = IntStream.range(0, approvals.size()).boxed()
+                .collect(Collectors.groupingBy(index -> approvals.get(index).getCustomerId(), LinkedHashMap::new,
+                        Collectors.toList()))
+                .values();
+        return Flux.fromIterable(customers)
+                .flatMap(indexes -> Flux.fromIterable(indexes)
+                        .concatMap(index -> processApprovalReactive(approvals.get(index))
+                                .doOnNext(result -> results[index] = result)))
+                .then(Mono.fromSupplier(() -> Arrays.asList(results)));
+    }
+
+    /**
+     * Page of pending requests still waiting for approval of manager, ordered by customer id.
+     * @param username String manager username
+     * @param after String customer id after which page starts, null for first page
+     * @param limit int maximum page size
+     * @return PendingRequestsResponse page of requests and customer id to request next page after, null when there
+     * are no more requests
+     */
+    public PendingRequestsResponse getPendingRequests(final String username, final String after, final int limit) {
+        final List<LoanRequest> pending = loanRequestsCache.getPendingForManager(username, after, limit + 1);
+        final List<PendingRequestDto> requests = pending.subList(0, Math.min(pending.size(), limit))
+                .stream()
+                .map(request -> PendingRequestDto.builder()
+                        .customerId(request.getCustomerId())
+                        .amount(request.getAmount())
+                        .build())
+                .collect(Collectors.toList());
+        final String next = pending.size() > limit ? requests.get(requests.size() - 1).getCustomerId() : null;
+        return new PendingRequestsResponse(requests, next);
+    }
+
+    private boolean approve(final ManagerApprovalDto approvalDto) {
+        return shardExecutor.execute(approvalDto.getCustomerId(), () -> {
+            final LoanRequest request = approveByManager(approvalDto);
+            if (!request.isFullyApproved()) {
+                return false;
+            }
+            loanExternalService.sendToCustomer(createNotificationToCustomer(request.getCustomerId(),
+                    request.getAmount()));
+            completeRequest(request);
+            return true;
+        });
+    }
+
+    private ManagerApprovalResultDto processApproval(final ManagerApprovalDto approvalDto) {
+        try {
+            return createApprovalResult(approvalDto, approve(approvalDto)
+                    ? ManagerApprovalResultDto.Status.COMPLETED
+                    : ManagerApprovalResultDto.Status.APPROVED, null);
+        } catch (final ManagerApprovalException exception) {
+            return createApprovalResult(approvalDto, ManagerApprovalResultDto.Status.REJECTED, exception.getMessage());
+        } catch (final NotificationBacklogException exception) {
+            log.warn("Cannot complete customer {} request, because notification backlog is full.",
+                    approvalDto.getCustomerId());
+            return createApprovalResult(approvalDto, ManagerApprovalResultDto.Status.BACKLOGGED, BACKLOG_REASON);
+        }
+    }
+
+    /*
+     * Approval which fully approves request marks it completing on shard of customer, so later approvals are rejected
+     * and customer is notified only once. Request is completed on shard after notification was delivered, unless it
+     * was replaced meanwhile. Failed notification leaves request pending with all its approvals, so approval can be
+     * retried.
+     */
+    private Mono<ManagerApprovalResultDto> approveReactive(final ManagerApprovalDto approvalDto) {
+        return Mono.defer(() -> Mono.fromFuture(shardExecutor.submit(approvalDto.getCustomerId(), () -> {
+            final LoanRequest request = approveByManager(approvalDto);
+            request.setCompleting(request.isFullyApproved());
+            return request.isCompleting() ? request : null;
+        }))).flatMap(request -> loanExternalService.notifyCustomer(createNotificationToCustomer(
+                request.getCustomerId(), request.getAmount()))
+                .onErrorResume(exception -> {
+                    log.warn("Cannot complete customer {} request, because customer was not notified.",
+                            request.getCustomerId(), exception);
+                    return Mono.fromFuture(shardExecutor.submit(request.getCustomerId(), () -> {
+                        request.setCompleting(false);
+                        return request;
+                    })).then(Mono.<Void>error(new NotificationBacklogException(CUSTOMER_NOT_NOTIFIED_REASON)));
+                })
+                .then(Mono.defer(() -> Mono.fromFuture(shardExecutor.submit(request.getCustomerId(), () -> {
+                    if (loanRequestsCache.get(request.getCustomerId()) == request) {
+                        completeRequest(request);
+                    }
+                    return request;
+                }))))
+                .thenReturn(createApprovalResult(approvalDto, ManagerApprovalResultDto.Status.COMPLETED, null)))
+                .switchIfEmpty(Mono.fromSupplier(() -> createApprovalResult(approvalDto,
+                        ManagerApprovalResultDto.Status.APPROVED, null)));
+    }
+
+    private Mono<ManagerApprovalResultDto> processApprovalReactive(final ManagerApprovalDto approvalDto) {
+        return approveReactive(approvalDto)
+                .onErrorResume(ManagerApprovalException.class, exception -> Mono.just(createApprovalResult(approvalDto,
+                        ManagerApprovalResultDto.Status.REJECTED, exception.getMessage())))
+                .onErrorResume(NotificationBacklogException.class, exception -> Mono.just(createApprovalResult(
+                        approvalDto, ManagerApprovalResultDto.Status.BACKLOGGED, exception.getMessage())));
+    }
+
+    /**
+     * Stores pending requests handed over by other cluster node. Request of customer, who already has pending request
+     * on this node, is dropped, so request accepted while handover was in progress is kept. Managers are not notified
+     * again.
+     * @param requests List<LoanRequest> pending requests with approvals given so far
+     */
+    public void acceptRequests(final List<LoanRequest> requests) {
+        awaitAll(requests.stream()
+                .map(request -> shardExecutor.submit(request.getCustomerId(), () -> {
+                    if (!loanRequestsCache.addIfAbsent(request)) {
+                        log.warn("Handed over request of customer {} dropped, because other request is pending.",
+                                request.getCustomerId());
+                        return null;
+                    }
+                    loanJournal.requestAdded(request);
+                    for (int index = 0; index < request.getApproverCount(); index++) {
+                        if (request.isApproved(request.getApprover(index))) {
+                            loanJournal.requestApproved(request.getCustomerId(), request.getApprover(index));
+                        }
+                    }
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Drops pending requests, which are going to be handed over to other cluster node. Every request is dropped on
+     * shard of its customer, so approvals cannot change it afterwards and returned requests hold all approvals given
+     * on this node. Request completed, replaced or being completed meanwhile is left as is and not returned.
+     * @param requests List<LoanRequest> requests taken from cache
+     * @return List<LoanRequest> dropped requests to be handed over
+     */
+    public List<LoanRequest> releaseRequests(final List<LoanRequest> requests) {
+        final List<CompletableFuture<LoanRequest>> released = requests.stream()
+                .map(request -> shardExecutor.submit(request.getCustomerId(), () -> {
+                    if (loanRequestsCache.get(request.getCustomerId()) != request || request.isCompleting()) {
+                        return null;
+                    }
+                    releaseRequest(request);
+                    return request;
+                }))
+                .collect(Collectors.toList());
+        awaitAll(released.toArray(CompletableFuture[]::new));
+        return released.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static void awaitAll(final CompletableFuture<?>[] futures) {
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /*
+     * Request which cannot be converted is rejected alone with IllegalArgumentException, so it does not abort other
+     * requests of batch.
+     */
+    private LoanRequest convertRequest(final LoanRequestDto dto) {
+        log.info("Received request: {}", dto);
+        if (dto.getApprovers() == null) {
+            throw new IllegalArgumentException(NULL_APPROVERS_REASON);
+        }
+        if (dto.getApprovers().stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException(NULL_APPROVER_REASON);
+        }
+        return loanRequestConverter.convert(dto);
+    }
+
+    private boolean claimRequest(final LoanRequest loanRequest) {
+        if (!loanRequestsCache.addIfAbsent(loanRequest)) {
+            log.warn("Cannot process customer {} request, because older request is still pending.",
+                    loanRequest.getCustomerId());
+            return false;
+        }
+        loanJournal.requestAdded(loanRequest);
+        return true;
+    }
+
+    private Void releaseRequest(final LoanRequest loanRequest) {
+        loanRequestsCache.remove(loanRequest.getCustomerId());
+        loanJournal.requestRemoved(loanRequest.getCustomerId());
+        return null;
+    }
+
+    private LoanRequestResultDto createResult(final String customerId, final LoanRequestResultDto.Status status,
+                                              final String reason) {
+        return LoanRequestResultDto.builder()
+                .customerId(customerId)
+                .status(status)
+                .reason(reason)
+                .build();
+    }
+
+    private ManagerApprovalResultDto createApprovalResult(final ManagerApprovalDto approvalDto,
+                                                          final ManagerApprovalResultDto.Status status,
+                                                          final String reason) {
+        return ManagerApprovalResultDto.builder()
+                .username(approvalDto.getUsername())
+                .customerId(approvalDto.getCustomerId())
+                .status(status)
+                .reason(reason)
+                .build();
+    }
+
+    private LoanRequest approveByManager(final ManagerApprovalDto approvalDto) {
         final LoanRequest request = loanRequestsCache.get(approvalDto.getCustomerId());
-        if (!isRequestApprover(approvalDto.getUsername(), request.getManagerApprovals())) {
-            throw new ManagerApprovalException(String.format("Manager %s is not among customer %s approvers.",
-                    approvalDto.getUsername(), approvalDto.getUsername()));
+        if (request == null) {
+            throw new ManagerApprovalException(String.format("There is no pending request for customer %s.",
+                    approvalDto.getCustomerId()));
         }
-        approveByManager(request, approvalDto.getUsername());
-        if (hasAllApprovals(request.getManagerApprovals())) {
-            loanExternalService.sendToCustomer(createNotificationToCustomer(request.getCustomerId(), request.getAmount()));
-            loanRequestLogsCache.add(LoanRequestLog.builder()
-                    .amount(request.getAmount())
-                    .sentToCustomerTime(LocalDateTime.now())
-                    .build());
-            loanRequestsCache.remove(request.getCustomerId());
+        if (request.isCompleting()) {
+            throw new ManagerApprovalException(String.format("Request of customer %s is already being completed.",
+                    approvalDto.getCustomerId()));
         }
+        if (!loanRequestsCache.approve(request, approvalDto.getUsername())) {
+            throw new ManagerApprovalException(String.format("Manager %s is not among customer %s approvers.",
+                    approvalDto.getUsername(), approvalDto.getCustomerId()));
+        }
+        loanJournal.requestApproved(approvalDto.getCustomerId(), approvalDto.getUsername());
+        return request;
+    }
+
+    private void completeRequest(final LoanRequest request) {
+        final LoanRequestLog loanRequestLog = LoanRequestLog.builder()
+                .amount(request.getAmount())
+                .sentToCustomerTime(LocalDateTime.now())
+                .build();
+        loanRequestLogsCache.add(loanRequestLog);
+        loanRequestsCache.remove(request.getCustomerId());
+        loanJournal.logAdded(loanRequestLog);
+        loanJournal.requestRemoved(request.getCustomerId());
     }
 
-    private boolean isRequestApprover(final String username, final Set<ManagerApproval> managerApprovals) {
-        return managerApprovals.stream().anyMatch(managerApproval -> managerApproval.getUsername().equals(username));
+    private List<NotificationToManagerDto> createNotificationsToManagers(final LoanRequest loanRequest) {
+        final List<NotificationToManagerDto> notifications = new ArrayList<>(loanRequest.getApproverCount());
+        for (int index = 0; index < loanRequest.getApproverCount(); index++) {
+            notifications.add(createNotificationDto(loanRequest.getApprover(index), loanRequest.getCustomerId(),
+                    loanRequest.getAmount()));
+        }
+        return notifications;
     }
 
     private NotificationToManagerDto createNotificationDto(final String username, final String customerId, final BigDecimal amount) {
@@ -93,19 +449,6 @@ public class LoanRequestService {
                 .build();
     }
 
-    private void approveByManager(final LoanRequest request, final String username) {
-        request.getManagerApprovals()
-                .stream()
-                .filter(approval -> approval.getUsername().equals(username))
-                .limit(1)
-                .findFirst()
-                .ifPresent(approval -> approval.setApproved(true));
-    }
-
-    private boolean hasAllApprovals(final Set<ManagerApproval> approvals) {
-        return approvals.stream().allMatch(ManagerApproval::isApproved);
-    }
-
     private NotificationToCustomerDto createNotificationToCustomer(final String customerId, final BigDecimal amount) {
         return NotificationToCustomerDto.builder()
                 .customerId(customerId)
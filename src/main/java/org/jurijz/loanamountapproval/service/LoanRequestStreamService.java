@@ -0,0 +1,121 @@
+package org.jurijz.loanamountapproval.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.converter.LoanRequestBinder;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.exception.LoanRequestBindingException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Processes loan requests one by one while request body is still being read, so batch of any size is never bound
+ * into memory at once. Body is either NDJSON, one request per line, or JSON array of requests. For every request one
+ * LoanRequestResultDto line is written back. Requests are bound and validated by LoanRequestBinder.
+ */
+@Slf4j
+@Service
+public class LoanRequestStreamService {
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final LoanRequestService loanRequestService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter resultWriter;
+    private final LoanRequestBinder loanRequestBinder;
+
+    public LoanRequestStreamService(final LoanRequestService loanRequestService, final ObjectMapper objectMapper,
+                                    final LoanRequestBinder loanRequestBinder) {
+        this.loanRequestService = loanRequestService;
+        this.objectMapper = objectMapper;
+        this.resultWriter = objectMapper.writerFor(LoanRequestResultDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.loanRequestBinder = loanRequestBinder;
+    }
+
+    /**
+     * Reads requests from input one by one, processes each as soon as it is parsed and writes its result as NDJSON
+     * line to output, flushed right after it. Processing stops at first malformed JSON, its REJECTED result is the
+     * last line written.
+     * @param input InputStream NDJSON or JSON array of LoanRequestDto
+     * @param output OutputStream NDJSON of LoanRequestResultDto, written in order of received requests
+     * @throws IOException thrown when input cannot be read or output cannot be written
+     */
+    public void processStream(final InputStream input, final OutputStream output) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    writeResult(generator, processNext(parser));
+                    token = parser.nextToken();
+                }
+            } catch (final JsonProcessingException exception) {
+                log.warn("Stopped processing requests stream, because it is malformed: {}",
+                        exception.getOriginalMessage());
+                writeResult(generator, createRejectedResult(null,
+                        String.format("Malformed request stream: %s", exception.getOriginalMessage())));
+            }
+        }
+    }
+
+    /**
+     * Reactive counterpart of processStream, requests are decoded incrementally by WebFlux codecs.
+     * @param requests Flux<LoanRequestDto> requests in order of arrival
+     * @return Flux<LoanRequestResultDto> result per request in order of received requests
+     */
+    public Flux<LoanRequestResultDto> processStreamReactive(final Flux<LoanRequestDto> requests) {
+        return requests.concatMap(dto -> {
+            final String violations = loanRequestBinder.validate(dto);
+            return violations.isEmpty()
+                    ? loanRequestService.processRequestReactive(dto)
+                    : Mono.just(createRejectedResult(dto.getCustomerId(), violations));
+        });
+    }
+
+    private LoanRequestResultDto processNext(final JsonParser parser) throws IOException {
+        final LoanRequestDto dto;
+        try {
+            dto = loanRequestBinder.read(parser);
+        } catch (final LoanRequestBindingException exception) {
+            return createRejectedResult(exception.getCustomerId(), exception.getMessage());
+        }
+        final String violations = loanRequestBinder.validate(dto);
+        return violations.isEmpty() ? loanRequestService.processRequest(dto)
+                : createRejectedResult(dto.getCustomerId(), violations);
+    }
+
+    /*
+     * Writer does not flush after value, line is flushed once with its separator, so client gets every result as soon
+     * as its request was processed.
+     */
+    private void writeResult(final JsonGenerator generator, final LoanRequestResultDto result) throws IOException {
+        resultWriter.writeValue(generator, result);
+        generator.writeRaw(LINE_SEPARATOR);
+        generator.flush();
+    }
+
+    private LoanRequestResultDto createRejectedResult(final String customerId, final String reason) {
+        return LoanRequestResultDto.builder()
+                .customerId(customerId)
+                .status(LoanRequestResultDto.Status.REJECTED)
+                .reason(reason)
+                .build();
+    }
+}
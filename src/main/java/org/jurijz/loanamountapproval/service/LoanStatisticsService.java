@@ -1,20 +1,22 @@
 package org.jurijz.loanamountapproval.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
 import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
-import org.jurijz.loanamountapproval.domain.LoanRequestLog;
 import org.jurijz.loanamountapproval.exception.StatisticsPeriodException;
 import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanStatisticsCache;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.List;
 
 @Slf4j
 @Service
@@ -24,47 +26,60 @@ public class LoanStatisticsService {
     private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
     private final LoanRequestLogsCache loanRequestLogsCache;
+    private final LoanStatisticsCache loanStatisticsCache;
+    private final LoanClusterService loanClusterService;
+    private final Clock clock;
 
     /**
-     * Process and calculate statistics using logs from cache for given time period
+     * Process and calculate statistics using logs from cache for given time period, when period is not given at all
+     * statistics of last minute are taken from per second window. Statistics of periods ending in the past are cached
+     * until log lands inside the period. In cluster statistics are merged from partial aggregates of all nodes and are
+     * not cached.
      * @param periodStartStr LocalDateTime period begin
      * @param periodEndStr LocalDateTime period end
-     * @return LoanApprovalStatistics object with count, min, max, sum and avg
+     * @return LoanApprovalStatistics object with count, min, max, sum, avg and p50, p95, p99 percentiles
      * @throws StatisticsPeriodException thrown when periodDates are badly formatted or start date is after end date
      */
+    @Timed(value = "loan.statistics.gather", histogram = true)
     public LoanApprovalStatistics gatherStatistics(final String periodStartStr, final String periodEndStr) {
 
-        final LocalDateTime defaultDate = LocalDateTime.now();
-        final LocalDateTime periodStart = convertToTime(periodStartStr, defaultDate.minusSeconds(60));
+        final LocalDateTime defaultDate = LocalDateTime.now(clock);
+        if (StringUtils.isEmpty(periodStartStr) && StringUtils.isEmpty(periodEndStr)) {
+            return loanClusterService.isDistributed()
+                    ? toStatistics(loanClusterService.aggregateLogs(null, defaultDate))
+                    : loanRequestLogsCache.readWindow(defaultDate, this::toStatistics);
+        }
+        final LocalDateTime periodStart = convertToTime(periodStartStr,
+                defaultDate.minusSeconds(LoanRequestLogsCache.WINDOW_SECONDS));
         final LocalDateTime periodEnd = convertToTime(periodEndStr, defaultDate);
 
         if (periodStart.isAfter(periodEnd)) {
             throw new StatisticsPeriodException(String.format("Period start cannot be after period end. %s > %s",
                     DATE_TIME_FORMATTER.format(periodStart), DATE_TIME_FORMATTER.format(periodEnd)));
         }
-        final List<LoanRequestLog> logs = loanRequestLogsCache.getByPeriod(periodStart, periodEnd);
+        if (loanClusterService.isDistributed()) {
+            return toStatistics(loanClusterService.aggregateLogs(periodStart, periodEnd));
+        }
+        if (periodEnd.isBefore(defaultDate)) {
+            return loanStatisticsCache.computeIfAbsent(periodStart, periodEnd,
+                    () -> toStatistics(loanRequestLogsCache.aggregateByPeriod(periodStart, periodEnd)));
+        }
+        return toStatistics(loanRequestLogsCache.aggregateByPeriod(periodStart, periodEnd));
+    }
 
+    private LoanApprovalStatistics toStatistics(final LoanAmountAggregate aggregate) {
         final LoanApprovalStatistics loanStatistics = new LoanApprovalStatistics();
-        loanStatistics.setCount(logs.size());
-        if (!logs.isEmpty()) {
-            BigDecimal max = new BigDecimal(0);
-            BigDecimal min = logs.size() == 1 ? logs.get(0).getAmount() : new BigDecimal(Integer.MAX_VALUE);
-            BigDecimal sum = new BigDecimal(0);
-            for (final LoanRequestLog log : logs) {
-                final BigDecimal amount = log.getAmount();
-                sum = sum.add(amount);
-                if (amount.compareTo(max) > 0) {
-                    max = amount;
-                } else if (amount.compareTo(min) < 0) {
-                    min = amount;
-                }
-            }
-            loanStatistics.setMax(max);
-            loanStatistics.setMin(min);
-            loanStatistics.setSum(sum);
-            loanStatistics.setAvg(sum.divide(new BigDecimal(logs.size()), 2, RoundingMode.HALF_UP));
+        loanStatistics.setCount(aggregate.getCount());
+        if (aggregate.getCount() > 0) {
+            loanStatistics.setMax(aggregate.getMax());
+            loanStatistics.setMin(aggregate.getMin());
+            loanStatistics.setSum(aggregate.getSum());
+            loanStatistics.setAvg(aggregate.getSum().divide(new BigDecimal(aggregate.getCount()), 2,
+                    RoundingMode.HALF_UP));
+            loanStatistics.setP50(aggregate.getPercentile(0.5));
+            loanStatistics.setP95(aggregate.getPercentile(0.95));
+            loanStatistics.setP99(aggregate.getPercentile(0.99));
         }
-
         return loanStatistics;
     }
 
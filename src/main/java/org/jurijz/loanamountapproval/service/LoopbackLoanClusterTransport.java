@@ -0,0 +1,100 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.jurijz.loanamountapproval.converter.LoanAmountAggregateConverter;
+import org.jurijz.loanamountapproval.converter.TransferredRequestConverter;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
+import org.jurijz.loanamountapproval.domain.dto.TransferredRequestDto;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process transport between nodes living in one JVM, every node is its own LoanRequestService with own caches.
+ * Calls run in caller thread, so cluster behaviour and rebalancing can be exercised on one machine without network.
+ * Aggregates pass through their partial form like over the network.
+ */
+public class LoopbackLoanClusterTransport implements LoanClusterTransport {
+
+    private final Map<String, LoanRequestService> nodes = new ConcurrentHashMap<>();
+    private final Map<String, LoanRequestLogsCache> logs = new ConcurrentHashMap<>();
+    private final TransferredRequestConverter transferredRequestConverter = new TransferredRequestConverter();
+    private final LoanAmountAggregateConverter aggregateConverter = new LoanAmountAggregateConverter();
+
+    /**
+     * Makes node reachable.
+     * @param node String node id
+     * @param loanRequestService LoanRequestService processing calls delivered to node
+     * @param loanRequestLogsCache LoanRequestLogsCache logs of node
+     */
+    public void register(final String node, final LoanRequestService loanRequestService,
+                         final LoanRequestLogsCache loanRequestLogsCache) {
+        nodes.put(node, loanRequestService);
+        logs.put(node, loanRequestLogsCache);
+    }
+
+    /**
+     * Makes node unreachable, following calls to it fail like calls to lost node.
+     * @param node String node id
+     */
+    public void unregister(final String node) {
+        nodes.remove(node);
+        logs.remove(node);
+    }
+
+    @Override
+    public CompletableFuture<List<LoanRequestResultDto>> processRequests(final String node,
+                                                                        final List<LoanRequestDto> requests) {
+        return call(node, service -> service.processRequests(requests));
+    }
+
+    @Override
+    public CompletableFuture<List<ManagerApprovalResultDto>> approveRequests(final String node,
+                                                                            final List<ManagerApprovalDto> approvals) {
+        return call(node, service -> service.approveRequests(approvals));
+    }
+
+    @Override
+    public CompletableFuture<Void> transferRequests(final String node, final List<TransferredRequestDto> requests) {
+        return call(node, service -> {
+            service.acceptRequests(requests.stream()
+                    .map(transferredRequestConverter::convert)
+                    .collect(Collectors.toList()));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<LoanAmountAggregate> aggregateLogs(final String node, final LocalDateTime periodStart,
+                                                                final LocalDateTime periodEnd) {
+        return call(node, service -> {
+            final LoanRequestLogsCache cache = logs.get(node);
+            final LoanAmountAggregate aggregate = periodStart == null
+                    ? cache.aggregateWindow(periodEnd)
+                    : cache.aggregateByPeriod(periodStart, periodEnd);
+            return aggregateConverter.toAggregate(aggregateConverter.convert(aggregate));
+        });
+    }
+
+    private <R> CompletableFuture<R> call(final String node, final Function<LoanRequestService, R> call) {
+        final LoanRequestService service = nodes.get(node);
+        if (service == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException(String.format(
+                    "Node %s is not reachable.", node)));
+        }
+        try {
+            return CompletableFuture.completedFuture(call.apply(service));
+        } catch (final RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+}
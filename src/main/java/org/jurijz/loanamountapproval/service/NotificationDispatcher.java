@@ -0,0 +1,133 @@
+package org.jurijz.loanamountapproval.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jurijz.loanamountapproval.configuration.VirtualThreads;
+import org.jurijz.loanamountapproval.exception.NotificationBacklogException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final int queueCapacity;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final Duration attemptTimeout;
+    private final Semaphore backlog;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+
+    public NotificationDispatcher(@Value("${loan.approval.notifications.queue-capacity}") final int queueCapacity,
+                                  @Value("${loan.approval.notifications.concurrency}") final int concurrency,
+                                  @Value("${loan.approval.notifications.max-retries}") final int maxRetries,
+                                  @Value("${loan.approval.notifications.retry-backoff}") final Duration retryBackoff,
+                                  @Value("${loan.approval.notifications.attempt-timeout}") final Duration attemptTimeout,
+                                  @Value("${loan.approval.threads.virtual}") final boolean virtualThreads) {
+        this.queueCapacity = queueCapacity;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.attemptTimeout = attemptTimeout;
+        this.backlog = new Semaphore(queueCapacity);
+        this.inFlight = new Semaphore(concurrency);
+        this.executor = virtualThreads
+                ? VirtualThreads.newThreadPerTaskExecutor("notification-")
+                : new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("notification-"));
+    }
+
+    /**
+     * Queues outbound calls to be sent in background, calls are expected to carry their retries already, see
+     * withRetries. Either all calls are queued or none of them, unless dispatcher is shut down meanwhile.
+     * @param deliveries List<Mono<Void>> outbound calls, not subscribed yet
+     * @throws NotificationBacklogException thrown when backlog has no room for all calls or dispatcher is shut down
+     */
+    public void dispatch(final List<Mono<Void>> deliveries) {
+        if (!backlog.tryAcquire(deliveries.size())) {
+            throw new NotificationBacklogException(String.format(
+                    "Notification backlog is full, %d notifications were not accepted.", deliveries.size()));
+        }
+        int queued = 0;
+        try {
+            for (final Mono<Void> delivery : deliveries) {
+                executor.execute(() -> deliver(delivery));
+                queued++;
+            }
+        } catch (final RejectedExecutionException exception) {
+            backlog.release(deliveries.size() - queued);
+            throw new NotificationBacklogException(String.format(
+                    "Notification dispatcher is shut down, %d notifications were not accepted.",
+                    deliveries.size() - queued));
+        }
+    }
+
+    /**
+     * Adds timeout of every attempt and retries with backoff to outbound call. Only timeouts, I/O errors and 5xx
+     * responses are retried, 4xx response would be the same on every attempt and fails the call at once.
+     * @param delivery Mono<Void> outbound call
+     * @return Mono<Void> outbound call completing after first successful attempt
+     */
+    public Mono<Void> withRetries(final Mono<Void> delivery) {
+        return delivery.timeout(attemptTimeout)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff).filter(NotificationDispatcher::isRetryable));
+    }
+
+    /**
+     * Count of accepted notifications, which are not delivered nor failed yet.
+     * @return int backlog size
+     */
+    public int getBacklogSize() {
+        return queueCapacity - backlog.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Notification backlog of {} was not delivered before shutdown.", getBacklogSize());
+        }
+    }
+
+    private static boolean isRetryable(final Throwable exception) {
+        if (exception instanceof WebClientResponseException) {
+            return ((WebClientResponseException) exception).getStatusCode().is5xxServerError();
+        }
+        return exception instanceof TimeoutException || exception instanceof WebClientRequestException
+                || exception instanceof IOException;
+    }
+
+    /*
+     * Virtual threads are not pooled, every notification gets its own and waits for in-flight permit, so at most
+     * concurrency notifications are sent at once. Pool of platform threads never waits, it has concurrency threads.
+     */
+    private void deliver(final Mono<Void> delivery) {
+        try {
+            inFlight.acquire();
+            try {
+                delivery.block();
+            } finally {
+                inFlight.release();
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            log.error("Notification was not delivered, dispatcher was interrupted.");
+        } catch (final RuntimeException exception) {
+            log.error("Notification was not delivered.", exception);
+        } finally {
+            backlog.release();
+        }
+    }
+}
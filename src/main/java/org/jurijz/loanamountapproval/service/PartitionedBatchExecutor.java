@@ -0,0 +1,108 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.jurijz.loanamountapproval.configuration.VirtualThreads;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+@Component
+public class PartitionedBatchExecutor {
+
+    private final int parallelism;
+    private final int partitionSize;
+    private final ExecutorService executor;
+
+    public PartitionedBatchExecutor(@Value("${loan.approval.requests.parallelism}") final int parallelism,
+                                    @Value("${loan.approval.requests.partition-size}") final int partitionSize,
+                                    @Value("${loan.approval.threads.virtual}") final boolean virtualThreads) {
+        this.parallelism = parallelism;
+        this.partitionSize = partitionSize;
+        this.executor = virtualThreads
+                ? VirtualThreads.newThreadPerTaskExecutor("loan-requests-")
+                : Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("loan-requests-"));
+    }
+
+    /**
+     * Applies task to every item of batch. Items with equal key fall into the same partition and are processed one
+     * after another in batch order, partitions are processed in parallel, one of them by caller thread. Batch smaller
+     * than two partitions is processed by caller thread only. With virtual threads every partition gets new thread,
+     * count of partitions still bounds parallelism.
+     * @param items List<T> batch items
+     * @param key Function<T, String> partitioning key of item
+     * @param task Function<T, R> task applied to every item
+     * @return List<R> results in batch order
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> List<R> map(final List<T> items, final Function<T, String> key, final Function<T, R> task) {
+        final int partitions = Math.min(parallelism, items.size() / partitionSize);
+        final Object[] results = new Object[items.size()];
+        if (partitions < 2) {
+            for (int index = 0; index < results.length; index++) {
+                results[index] = task.apply(items.get(index));
+            }
+            return (List<R>) Arrays.asList(results);
+        }
+
+        final int[] offsets = new int[partitions + 1];
+        final int[] partitionOf = new int[items.size()];
+        for (int index = 0; index < partitionOf.length; index++) {
+            partitionOf[index] = Math.floorMod(Objects.hashCode(key.apply(items.get(index))), partitions);
+            offsets[partitionOf[index] + 1]++;
+        }
+        for (int partition = 0; partition < partitions; partition++) {
+            offsets[partition + 1] += offsets[partition];
+        }
+        final int[] order = new int[items.size()];
+        final int[] next = Arrays.copyOf(offsets, partitions);
+        for (int index = 0; index < partitionOf.length; index++) {
+            order[next[partitionOf[index]]++] = index;
+        }
+
+        final List<Future<?>> futures = new ArrayList<>(partitions - 1);
+        for (int partition = 1; partition < partitions; partition++) {
+            final int from = offsets[partition];
+            final int to = offsets[partition + 1];
+            futures.add(executor.submit(() -> apply(items, task, order, from, to, results)));
+        }
+        apply(items, task, order, offsets[0], offsets[1], results);
+        futures.forEach(PartitionedBatchExecutor::await);
+        return (List<R>) Arrays.asList(results);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static <T, R> void apply(final List<T> items, final Function<T, R> task, final int[] order,
+                                     final int from, final int to, final Object[] results) {
+        for (int position = from; position < to; position++) {
+            results[order[position]] = task.apply(items.get(order[position]));
+        }
+    }
+
+    private static void await(final Future<?> future) {
+        try {
+            future.get();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch partition.", exception);
+        } catch (final ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+}
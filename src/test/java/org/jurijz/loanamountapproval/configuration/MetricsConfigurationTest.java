@@ -0,0 +1,115 @@
+package org.jurijz.loanamountapproval.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanStatisticsCache;
+import org.jurijz.loanamountapproval.service.LoanExternalService;
+import org.jurijz.loanamountapproval.service.NotificationDispatcher;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+class MetricsConfigurationTest {
+
+    private MeterRegistry registry;
+    private LoanRequestsCache requestsCache;
+    private LoanRequestLogsCache logsCache;
+    private LoanStatisticsCache statisticsCache;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+    @Mock
+    private LoanExternalService loanExternalService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        requestsCache = new LoanRequestsCache();
+        logsCache = new LoanRequestLogsCache();
+        statisticsCache = new LoanStatisticsCache(logsCache, 16);
+        new MetricsConfiguration()
+                .loanApprovalMetrics(requestsCache, logsCache, statisticsCache, notificationDispatcher,
+                        loanExternalService)
+                .bindTo(registry);
+    }
+
+    @DisplayName("Given pending and duplicate requests when read meters then pending gauge and rejected counter match")
+    @Test
+    void requestsMetricsSuccess() {
+        requestsCache.addIfAbsent(createRequest("12-1234-123"));
+        requestsCache.addIfAbsent(createRequest("12-1234-124"));
+        requestsCache.addIfAbsent(createRequest("12-1234-123"));
+
+        assertThat(registry.get("loan.requests.pending").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("loan.requests.rejected").tag("reason", "duplicate").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @DisplayName("Given logs in two minutes when read meters then bucket and log gauges match")
+    @Test
+    void logsMetricsSuccess() {
+        final LocalDateTime given = LocalDateTime.of(2020, 11, 20, 10, 0, 30);
+        logsCache.add(new LoanRequestLog(BigDecimal.TEN, given));
+        logsCache.add(new LoanRequestLog(BigDecimal.ONE, given));
+        logsCache.add(new LoanRequestLog(BigDecimal.ONE, given.plusMinutes(1)));
+
+        assertThat(registry.get("loan.logs.buckets").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("loan.logs").gauge().value()).isEqualTo(3);
+    }
+
+    @DisplayName("Given repeated past period when read meters then statistics cache counters match")
+    @Test
+    void statisticsCacheMetricsSuccess() {
+        final LocalDateTime given = LocalDateTime.of(2020, 11, 20, 10, 0, 0);
+        statisticsCache.computeIfAbsent(given, given.plusHours(1), LoanApprovalStatistics::new);
+        statisticsCache.computeIfAbsent(given, given.plusHours(1), LoanApprovalStatistics::new);
+        statisticsCache.computeIfAbsent(given, given.plusHours(1), LoanApprovalStatistics::new);
+
+        assertThat(registry.get("loan.statistics.cache.size").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("loan.statistics.cache").tag("result", "hit").functionCounter().count())
+                .isEqualTo(2);
+        assertThat(registry.get("loan.statistics.cache").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    @DisplayName("Given delivered and failed notifications when read meters then counters are tagged by recipient")
+    @Test
+    void notificationMetricsSuccess() {
+        when(notificationDispatcher.getBacklogSize()).thenReturn(4);
+        when(loanExternalService.getDeliveredToManagers()).thenReturn(5L);
+        when(loanExternalService.getFailedToManagers()).thenReturn(1L);
+        when(loanExternalService.getDeliveredToCustomers()).thenReturn(2L);
+        when(loanExternalService.getFailedToCustomers()).thenReturn(0L);
+
+        assertThat(registry.get("loan.notifications.backlog").gauge().value()).isEqualTo(4);
+        assertThat(registry.get("loan.notifications.delivered").tag("recipient", "managers").functionCounter()
+                .count()).isEqualTo(5);
+        assertThat(registry.get("loan.notifications.failed").tag("recipient", "managers").functionCounter()
+                .count()).isEqualTo(1);
+        assertThat(registry.get("loan.notifications.delivered").tag("recipient", "customers").functionCounter()
+                .count()).isEqualTo(2);
+        assertThat(registry.get("loan.notifications.failed").tag("recipient", "customers").functionCounter()
+                .count()).isEqualTo(0);
+    }
+
+    private LoanRequest createRequest(final String customerId) {
+        final LoanRequest request = new LoanRequest();
+        request.setCustomerId(customerId);
+        request.setAmount(BigDecimal.TEN);
+        return request;
+    }
+}
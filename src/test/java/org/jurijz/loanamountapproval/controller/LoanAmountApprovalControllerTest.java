@@ -1,20 +1,28 @@
 package org.jurijz.loanamountapproval.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.converter.LoanRequestBinder;
 import org.jurijz.loanamountapproval.converter.LoanRequestConverter;
-import org.jurijz.loanamountapproval.converter.ManagerApprovalConverter;
 import org.jurijz.loanamountapproval.domain.LoanRequest;
 import org.jurijz.loanamountapproval.domain.LoanRequestLog;
 import org.jurijz.loanamountapproval.domain.ManagerApproval;
 import org.jurijz.loanamountapproval.domain.dto.*;
+import org.jurijz.loanamountapproval.repository.LoanJournal;
 import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
 import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanStatisticsCache;
+import org.jurijz.loanamountapproval.service.CustomerShardExecutor;
+import org.jurijz.loanamountapproval.service.LoanClusterService;
+import org.jurijz.loanamountapproval.service.LoanClusterTransport;
 import org.jurijz.loanamountapproval.service.LoanExternalService;
 import org.jurijz.loanamountapproval.service.LoanRequestService;
+import org.jurijz.loanamountapproval.service.LoanRequestStreamService;
 import org.jurijz.loanamountapproval.service.LoanStatisticsService;
+import org.jurijz.loanamountapproval.service.PartitionedBatchExecutor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
@@ -23,6 +31,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
@@ -44,6 +53,8 @@ class LoanAmountApprovalControllerTest {
     private MockMvc mockMvc;
     private LoanRequestsCache requestsCache;
     private LoanRequestLogsCache logsCache;
+    private PartitionedBatchExecutor batchExecutor;
+    private CustomerShardExecutor shardExecutor;
 
     @BeforeEach
     void setUp() {
@@ -51,14 +62,29 @@ class LoanAmountApprovalControllerTest {
 
         requestsCache = new LoanRequestsCache();
         logsCache = new LoanRequestLogsCache();
-        final LoanRequestConverter loanRequestConverter = new LoanRequestConverter(new ManagerApprovalConverter());
-        final LoanAmountApprovalController controller = new LoanAmountApprovalController(
-                new LoanRequestService(requestsCache, logsCache, loanRequestConverter, loanExternalService),
-                new LoanStatisticsService(logsCache));
+        final LoanRequestConverter loanRequestConverter = new LoanRequestConverter();
+        batchExecutor = new PartitionedBatchExecutor(1, 1, false);
+        shardExecutor = new CustomerShardExecutor(1, false);
+        final LoanRequestService loanRequestService = new LoanRequestService(requestsCache, logsCache,
+                loanRequestConverter, loanExternalService, batchExecutor, shardExecutor, LoanJournal.NONE);
+        final LoanClusterService loanClusterService = new LoanClusterService(loanRequestService, requestsCache,
+                logsCache, LoanClusterTransport.NONE, "localhost:8080", List.of(), 128);
+        final LoanStatisticsService loanStatisticsService = new LoanStatisticsService(logsCache,
+                new LoanStatisticsCache(logsCache, 1024), loanClusterService, Clock.systemDefaultZone());
+        final LoanRequestBinder loanRequestBinder = new LoanRequestBinder(OBJECT_MAPPER);
+        final LoanAmountApprovalController controller = new LoanAmountApprovalController(loanRequestService,
+                loanClusterService, loanStatisticsService, new LoanRequestStreamService(loanRequestService, OBJECT_MAPPER,
+                loanRequestBinder), loanRequestBinder);
 
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
+    @AfterEach
+    void tearDown() {
+        batchExecutor.shutdown();
+        shardExecutor.shutdown();
+    }
+
     @DisplayName("Given valid request when create request then get from cache send to manager")
     @Test
     void createLoanAmountRequestSuccess() throws Exception {
@@ -77,16 +103,19 @@ class LoanAmountApprovalControllerTest {
         final NotificationToManagerDto expectedNotification = NotificationToManagerDto.builder()
                 .customerId(givenCustomerId).amount(givenAmount).username("aaa").build();
 
-        mockMvc.perform(MockMvcRequestBuilders.post(URL + "/requests").content(toJson(given))
+        final String actual = mockMvc.perform(MockMvcRequestBuilders.post(URL + "/requests").content(toJson(given))
                 .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
 
+        assertThat(actual).isEqualTo("{\"results\":[{\"customerId\":\"XX-XXXX-XXX\",\"status\":\"ACCEPTED\","
+                + "\"reason\":null}]}");
         assertThat(requestsCache.get(givenCustomerId)).isEqualTo(expected);
 
-        verify(loanExternalService, times(2)).sendToManager(argThat(notificationDto -> {
-            notificationDto.setUsername("aaa");
-            return notificationDto.equals(expectedNotification);
-        }));
+        verify(loanExternalService, times(1)).sendToManagers(argThat(notificationDtos -> notificationDtos.size() == 2
+                && notificationDtos.stream().allMatch(notificationDto -> {
+                    notificationDto.setUsername("aaa");
+                    return notificationDto.equals(expectedNotification);
+                })));
         verifyNoMoreInteractions(loanExternalService);
     }
 
@@ -106,6 +135,28 @@ class LoanAmountApprovalControllerTest {
                 .contains("Approvers cannot be more than 3.");
     }
 
+    @DisplayName("Given NDJSON requests when stream requests then get result line per request")
+    @Test
+    void streamLoanAmountRequestsSuccess() throws Exception {
+        final String given = toJson(LoanRequestDto.builder().customerId("XX-XXXX-XXX").amount(new BigDecimal(155))
+                .approvers(Set.of("aaa")).build()) + "\n"
+                + toJson(LoanRequestDto.builder().customerId("XX-XXXX-XXX").amount(new BigDecimal(155))
+                .approvers(Set.of("aaa")).build()) + "\n"
+                + toJson(LoanRequestDto.builder().customerId("YY-YYYY-YYY").approvers(Set.of("aaa")).build()) + "\n";
+
+        final String actual = mockMvc.perform(MockMvcRequestBuilders.post(URL + "/requests/stream").content(given)
+                .contentType(MediaType.APPLICATION_NDJSON).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+        assertThat(actual.split("\n")).containsExactly(
+                "{\"customerId\":\"XX-XXXX-XXX\",\"status\":\"ACCEPTED\",\"reason\":null}",
+                "{\"customerId\":\"XX-XXXX-XXX\",\"status\":\"REJECTED\","
+                        + "\"reason\":\"There is still pending request for customer.\"}",
+                "{\"customerId\":\"YY-YYYY-YYY\",\"status\":\"REJECTED\",\"reason\":\"Amount cannot be null.\"}");
+        assertThat(requestsCache.get("XX-XXXX-XXX")).isNotNull();
+        assertThat(requestsCache.get("YY-YYYY-YYY")).isNull();
+    }
+
     @DisplayName("Given valid approval and request in cache when approve request then send to customer")
     @Test
     void approveLoanAmountRequestSuccess() throws Exception  {
@@ -133,6 +184,56 @@ class LoanAmountApprovalControllerTest {
         verifyNoMoreInteractions(loanExternalService);
     }
 
+    @DisplayName("Given approvals in bulk when approve requests then get result of every approval")
+    @Test
+    void approveLoanAmountRequestsSuccess() throws Exception {
+        final LoanRequest given = new LoanRequest();
+        given.setCustomerId("XX-XXXX-XXX");
+        given.setAmount(new BigDecimal(1));
+        given.setManagerApprovals(Set.of(new ManagerApproval("aaa", false)));
+
+        requestsCache.add(given);
+
+        final ManagerApprovalDto givenFirst = new ManagerApprovalDto();
+        givenFirst.setCustomerId("XX-XXXX-XXX");
+        givenFirst.setUsername("aaa");
+        final ManagerApprovalDto givenSecond = new ManagerApprovalDto();
+        givenSecond.setCustomerId("YY-YYYY-YYY");
+        givenSecond.setUsername("aaa");
+        final ManagerApprovalsRequest givenRequest = new ManagerApprovalsRequest();
+        givenRequest.setApprovals(List.of(givenFirst, givenSecond));
+
+        final String actual = mockMvc.perform(MockMvcRequestBuilders.put(URL + "/approvals/bulk")
+                .content(toJson(givenRequest))
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+        assertThat(actual).isEqualTo("{\"results\":["
+                + "{\"username\":\"aaa\",\"customerId\":\"XX-XXXX-XXX\",\"status\":\"COMPLETED\",\"reason\":null},"
+                + "{\"username\":\"aaa\",\"customerId\":\"YY-YYYY-YYY\",\"status\":\"REJECTED\","
+                + "\"reason\":\"There is no pending request for customer YY-YYYY-YYY.\"}]}");
+        verify(loanExternalService, times(1)).sendToCustomer(NotificationToCustomerDto.builder()
+                .amount(new BigDecimal(1)).customerId("XX-XXXX-XXX").build());
+        verifyNoMoreInteractions(loanExternalService);
+    }
+
+    @DisplayName("Given bulk approvals without approvals list or with invalid approval when approve then get bad "
+            + "request")
+    @Test
+    void approveLoanAmountRequestsFail() throws Exception {
+        final String actualMissing = mockMvc.perform(MockMvcRequestBuilders.put(URL + "/approvals/bulk")
+                .content("{}").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest()).andReturn().getResponse().getContentAsString();
+        final String actualInvalid = mockMvc.perform(MockMvcRequestBuilders.put(URL + "/approvals/bulk")
+                .content("{\"approvals\":[{\"customerId\":\"XX-XXXX-XXX\"},null]}")
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest()).andReturn().getResponse().getContentAsString();
+
+        assertThat(actualMissing).isEqualTo("Approvals cannot be null.");
+        assertThat(actualInvalid).contains("Managers username cannot be empty.").contains("Approval cannot be null.");
+        verifyNoInteractions(loanExternalService);
+    }
+
     @DisplayName("Given invalid approval when approve request then get bad request")
     @Test
     void approveLoanAmountRequestFail() throws Exception  {
@@ -149,6 +250,44 @@ class LoanAmountApprovalControllerTest {
                 .contains("Customer id must match pattern 'XX-XXXX-XXX'.");
     }
 
+    @DisplayName("Given pending requests of manager when get pending then get first page and next cursor")
+    @Test
+    void getPendingRequestsSuccess() throws Exception {
+        IntStream.range(0, 3).mapToObj(index -> {
+            final LoanRequest request = new LoanRequest();
+            request.setCustomerId(String.format("XX-XXXX-XX%d", index));
+            request.setAmount(new BigDecimal(index));
+            request.setApprovers(Set.of("aaa"));
+            return request;
+        }).forEach(requestsCache::addIfAbsent);
+
+        final String actual = mockMvc.perform(MockMvcRequestBuilders.get(URL + "/managers/aaa/pending")
+                .param("limit", "2")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(actual).isEqualTo("{\"requests\":[{\"customerId\":\"XX-XXXX-XX0\",\"amount\":0},"
+                + "{\"customerId\":\"XX-XXXX-XX1\",\"amount\":1}],\"next\":\"XX-XXXX-XX1\"}");
+    }
+
+    @DisplayName("Given last pending requests fill page when get pending then get no next cursor")
+    @Test
+    void getPendingRequestsLastFullPageSuccess() throws Exception {
+        IntStream.range(0, 2).mapToObj(index -> {
+            final LoanRequest request = new LoanRequest();
+            request.setCustomerId(String.format("XX-XXXX-XX%d", index));
+            request.setAmount(new BigDecimal(index));
+            request.setApprovers(Set.of("aaa"));
+            return request;
+        }).forEach(requestsCache::addIfAbsent);
+
+        final String actual = mockMvc.perform(MockMvcRequestBuilders.get(URL + "/managers/aaa/pending")
+                .param("limit", "2")).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(actual).isEqualTo("{\"requests\":[{\"customerId\":\"XX-XXXX-XX0\",\"amount\":0},"
+                + "{\"customerId\":\"XX-XXXX-XX1\",\"amount\":1}],\"next\":null}");
+    }
+
     @DisplayName("Given logs when gather statistics then get statistics object")
     @Test
     void getStatisticsSuccess() throws Exception {
@@ -0,0 +1,119 @@
+package org.jurijz.loanamountapproval.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.converter.LoanAmountAggregateConverter;
+import org.jurijz.loanamountapproval.converter.TransferredRequestConverter;
+import org.jurijz.loanamountapproval.domain.ManagerApproval;
+import org.jurijz.loanamountapproval.domain.dto.TransferredRequestDto;
+import org.jurijz.loanamountapproval.service.HttpLoanClusterTransport;
+import org.jurijz.loanamountapproval.service.LoanClusterService;
+import org.jurijz.loanamountapproval.service.LoanRequestService;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LoanClusterControllerTest {
+
+    private static final String URL = "/loan/cluster";
+    private static final String SECRET = "givenSecret";
+
+    @Mock
+    private LoanRequestService loanRequestService;
+    @Mock
+    private LoanClusterService loanClusterService;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new LoanClusterController(loanRequestService, loanClusterService,
+                new TransferredRequestConverter(), new LoanAmountAggregateConverter(), SECRET)).build();
+    }
+
+    @DisplayName("Given matching secret when get nodes then get nodes")
+    @Test
+    void getNodesSuccess() throws Exception {
+        when(loanClusterService.getNodes()).thenReturn(List.of("localhost:8080"));
+
+        final String actual = mockMvc.perform(MockMvcRequestBuilders.get(URL + "/nodes")
+                .header(HttpLoanClusterTransport.SECRET_HEADER, SECRET).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+        assertThat(actual).isEqualTo("[\"localhost:8080\"]");
+    }
+
+    @DisplayName("Given missing or wrong secret when update nodes then get forbidden and nodes are kept")
+    @Test
+    void updateNodesWithoutSecretFail() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put(URL + "/nodes").content("[\"localhost:8081\"]")
+                .contentType(MediaType.APPLICATION_JSON)).andExpect(status().isForbidden());
+        mockMvc.perform(MockMvcRequestBuilders.put(URL + "/nodes").content("[\"localhost:8081\"]")
+                .header(HttpLoanClusterTransport.SECRET_HEADER, "wrongSecret")
+                .contentType(MediaType.APPLICATION_JSON)).andExpect(status().isForbidden());
+
+        verifyNoInteractions(loanClusterService);
+    }
+
+    @DisplayName("Given no configured secret when get nodes then get forbidden")
+    @Test
+    void getNodesWithoutConfiguredSecretFail() throws Exception {
+        final MockMvc givenMockMvc = MockMvcBuilders.standaloneSetup(new LoanClusterController(loanRequestService,
+                loanClusterService, new TransferredRequestConverter(), new LoanAmountAggregateConverter(), ""))
+                .build();
+
+        givenMockMvc.perform(MockMvcRequestBuilders.get(URL + "/nodes")
+                .header(HttpLoanClusterTransport.SECRET_HEADER, "")).andExpect(status().isForbidden());
+
+        verifyNoInteractions(loanClusterService);
+    }
+
+    @DisplayName("Given transferred request with invalid approvals when validate then get approver violations")
+    @Test
+    void validateTransferredRequestFail() {
+        final TransferredRequestDto givenNullUsername = createTransferredRequest(new HashSet<>(Arrays.asList(
+                new ManagerApproval(null, false), new ManagerApproval("aaa", true))));
+        final TransferredRequestDto givenLongUsername = createTransferredRequest(Set.of(
+                new ManagerApproval("a".repeat(65), false)));
+        final TransferredRequestDto givenNoApprovals = createTransferredRequest(Set.of());
+        final TransferredRequestDto givenNullApproval = createTransferredRequest(new HashSet<>(Arrays.asList(
+                null, new ManagerApproval("aaa", true))));
+
+        assertThat(validator.validate(givenNullUsername)).extracting(ConstraintViolation::getMessage)
+                .containsExactly("Approver username cannot be null.");
+        assertThat(validator.validate(givenLongUsername)).extracting(ConstraintViolation::getMessage)
+                .containsExactly("Approver username cannot be longer than 64 characters.");
+        assertThat(validator.validate(givenNoApprovals)).extracting(ConstraintViolation::getMessage)
+                .containsExactly("Approvers cannot be less than 1.");
+        assertThat(validator.validate(givenNullApproval)).extracting(ConstraintViolation::getMessage)
+                .containsExactly("Approver username cannot be null.");
+    }
+
+    private TransferredRequestDto createTransferredRequest(final Set<ManagerApproval> managerApprovals) {
+        return TransferredRequestDto.builder()
+                .customerId("11-1111-111")
+                .amount(BigDecimal.TEN)
+                .managerApprovals(managerApprovals)
+                .build();
+    }
+}
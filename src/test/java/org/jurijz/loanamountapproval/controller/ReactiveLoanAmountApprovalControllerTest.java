@@ -0,0 +1,296 @@
+package org.jurijz.loanamountapproval.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.converter.LoanRequestBinder;
+import org.jurijz.loanamountapproval.converter.LoanRequestConverter;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.jurijz.loanamountapproval.domain.ManagerApproval;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalRequest;
+import org.jurijz.loanamountapproval.domain.dto.LoanAmountApprovalResponse;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsRequest;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalsResponse;
+import org.jurijz.loanamountapproval.domain.dto.NotificationToCustomerDto;
+import org.jurijz.loanamountapproval.repository.LoanJournal;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanStatisticsCache;
+import org.jurijz.loanamountapproval.service.CustomerShardExecutor;
+import org.jurijz.loanamountapproval.service.LoanClusterService;
+import org.jurijz.loanamountapproval.service.LoanClusterTransport;
+import org.jurijz.loanamountapproval.service.LoanExternalService;
+import org.jurijz.loanamountapproval.service.LoanRequestService;
+import org.jurijz.loanamountapproval.service.LoanRequestStreamService;
+import org.jurijz.loanamountapproval.service.LoanStatisticsService;
+import org.jurijz.loanamountapproval.service.PartitionedBatchExecutor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class ReactiveLoanAmountApprovalControllerTest {
+
+    private static final String URL = "/loan";
+
+    @Mock
+    private LoanExternalService loanExternalService;
+
+    private WebTestClient webTestClient;
+    private LoanRequestsCache requestsCache;
+    private LoanRequestLogsCache logsCache;
+    private PartitionedBatchExecutor batchExecutor;
+    private CustomerShardExecutor shardExecutor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(loanExternalService.notifyManagers(any())).thenReturn(Mono.empty());
+        when(loanExternalService.notifyCustomer(any())).thenReturn(Mono.empty());
+
+        requestsCache = new LoanRequestsCache();
+        logsCache = new LoanRequestLogsCache();
+        final LoanRequestConverter loanRequestConverter = new LoanRequestConverter();
+        batchExecutor = new PartitionedBatchExecutor(1, 1, false);
+        shardExecutor = new CustomerShardExecutor(1, false);
+        final LoanRequestService loanRequestService = new LoanRequestService(requestsCache, logsCache,
+                loanRequestConverter, loanExternalService, batchExecutor, shardExecutor, LoanJournal.NONE);
+        final LoanClusterService loanClusterService = new LoanClusterService(loanRequestService, requestsCache,
+                logsCache, LoanClusterTransport.NONE, "localhost:8080", List.of(), 128);
+        final LoanStatisticsService loanStatisticsService = new LoanStatisticsService(logsCache,
+                new LoanStatisticsCache(logsCache, 1024), loanClusterService, Clock.systemDefaultZone());
+        final ReactiveLoanAmountApprovalController controller = new ReactiveLoanAmountApprovalController(
+                loanRequestService, loanStatisticsService, new LoanRequestStreamService(
+                loanRequestService, new ObjectMapper(), new LoanRequestBinder(new ObjectMapper())));
+
+        webTestClient = WebTestClient.bindToController(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchExecutor.shutdown();
+        shardExecutor.shutdown();
+    }
+
+    @DisplayName("Given valid request when create request then get from cache and notify managers")
+    @Test
+    void createLoanAmountRequestSuccess() {
+        final String givenCustomerId = "XX-XXXX-XXX";
+        final LoanAmountApprovalRequest given = new LoanAmountApprovalRequest();
+        given.setRequests(List.of(LoanRequestDto.builder().customerId(givenCustomerId)
+                .amount(new BigDecimal(155)).approvers(Set.of("aaa", "bbb")).build()));
+
+        webTestClient.post().uri(URL + "/requests").contentType(MediaType.APPLICATION_JSON).bodyValue(given)
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(requestsCache.get(givenCustomerId)).isNotNull();
+        verify(loanExternalService, times(1)).notifyManagers(argThat(notificationDtos -> notificationDtos.size() == 2));
+        verifyNoMoreInteractions(loanExternalService);
+    }
+
+    @DisplayName("Given invalid request when create request then get bad request")
+    @Test
+    void createLoanAmountRequestFail() {
+        final LoanAmountApprovalRequest given = new LoanAmountApprovalRequest();
+        given.setRequests(List.of(LoanRequestDto.builder().customerId("!X-XXXX1XXX")
+                .approvers(Set.of("aaa", "bbb", "ccc", "ddd")).build()));
+
+        final String actual = webTestClient.post().uri(URL + "/requests").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(given)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(actual).contains("Customer id must match pattern 'XX-XXXX-XXX'.")
+                .contains("Amount cannot be null.")
+                .contains("Approvers cannot be more than 3.");
+    }
+
+    @DisplayName("Given pending request when create same request then get rejected result")
+    @Test
+    void createLoanAmountRequestWithPendingRequestFail() {
+        final LoanAmountApprovalRequest given = new LoanAmountApprovalRequest();
+        given.setRequests(List.of(LoanRequestDto.builder().customerId("XX-XXXX-XXX")
+                .amount(new BigDecimal(1)).approvers(Set.of("aaa")).build()));
+
+        webTestClient.post().uri(URL + "/requests").contentType(MediaType.APPLICATION_JSON).bodyValue(given)
+                .exchange()
+                .expectStatus().isOk();
+        final LoanAmountApprovalResponse actual = webTestClient.post().uri(URL + "/requests")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(given)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanAmountApprovalResponse.class).returnResult().getResponseBody();
+
+        assertThat(actual.getResults()).extracting(LoanRequestResultDto::getCustomerId, LoanRequestResultDto::getStatus,
+                LoanRequestResultDto::getReason).containsExactly(tuple("XX-XXXX-XXX",
+                LoanRequestResultDto.Status.REJECTED, "There is still pending request for customer."));
+    }
+
+    @DisplayName("Given JSON array of requests when stream requests then get result per request")
+    @Test
+    void streamLoanAmountRequestsSuccess() {
+        final List<LoanRequestDto> given = List.of(
+                LoanRequestDto.builder().customerId("XX-XXXX-XXX").amount(new BigDecimal(1)).approvers(Set.of("aaa"))
+                        .build(),
+                LoanRequestDto.builder().customerId("XX-XXXX-XXX").amount(new BigDecimal(1)).approvers(Set.of("aaa"))
+                        .build(),
+                LoanRequestDto.builder().customerId("YY-YYYY-YYY").approvers(Set.of("aaa")).build());
+
+        final List<LoanRequestResultDto> actual = webTestClient.post().uri(URL + "/requests/stream")
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_NDJSON).bodyValue(given)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(LoanRequestResultDto.class).returnResult().getResponseBody();
+
+        assertThat(actual).extracting(LoanRequestResultDto::getCustomerId, LoanRequestResultDto::getStatus)
+                .containsExactly(tuple("XX-XXXX-XXX", LoanRequestResultDto.Status.ACCEPTED),
+                        tuple("XX-XXXX-XXX", LoanRequestResultDto.Status.REJECTED),
+                        tuple("YY-YYYY-YYY", LoanRequestResultDto.Status.REJECTED));
+        verify(loanExternalService, times(1)).notifyManagers(anyList());
+        verifyNoMoreInteractions(loanExternalService);
+    }
+
+    @DisplayName("Given valid approval and request in cache when approve request then notify customer")
+    @Test
+    void approveLoanAmountRequestSuccess() {
+        final String givenCustomerId = "xx-xxxx-xxx";
+        final LoanRequest given = new LoanRequest();
+        given.setCustomerId(givenCustomerId);
+        given.setAmount(new BigDecimal(1));
+        given.setManagerApprovals(Set.of(new ManagerApproval("aaa", true),
+                new ManagerApproval("bbb", false)));
+
+        requestsCache.add(given);
+
+        final ManagerApprovalDto givenDto = new ManagerApprovalDto();
+        givenDto.setCustomerId(givenCustomerId);
+        givenDto.setUsername("bbb");
+
+        webTestClient.put().uri(URL + "/approvals").contentType(MediaType.APPLICATION_JSON).bodyValue(givenDto)
+                .exchange()
+                .expectStatus().isOk();
+
+        assertThat(requestsCache.get(givenCustomerId)).isNull();
+        verify(loanExternalService, times(1)).notifyCustomer(NotificationToCustomerDto.builder()
+                .amount(new BigDecimal(1)).customerId(givenCustomerId).build());
+        verifyNoMoreInteractions(loanExternalService);
+    }
+
+    @DisplayName("Given customer not notified when approve request then get service unavailable and request is pending")
+    @Test
+    void approveLoanAmountRequestNotNotifiedFail() {
+        final String givenCustomerId = "XX-XXXX-XXX";
+        final LoanRequest given = new LoanRequest();
+        given.setCustomerId(givenCustomerId);
+        given.setAmount(new BigDecimal(1));
+        given.setManagerApprovals(Set.of(new ManagerApproval("aaa", false)));
+        requestsCache.add(given);
+        when(loanExternalService.notifyCustomer(any())).thenReturn(Mono.error(new IllegalStateException("down")));
+
+        final ManagerApprovalDto givenDto = new ManagerApprovalDto();
+        givenDto.setCustomerId(givenCustomerId);
+        givenDto.setUsername("aaa");
+
+        webTestClient.put().uri(URL + "/approvals").contentType(MediaType.APPLICATION_JSON).bodyValue(givenDto)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertThat(requestsCache.get(givenCustomerId)).isSameAs(given);
+        assertThat(given.isFullyApproved()).isTrue();
+        assertThat(logsCache.getByPeriod(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1)))
+                .isEmpty();
+    }
+
+    @DisplayName("Given bulk approvals without approvals list when approve requests then get bad request")
+    @Test
+    void approveLoanAmountRequestsFail() {
+        final String actual = webTestClient.put().uri(URL + "/approvals/bulk")
+                .contentType(MediaType.APPLICATION_JSON).bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(actual).isEqualTo("Approvals cannot be null.");
+    }
+
+    @DisplayName("Given approvals in bulk when approve requests then get result of every approval")
+    @Test
+    void approveLoanAmountRequestsSuccess() {
+        final LoanRequest given = new LoanRequest();
+        given.setCustomerId("XX-XXXX-XXX");
+        given.setAmount(new BigDecimal(1));
+        given.setManagerApprovals(Set.of(new ManagerApproval("aaa", false),
+                new ManagerApproval("bbb", false)));
+
+        requestsCache.add(given);
+
+        final ManagerApprovalDto givenFirst = new ManagerApprovalDto();
+        givenFirst.setCustomerId("XX-XXXX-XXX");
+        givenFirst.setUsername("aaa");
+        final ManagerApprovalDto givenSecond = new ManagerApprovalDto();
+        givenSecond.setCustomerId("XX-XXXX-XXX");
+        givenSecond.setUsername("bbb");
+        final ManagerApprovalsRequest givenRequest = new ManagerApprovalsRequest();
+        givenRequest.setApprovals(List.of(givenFirst, givenSecond));
+
+        final ManagerApprovalsResponse actual = webTestClient.put().uri(URL + "/approvals/bulk")
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(givenRequest)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ManagerApprovalsResponse.class).returnResult().getResponseBody();
+
+        assertThat(actual.getResults()).extracting(ManagerApprovalResultDto::getUsername,
+                ManagerApprovalResultDto::getStatus).containsExactly(
+                tuple("aaa", ManagerApprovalResultDto.Status.APPROVED),
+                tuple("bbb", ManagerApprovalResultDto.Status.COMPLETED));
+        assertThat(requestsCache.get("XX-XXXX-XXX")).isNull();
+        verify(loanExternalService, times(1)).notifyCustomer(NotificationToCustomerDto.builder()
+                .amount(new BigDecimal(1)).customerId("XX-XXXX-XXX").build());
+        verifyNoMoreInteractions(loanExternalService);
+    }
+
+    @DisplayName("Given logs when gather statistics then get statistics object")
+    @Test
+    void getStatisticsSuccess() {
+        final LocalDateTime givenTime = LocalDateTime.of(2020, 1, 1, 0, 0, 1);
+        IntStream.range(0, 20).mapToObj(index -> LoanRequestLog.builder()
+                .sentToCustomerTime(givenTime.plusMinutes(40)).amount(new BigDecimal(index)).build())
+                .forEach(logsCache::add);
+
+        final String actual = webTestClient.get().uri(uriBuilder -> uriBuilder.path(URL + "/statistics")
+                .queryParam("periodStart", "2020-01-01 00:00:00")
+                .queryParam("periodEnd", "2020-01-02 00:00:00").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(actual).contains("\"count\":20").contains("\"sum\":190").contains("\"avg\":9.50")
+                .contains("\"max\":19").contains("\"min\":0");
+    }
+}
@@ -0,0 +1,152 @@
+package org.jurijz.loanamountapproval.converter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.exception.LoanRequestBindingException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoanRequestBinderTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final LoanRequestBinder binder = new LoanRequestBinder(OBJECT_MAPPER);
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @DisplayName("Given valid and invalid requests when validate then get same messages as bean validation")
+    @Test
+    void validateMatchesBeanValidationSuccess() {
+        final List<LoanRequestDto> given = List.of(
+                createRequest("XX-XXXX-XXX", BigDecimal.ONE, Set.of("aaa")),
+                createRequest("ab-12cd-x9z", BigDecimal.TEN, Set.of("aaa", "bbb", "ccc")),
+                createRequest(null, null, null),
+                createRequest("", BigDecimal.ONE, Set.of()),
+                createRequest("   ", BigDecimal.ONE, Set.of("aaa")),
+                createRequest("XX-XXXX-XXX ", BigDecimal.ONE, Set.of("aaa", "bbb", "ccc", "ddd")),
+                createRequest("!X-XXXX1XXX", null, Set.of("aaa")),
+                createRequest("XX_XXXX-XXX", BigDecimal.ONE, Set.of("aaa")),
+                createRequest("ÄX-XXXX-XXX", BigDecimal.ONE, Set.of("aaa")),
+                createRequest("XX-XXXX-XX", BigDecimal.ONE, Set.of("aaa")),
+                createRequest("XX-XXXX-XXX", BigDecimal.ONE, Set.of("a".repeat(64), "b".repeat(65), "c".repeat(66))),
+                createRequest("XX-XXXX-XXX", BigDecimal.ONE, new HashSet<>(Arrays.asList("aaa", null))));
+
+        given.forEach(request -> assertThat(sort(binder.validate(request))).isEqualTo(validator.validate(request)
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("\n"))));
+    }
+
+    @DisplayName("Given request with several violations when validate then get messages in order of fields")
+    @Test
+    void validateInOrderOfFieldsSuccess() {
+        final LoanRequestDto given = createRequest("!X-XXXX1XXX", null, Set.of("aaa", "bbb", "ccc", "ddd"));
+
+        assertThat(binder.validate(given)).isEqualTo("Customer id must match pattern 'XX-XXXX-XXX'.\n"
+                + "Amount cannot be null.\nApprovers cannot be more than 3.");
+    }
+
+    @DisplayName("Given JSON request when read then get same request as object mapper binds")
+    @Test
+    void readMatchesObjectMapperSuccess() throws Exception {
+        final List<String> given = List.of(
+                "{\"customerId\":\"XX-XXXX-XXX\",\"amount\":155,\"approvers\":[\"aaa\",\"bbb\"]}",
+                "{\"approvers\":[\"aaa\",null,5],\"amount\":\"1.50\",\"customerId\":12}",
+                "{\"customerId\":null,\"amount\":1e3,\"approvers\":[]}",
+                "{\"amount\":\"\",\"approvers\":null}");
+
+        for (final String json : given) {
+            try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json)) {
+                parser.nextToken();
+                assertThat(binder.read(parser)).isEqualTo(OBJECT_MAPPER.readValue(json, LoanRequestDto.class));
+            }
+        }
+    }
+
+    @DisplayName("Given request with value of wrong type when read then reject it with its customer id")
+    @Test
+    void readWithWrongTypeFail() throws Exception {
+        final String given = "{\"customerId\":\"22-2222-222\",\"amount\":{\"value\":1},\"approvers\":[[\"aaa\"]]}\n"
+                + "{\"customerId\":\"33-3333-333\",\"amount\":1,\"approvers\":[\"aaa\"]}";
+
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(given)) {
+            parser.nextToken();
+            assertThatThrownBy(() -> binder.read(parser))
+                    .isInstanceOf(LoanRequestBindingException.class)
+                    .hasFieldOrPropertyWithValue("customerId", "22-2222-222")
+                    .hasMessageStartingWith("Malformed request:");
+            parser.nextToken();
+            assertThat(binder.read(parser).getCustomerId()).isEqualTo("33-3333-333");
+        }
+    }
+
+    @DisplayName("Given batch with invalid requests when read requests then get messages of all requests in order")
+    @Test
+    void readRequestsWithInvalidRequestsFail() {
+        final String given = "{\"requests\":[{\"customerId\":\"XX-XXXX-XXX\",\"amount\":1,\"approvers\":[\"aaa\"]},"
+                + "{\"customerId\":\"!X-XXXX1XXX\",\"approvers\":[\"a\",\"b\",\"c\",\"d\"]},{\"amount\":1}]}";
+
+        assertThatThrownBy(() -> binder.readRequests(toInput(given)))
+                .isInstanceOf(LoanRequestBindingException.class)
+                .hasMessage("Customer id must match pattern 'XX-XXXX-XXX'.\nAmount cannot be null.\n"
+                        + "Approvers cannot be more than 3.\nCustomer Id cannot be empty.\nApprovers cannot be null.");
+    }
+
+    @DisplayName("Given batch with value of wrong type when read requests then reject batch with messages of all "
+            + "requests")
+    @Test
+    void readRequestsWithWrongTypeFail() {
+        final String given = "{\"requests\":[{\"customerId\":\"11-1111-111\",\"amount\":1,\"approvers\":[\"aaa\"]},"
+                + "{\"customerId\":\"22-2222-222\",\"amount\":{\"value\":1},\"approvers\":[\"aaa\"]},"
+                + "{\"customerId\":\"33-3333-333\",\"approvers\":[\"aaa\"]}]}";
+
+        assertThatThrownBy(() -> binder.readRequests(toInput(given)))
+                .isInstanceOf(LoanRequestBindingException.class)
+                .hasMessage("Malformed request: Cannot deserialize instance of `java.math.BigDecimal` out of "
+                        + "START_OBJECT token\nAmount cannot be null.");
+    }
+
+    @DisplayName("Given valid batch when read requests then get requests in received order")
+    @Test
+    void readRequestsSuccess() throws Exception {
+        final String given = "{\"requests\":[{\"customerId\":\"11-1111-111\",\"amount\":1,\"approvers\":[\"aaa\"]},"
+                + "{\"customerId\":\"22-2222-222\",\"amount\":2,\"approvers\":[\"bbb\"]}]}";
+
+        assertThat(binder.readRequests(toInput(given))).containsExactly(
+                createRequest("11-1111-111", BigDecimal.ONE, Set.of("aaa")),
+                createRequest("22-2222-222", new BigDecimal(2), Set.of("bbb")));
+        assertThat(binder.readRequests(toInput("{}"))).isEmpty();
+    }
+
+    private String sort(final String messages) {
+        return Arrays.stream(messages.split("\n")).sorted().collect(Collectors.joining("\n"));
+    }
+
+    private ByteArrayInputStream toInput(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private LoanRequestDto createRequest(final String customerId, final BigDecimal amount, final Set<String> approvers) {
+        return LoanRequestDto.builder()
+                .customerId(customerId)
+                .amount(amount)
+                .approvers(approvers)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package org.jurijz.loanamountapproval.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LoanAmountSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.95, 0.99, 1};
+
+    @DisplayName("Given amounts of wide range when quantile then estimate within relative accuracy of exact amount")
+    @Test
+    void quantileWithinRelativeAccuracy() {
+        final Random random = new Random(42);
+        final double[] given = new double[100_000];
+        final LoanAmountSketch actual = new LoanAmountSketch();
+        for (int index = 0; index < given.length; index++) {
+            given[index] = Math.exp(random.nextGaussian() * 3 + 8) * (index % 10 == 0 ? -1 : 1);
+            actual.add(given[index]);
+        }
+        Arrays.sort(given);
+
+        for (final double quantile : QUANTILES) {
+            final double expected = given[(int) Math.floor(quantile * (given.length - 1))];
+            assertThat(actual.quantile(quantile))
+                    .isCloseTo(expected, within(Math.abs(expected) * LoanAmountSketch.RELATIVE_ACCURACY));
+        }
+    }
+
+    @DisplayName("Given sketches of separate periods when merge then equal to sketch of all amounts")
+    @Test
+    void mergeEqualsSketchOfAllAmounts() {
+        final LoanAmountSketch expected = new LoanAmountSketch();
+        final LoanAmountSketch actual = new LoanAmountSketch();
+        final LoanAmountSketch givenOther = new LoanAmountSketch();
+        for (int index = 0; index < 1000; index++) {
+            expected.add(index);
+            (index < 300 ? actual : givenOther).add(index);
+        }
+
+        actual.merge(givenOther);
+
+        assertThat(actual.getCount()).isEqualTo(expected.getCount());
+        for (final double quantile : QUANTILES) {
+            assertThat(actual.quantile(quantile)).isEqualTo(expected.quantile(quantile));
+        }
+    }
+
+    @DisplayName("Given written sketch when read then answer the same quantiles")
+    @Test
+    void writeAndReadSuccess() throws Exception {
+        final LoanAmountSketch given = new LoanAmountSketch();
+        for (int index = -50; index < 1000; index++) {
+            given.add(index * 1.5);
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        given.writeTo(new DataOutputStream(output));
+
+        final LoanAmountSketch actual = LoanAmountSketch.readFrom(new DataInputStream(
+                new ByteArrayInputStream(output.toByteArray())));
+
+        assertThat(actual.getCount()).isEqualTo(given.getCount());
+        for (final double quantile : QUANTILES) {
+            assertThat(actual.quantile(quantile)).isEqualTo(given.quantile(quantile));
+        }
+    }
+
+    @DisplayName("Given amounts beyond indexable range when quantile then get finite edge values")
+    @Test
+    void extremeAmountsClampedToEdgeBins() {
+        final LoanAmountSketch actual = new LoanAmountSketch();
+
+        actual.add(new BigDecimal("1e400").doubleValue());
+        actual.add(-Double.MAX_VALUE);
+        actual.add(1e-300);
+        actual.add(100);
+
+        assertThat(actual.getCount()).isEqualTo(4);
+        assertThat(actual.quantile(0)).isFinite()
+                .isCloseTo(-LoanAmountSketch.MAX_AMOUNT, within(LoanAmountSketch.MAX_AMOUNT * 0.02));
+        assertThat(actual.quantile(1)).isFinite()
+                .isCloseTo(LoanAmountSketch.MAX_AMOUNT, within(LoanAmountSketch.MAX_AMOUNT * 0.02));
+        assertThat(actual.quantile(0.75)).isCloseTo(100, within(100 * LoanAmountSketch.RELATIVE_ACCURACY));
+    }
+
+    @DisplayName("Given sketch with more bins than allowed when read then fail")
+    @Test
+    void readTooManyBinsFail() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(output);
+        data.writeLong(0);
+        data.writeInt(0);
+        data.writeInt(Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> LoanAmountSketch.readFrom(new DataInputStream(
+                new ByteArrayInputStream(output.toByteArray())))).isInstanceOf(IOException.class);
+    }
+
+    @DisplayName("Given no amounts when quantile then get NaN")
+    @Test
+    void quantileOfEmptySketchIsNaN() {
+        assertThat(new LoanAmountSketch().quantile(0.5)).isNaN();
+    }
+}
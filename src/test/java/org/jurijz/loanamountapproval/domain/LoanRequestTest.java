@@ -0,0 +1,90 @@
+package org.jurijz.loanamountapproval.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoanRequestTest {
+
+    @DisplayName("Given approvers when approve by each of them then request is fully approved")
+    @Test
+    void approveSuccess() {
+        final LoanRequest given = new LoanRequest();
+        given.setApprovers(Set.of("ccc", "aaa", "bbb"));
+
+        assertThat(given.approve("bbb")).isTrue();
+        assertThat(given.isApproved("bbb")).isTrue();
+        assertThat(given.isApproved("aaa")).isFalse();
+        assertThat(given.isFullyApproved()).isFalse();
+
+        given.approve("aaa");
+        given.approve("ccc");
+
+        assertThat(given.isFullyApproved()).isTrue();
+        assertThat(given.getManagerApprovals()).extracting(ManagerApproval::isApproved).containsOnly(true);
+    }
+
+    @DisplayName("Given approvers when approve by other manager then approval is not marked")
+    @Test
+    void approveNotApproverFail() {
+        final LoanRequest given = new LoanRequest();
+        given.setApprovers(Set.of("aaa"));
+
+        assertThat(given.approve("ddd")).isFalse();
+        assertThat(given.indexOf("ddd")).isEqualTo(-1);
+        assertThat(given.isFullyApproved()).isFalse();
+    }
+
+    @DisplayName("Given manager approvals when set then approvers and approvals are kept in slots")
+    @Test
+    void setManagerApprovalsSuccess() {
+        final Set<ManagerApproval> given = Set.of(new ManagerApproval("bbb", true),
+                new ManagerApproval("aaa", false));
+
+        final LoanRequest actual = new LoanRequest();
+        actual.setManagerApprovals(given);
+
+        assertThat(actual.getApproverCount()).isEqualTo(2);
+        assertThat(actual.getApprover(0)).isEqualTo("aaa");
+        assertThat(actual.isApproved("bbb")).isTrue();
+        assertThat(actual.getManagerApprovals()).isEqualTo(given);
+    }
+
+    @DisplayName("Given approvers when all approve concurrently then no approval is lost")
+    @Test
+    void approveConcurrentlySuccess() throws Exception {
+        final List<String> givenApprovers = List.of("aaa", "bbb", "ccc");
+        final ExecutorService executor = Executors.newFixedThreadPool(givenApprovers.size());
+        try {
+            for (int attempt = 0; attempt < 1000; attempt++) {
+                final LoanRequest given = new LoanRequest();
+                given.setApprovers(Set.copyOf(givenApprovers));
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<Future<Boolean>> approvals = givenApprovers.stream()
+                        .map(username -> executor.submit(() -> {
+                            start.await();
+                            return given.approve(username);
+                        }))
+                        .collect(Collectors.toList());
+                start.countDown();
+                for (final Future<Boolean> approval : approvals) {
+                    approval.get(10, TimeUnit.SECONDS);
+                }
+
+                assertThat(given.isFullyApproved()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoanAggregateTreeTest {
+
+    @DisplayName("Given slots added at both ends and in the middle when merge range then equal to merge of every slot")
+    @Test
+    void mergeIntoEqualsMergeOfSlots() {
+        final Random random = new Random(42);
+        final LoanAggregateTree tree = new LoanAggregateTree();
+        final Map<Long, LoanAmountAggregate> given = new TreeMap<>();
+        for (int index = 0; index < 2000; index++) {
+            final long slot = 1000 + random.nextInt(500) - random.nextInt(500);
+            final LoanAmountAggregate aggregate = new LoanAmountAggregate();
+            aggregate.add(BigDecimal.valueOf(random.nextInt(100_000), 2));
+            tree.add(slot, aggregate);
+            given.computeIfAbsent(slot, key -> new LoanAmountAggregate()).merge(aggregate);
+        }
+
+        for (int index = 0; index < 200; index++) {
+            final long from = random.nextInt(1600);
+            final long to = from + random.nextInt(600);
+            final LoanAmountAggregate expected = new LoanAmountAggregate();
+            given.forEach((slot, aggregate) -> {
+                if (slot >= from && slot <= to) {
+                    expected.merge(aggregate);
+                }
+            });
+
+            final LoanAmountAggregate actual = new LoanAmountAggregate();
+            tree.mergeInto(actual, from, to);
+
+            assertThat(actual.getCount()).isEqualTo(expected.getCount());
+            if (expected.getCount() > 0) {
+                assertThat(actual.getSum()).isEqualByComparingTo(expected.getSum());
+                assertThat(actual.getMin()).isEqualByComparingTo(expected.getMin());
+                assertThat(actual.getMax()).isEqualByComparingTo(expected.getMax());
+                assertThat(actual.getPercentile(0.5)).isEqualByComparingTo(expected.getPercentile(0.5));
+            }
+        }
+        assertThat(tree.getSlots().keySet()).containsExactlyElementsOf(given.keySet());
+    }
+
+    @DisplayName("Given empty tree when merge range then leave target empty")
+    @Test
+    void mergeIntoEmptyTree() {
+        final LoanAmountAggregate actual = new LoanAmountAggregate();
+
+        new LoanAggregateTree().mergeInto(actual, Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertThat(actual.getCount()).isZero();
+    }
+
+    @DisplayName("Given slot too far from added ones when add then fail and keep tree unchanged")
+    @Test
+    void addTooFarSlotFail() {
+        final LoanAggregateTree tree = new LoanAggregateTree();
+        final LoanAmountAggregate given = new LoanAmountAggregate();
+        given.add(BigDecimal.TEN);
+        tree.add(-5, given);
+
+        assertThatThrownBy(() -> tree.add(LoanAggregateTree.MAX_CAPACITY, given))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.add(Long.MAX_VALUE, given))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        final LoanAmountAggregate actual = new LoanAmountAggregate();
+        tree.mergeInto(actual, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(actual.getCount()).isEqualTo(1);
+        assertThat(tree.getSlots()).containsOnlyKeys(-5L);
+    }
+}
@@ -3,11 +3,15 @@ package org.jurijz.loanamountapproval.repository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
 import org.jurijz.loanamountapproval.domain.LoanRequestLog;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -101,4 +105,182 @@ class LoanRequestLogsCacheTest {
 
         assertThat(actual).asList().isEmpty();
     }
-}
\ No newline at end of file
+
+    @DisplayName("Given logs in many minutes when aggregate by period then edge minutes filtered exactly")
+    @Test
+    void aggregateByPeriodWithPartialEdgeMinutesSuccess() {
+        final LocalDateTime givenTime = LocalDateTime.of(2020, 1, 1, 10, 0, 0);
+        final LocalDateTime givenPeriodStart = givenTime.plusSeconds(30);
+        final LocalDateTime givenPeriodEnd = givenTime.plusMinutes(5).plusSeconds(30);
+
+        IntStream.range(0, 360)
+                .mapToObj(index -> LoanRequestLog.builder().amount(new BigDecimal(index))
+                        .sentToCustomerTime(givenTime.plusSeconds(index)).build())
+                .forEach(log -> cache.add(log));
+
+        final LoanAmountAggregate actual = cache.aggregateByPeriod(givenPeriodStart, givenPeriodEnd);
+
+        assertThat(actual.getCount()).isEqualTo(299);
+        assertThat(actual.getSum()).isEqualTo(new BigDecimal(IntStream.range(31, 330).sum()));
+        assertThat(actual.getMin()).isEqualTo(new BigDecimal(31));
+        assertThat(actual.getMax()).isEqualTo(new BigDecimal(329));
+    }
+
+    @DisplayName("Given no logs when aggregate by period then empty aggregate")
+    @Test
+    void aggregateByPeriodWithNoLogsEmptyResult() {
+
+        final LoanAmountAggregate actual = cache.aggregateByPeriod(LocalDateTime.now().minusSeconds(60),
+                LocalDateTime.now());
+
+        assertThat(actual.getCount()).isZero();
+        assertThat(actual.getSum()).isNull();
+    }
+
+    @DisplayName("Given logs inside and before last minute when aggregate window then only last minute counted")
+    @Test
+    void aggregateWindowSuccess() {
+        final LocalDateTime givenNow = LocalDateTime.of(2020, 1, 1, 10, 0, 0);
+
+        IntStream.range(0, 120)
+                .mapToObj(index -> LoanRequestLog.builder().amount(new BigDecimal(index))
+                        .sentToCustomerTime(givenNow.minusSeconds(index)).build())
+                .forEach(log -> cache.add(log));
+
+        final LoanAmountAggregate actual = cache.aggregateWindow(givenNow);
+
+        assertThat(actual.getCount()).isEqualTo(60);
+        assertThat(actual.getSum()).isEqualTo(new BigDecimal(IntStream.range(0, 60).sum()));
+        assertThat(actual.getMin()).isEqualTo(new BigDecimal(0));
+        assertThat(actual.getMax()).isEqualTo(new BigDecimal(59));
+    }
+
+    @DisplayName("Given logs in last minute when read window repeatedly then every read sees only its window")
+    @Test
+    void readWindowRepeatedlySuccess() {
+        final LocalDateTime givenNow = LocalDateTime.of(2020, 1, 1, 10, 0, 0);
+
+        IntStream.range(0, 120)
+                .mapToObj(index -> LoanRequestLog.builder().amount(new BigDecimal(index))
+                        .sentToCustomerTime(givenNow.minusSeconds(index)).build())
+                .forEach(log -> cache.add(log));
+
+        final int actualFirst = cache.readWindow(givenNow, LoanAmountAggregate::getCount);
+        final int actualSecond = cache.readWindow(givenNow, LoanAmountAggregate::getCount);
+        final BigDecimal actualSum = cache.readWindow(givenNow, LoanAmountAggregate::getSum);
+        final int actualLater = cache.readWindow(givenNow.plusSeconds(30), LoanAmountAggregate::getCount);
+
+        assertThat(actualFirst).isEqualTo(60);
+        assertThat(actualSecond).isEqualTo(60);
+        assertThat(actualSum).isEqualTo(new BigDecimal(IntStream.range(0, 60).sum()));
+        assertThat(actualLater).isEqualTo(30);
+    }
+
+    @DisplayName("Given logs older than window when aggregate window then empty aggregate")
+    @Test
+    void aggregateWindowWithOldLogsEmptyResult() {
+        final LocalDateTime givenNow = LocalDateTime.of(2020, 1, 1, 10, 0, 0);
+
+        cache.add(LoanRequestLog.builder().amount(new BigDecimal(1)).sentToCustomerTime(givenNow.minusMinutes(5)).build());
+
+        final LoanAmountAggregate actual = cache.aggregateWindow(givenNow);
+
+        assertThat(actual.getCount()).isZero();
+    }
+
+    @DisplayName("Given storage mode when add logs then get same logs and aggregates back")
+    @ParameterizedTest
+    @EnumSource(LoanRequestLogStorage.class)
+    void getByPeriodWithStorageSuccess(final LoanRequestLogStorage givenStorage) {
+        final LoanRequestLogsCache givenCache = new LoanRequestLogsCache(givenStorage);
+        final LocalDateTime givenTime = LocalDateTime.of(2020, 1, 1, 10, 0, 0, 123);
+        final List<LoanRequestLog> expected = IntStream.range(0, 100)
+                .mapToObj(index -> LoanRequestLog.builder().amount(BigDecimal.valueOf(index * 101L, index % 3))
+                        .sentToCustomerTime(givenTime.plusSeconds(index * 7L)).build())
+                .collect(Collectors.toList());
+
+        expected.forEach(givenCache::add);
+
+        final List<LoanRequestLog> actual = givenCache.getByPeriod(givenTime.minusSeconds(1), givenTime.plusHours(1));
+        final LoanAmountAggregate actualAggregate = givenCache.aggregateByPeriod(givenTime.minusSeconds(1),
+                givenTime.plusHours(1));
+
+        assertThat(actual).containsExactlyElementsOf(expected);
+        assertThat(actualAggregate.getCount()).isEqualTo(100);
+        assertThat(actualAggregate.getSum()).isEqualByComparingTo(expected.stream().map(LoanRequestLog::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    @DisplayName("Given amounts not fitting primitive columns when add logs then get same logs and aggregates back")
+    @ParameterizedTest
+    @EnumSource(LoanRequestLogStorage.class)
+    void getByPeriodWithOverflowingAmountsSuccess(final LoanRequestLogStorage givenStorage) {
+        final LoanRequestLogsCache givenCache = new LoanRequestLogsCache(givenStorage);
+        final LocalDateTime givenTime = LocalDateTime.of(2020, 1, 1, 10, 0, 0);
+        final List<LoanRequestLog> expected = List.of(
+                LoanRequestLog.builder().amount(new BigDecimal("123456789012345678901234.5"))
+                        .sentToCustomerTime(givenTime).build(),
+                LoanRequestLog.builder().amount(new BigDecimal("1E-200")).sentToCustomerTime(givenTime).build(),
+                LoanRequestLog.builder().amount(new BigDecimal("10.5")).sentToCustomerTime(givenTime).build());
+
+        expected.forEach(givenCache::add);
+
+        final List<LoanRequestLog> actual = givenCache.getByPeriod(givenTime.minusSeconds(1), givenTime.plusHours(1));
+        final LoanAmountAggregate actualAggregate = givenCache.aggregateByPeriod(givenTime.minusSeconds(1),
+                givenTime.plusHours(1));
+
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(actualAggregate.getCount()).isEqualTo(3);
+        assertThat(actualAggregate.getMax()).isEqualByComparingTo(new BigDecimal("123456789012345678901234.5"));
+    }
+
+    @DisplayName("Given logs out of epoch nanos range when get by unbounded period then get all logs back")
+    @ParameterizedTest
+    @EnumSource(LoanRequestLogStorage.class)
+    void getByPeriodWithExtremeTimesSuccess(final LoanRequestLogStorage givenStorage) {
+        final LoanRequestLogsCache givenCache = new LoanRequestLogsCache(givenStorage);
+        final List<LoanRequestLog> expected = List.of(
+                LoanRequestLog.builder().amount(new BigDecimal("10.5"))
+                        .sentToCustomerTime(LocalDateTime.of(1500, 1, 1, 10, 0)).build(),
+                LoanRequestLog.builder().amount(new BigDecimal("20.5"))
+                        .sentToCustomerTime(LocalDateTime.of(2020, 1, 1, 10, 0)).build(),
+                LoanRequestLog.builder().amount(new BigDecimal("30.5"))
+                        .sentToCustomerTime(LocalDateTime.of(3000, 1, 1, 10, 0)).build());
+
+        expected.forEach(givenCache::add);
+
+        final List<LoanRequestLog> actual = givenCache.getByPeriod(LocalDateTime.MIN, LocalDateTime.MAX);
+        final LoanAmountAggregate actualAggregate = givenCache.aggregateByPeriod(LocalDateTime.MIN,
+                LocalDateTime.MAX);
+        final List<LoanRequestLog> actualBounded = givenCache.getByPeriod(LocalDateTime.of(2020, 1, 1, 9, 0),
+                LocalDateTime.MAX);
+
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(actualAggregate.getCount()).isEqualTo(3);
+        assertThat(actualBounded).containsExactlyInAnyOrderElementsOf(expected.subList(1, 3));
+    }
+
+    @DisplayName("Given logs older than retention when evicted then statistics answered by whole hours")
+    @Test
+    void evictBeforeRollsUpHoursSuccess() {
+        final LocalDateTime givenTime = LocalDateTime.of(2020, 1, 1, 10, 0, 0);
+
+        IntStream.range(0, 180)
+                .mapToObj(index -> LoanRequestLog.builder().amount(new BigDecimal(index))
+                        .sentToCustomerTime(givenTime.plusMinutes(index)).build())
+                .forEach(log -> cache.add(log));
+
+        final int actualEvicted = cache.evictBefore(givenTime.plusHours(2).plusMinutes(30));
+
+        assertThat(actualEvicted).isEqualTo(120);
+        assertThat(cache.getByPeriod(givenTime.minusSeconds(1), givenTime.plusHours(2))).isEmpty();
+
+        final LoanAmountAggregate actual = cache.aggregateByPeriod(givenTime.plusMinutes(90),
+                givenTime.plusHours(2).plusMinutes(10).plusSeconds(1));
+
+        assertThat(actual.getCount()).isEqualTo(71);
+        assertThat(actual.getSum()).isEqualTo(new BigDecimal(IntStream.range(60, 131).sum()));
+        assertThat(actual.getMin()).isEqualTo(new BigDecimal(60));
+        assertThat(actual.getMax()).isEqualTo(new BigDecimal(130));
+    }
+}
@@ -0,0 +1,156 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.exception.CustomerIdException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoanRequestsCacheTest {
+
+    private LoanRequestsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LoanRequestsCache();
+    }
+
+    @DisplayName("Given pending request when add if absent then keep older request")
+    @Test
+    void addIfAbsentWithPendingRequestRejected() {
+        final LoanRequest given = createRequest("XX-XXXX-XXX", 1);
+        final LoanRequest givenDuplicate = createRequest("XX-XXXX-XXX", 2);
+
+        assertThat(cache.addIfAbsent(given)).isTrue();
+        assertThat(cache.addIfAbsent(givenDuplicate)).isFalse();
+
+        assertThat(cache.get("XX-XXXX-XXX")).isSameAs(given);
+    }
+
+    @DisplayName("Given removed request when add if absent then claim again")
+    @Test
+    void addIfAbsentAfterRemoveSuccess() {
+        final LoanRequest given = createRequest("XX-XXXX-XXX", 1);
+
+        cache.addIfAbsent(given);
+        cache.remove("XX-XXXX-XXX");
+
+        assertThat(cache.addIfAbsent(given)).isTrue();
+    }
+
+    @DisplayName("Given many threads when add if absent same customer then only one claim succeeds")
+    @Test
+    void addIfAbsentConcurrentlyOnlyOneSuccess() throws Exception {
+        final int givenThreads = 16;
+        final ExecutorService executor = Executors.newFixedThreadPool(givenThreads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<Boolean>> claims = IntStream.range(0, givenThreads)
+                    .mapToObj(index -> executor.submit(() -> {
+                        start.await();
+                        return cache.addIfAbsent(createRequest("XX-XXXX-XXX", index));
+                    }))
+                    .collect(Collectors.toList());
+            start.countDown();
+
+            int actual = 0;
+            for (final Future<Boolean> claim : claims) {
+                actual += claim.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(actual).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @DisplayName("Given pending requests of manager when get pending pages then pages follow customer id order")
+    @Test
+    void getPendingForManagerPagesSuccess() {
+        IntStream.range(0, 25).map(index -> 24 - index)
+                .mapToObj(index -> createRequest(String.format("XX-%04d-XXX", index), index, "aaa", "bbb"))
+                .forEach(cache::addIfAbsent);
+
+        final List<LoanRequest> actualFirst = cache.getPendingForManager("aaa", null, 10);
+        final List<LoanRequest> actualLast = cache.getPendingForManager("aaa", "XX-0019-XXX", 10);
+
+        assertThat(actualFirst).extracting(LoanRequest::getCustomerId)
+                .containsExactlyElementsOf(IntStream.range(0, 10).mapToObj(index -> String.format("XX-%04d-XXX", index))
+                        .collect(Collectors.toList()));
+        assertThat(actualLast).extracting(LoanRequest::getCustomerId)
+                .containsExactly("XX-0020-XXX", "XX-0021-XXX", "XX-0022-XXX", "XX-0023-XXX", "XX-0024-XXX");
+        assertThat(cache.getPendingForManager("ccc", null, 10)).isEmpty();
+    }
+
+    @DisplayName("Given approved and removed requests when get pending then manager index skips them")
+    @Test
+    void getPendingForManagerAfterApproveAndRemoveSuccess() {
+        final LoanRequest givenApproved = createRequest("XX-0001-XXX", 1, "aaa", "bbb");
+        final LoanRequest givenRemoved = createRequest("XX-0002-XXX", 2, "aaa");
+        final LoanRequest givenPending = createRequest("XX-0003-XXX", 3, "aaa", "bbb");
+        cache.addIfAbsent(givenApproved);
+        cache.addIfAbsent(givenRemoved);
+        cache.addIfAbsent(givenPending);
+
+        assertThat(cache.approve(givenApproved, "aaa")).isTrue();
+        assertThat(cache.approve(givenPending, "ccc")).isFalse();
+        cache.remove("XX-0002-XXX");
+
+        assertThat(cache.getPendingForManager("aaa", null, 10)).containsExactly(givenPending);
+        assertThat(cache.getPendingForManager("bbb", null, 10)).containsExactly(givenApproved, givenPending);
+    }
+
+    @DisplayName("Given customer ids differing in letter case when add then keep separate requests")
+    @Test
+    void addWithDifferentCaseCustomerIdsSuccess() {
+        final LoanRequest givenUpper = createRequest("AB-CDEF-XYZ", 1);
+        final LoanRequest givenLower = createRequest("ab-cdef-xyz", 2);
+
+        cache.add(givenUpper);
+        cache.add(givenLower);
+
+        assertThat(cache.get("AB-CDEF-XYZ")).isSameAs(givenUpper);
+        assertThat(cache.get("ab-cdef-xyz")).isSameAs(givenLower);
+        assertThat(cache.get("Ab-CDEF-XYZ")).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @DisplayName("Given malformed customer id when get or remove then nothing is found")
+    @Test
+    void getWithMalformedCustomerIdNotFound() {
+        cache.add(createRequest("XX-XXXX-XXX", 1));
+
+        cache.remove("XX-XXXX-XX!");
+
+        assertThat(cache.get("XX-XXXX-XX!")).isNull();
+        assertThat(cache.get("XX-XXXX-XXXX")).isNull();
+        assertThat(cache.get(null)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @DisplayName("Given malformed customer id when add then fail with customer id exception")
+    @Test
+    void addWithMalformedCustomerIdFail() {
+        assertThatThrownBy(() -> cache.addIfAbsent(createRequest("12-12345-12345", 1)))
+                .isInstanceOf(CustomerIdException.class)
+                .hasMessage("Customer id 12-12345-12345 does not match pattern 'XX-XXXX-XXX'.");
+        assertThat(cache.size()).isZero();
+    }
+
+    private LoanRequest createRequest(final String customerId, final int amount, final String... approvers) {
+        final LoanRequest request = new LoanRequest();
+        request.setCustomerId(customerId);
+        request.setAmount(new BigDecimal(amount));
+        request.setApprovers(Set.of(approvers));
+        return request;
+    }
+}
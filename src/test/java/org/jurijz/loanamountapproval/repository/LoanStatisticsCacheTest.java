@@ -0,0 +1,118 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoanStatisticsCacheTest {
+
+    private static final LocalDateTime PERIOD_START = LocalDateTime.of(2020, 11, 20, 10, 0, 0);
+    private static final LocalDateTime PERIOD_END = PERIOD_START.plusHours(1);
+
+    private LoanRequestLogsCache logsCache;
+    private LoanStatisticsCache cache;
+    private AtomicInteger computations;
+
+    @BeforeEach
+    void setUp() {
+        logsCache = new LoanRequestLogsCache();
+        cache = new LoanStatisticsCache(logsCache, 2);
+        computations = new AtomicInteger();
+    }
+
+    @DisplayName("Given cached period when get same period then statistics are not computed again")
+    @Test
+    void computeIfAbsentHit() {
+        final LoanApprovalStatistics expected = computeIfAbsent(PERIOD_START, PERIOD_END);
+
+        final LoanApprovalStatistics actual = computeIfAbsent(PERIOD_START, PERIOD_END);
+
+        assertThat(actual).isSameAs(expected);
+        assertThat(computations).hasValue(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @DisplayName("Given cached periods when log lands inside one of them then only that period is computed again")
+    @Test
+    void logAddedInvalidatesContainingPeriod() {
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+        computeIfAbsent(PERIOD_END.plusSeconds(1), PERIOD_END.plusHours(1));
+
+        logsCache.add(new LoanRequestLog(BigDecimal.TEN, PERIOD_END));
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+        computeIfAbsent(PERIOD_END.plusSeconds(1), PERIOD_END.plusHours(1));
+
+        assertThat(computations).hasValue(3);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @DisplayName("Given log added after every cached period when get cached period then it stays cached")
+    @Test
+    void logAddedAfterPeriodsKeepsCache() {
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+
+        logsCache.add(new LoanRequestLog(BigDecimal.TEN, PERIOD_END.plusNanos(1)));
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+
+        assertThat(computations).hasValue(1);
+    }
+
+    @DisplayName("Given log added while period is computed when get period again then stale result is not cached")
+    @Test
+    void logAddedDuringComputationSkipsCaching() {
+        cache.computeIfAbsent(PERIOD_START, PERIOD_END, () -> {
+            logsCache.add(new LoanRequestLog(BigDecimal.TEN, PERIOD_START));
+            return compute();
+        });
+
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+
+        assertThat(computations).hasValue(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @DisplayName("Given cached period when its hour is rolled up then period is computed again")
+    @Test
+    void logsRolledUpInvalidatesPeriod() {
+        logsCache.add(new LoanRequestLog(BigDecimal.TEN, PERIOD_START.plusMinutes(1)));
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+
+        logsCache.evictBefore(PERIOD_END.plusHours(1));
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+
+        assertThat(computations).hasValue(2);
+    }
+
+    @DisplayName("Given more periods than cache size when get least recently used period then it is computed again")
+    @Test
+    void computeIfAbsentEvictsLeastRecentlyUsed() {
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+        computeIfAbsent(PERIOD_START, PERIOD_END.plusHours(1));
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+        computeIfAbsent(PERIOD_START, PERIOD_END.plusHours(2));
+
+        computeIfAbsent(PERIOD_START, PERIOD_END);
+        computeIfAbsent(PERIOD_START, PERIOD_END.plusHours(1));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(computations).hasValue(4);
+    }
+
+    private LoanApprovalStatistics computeIfAbsent(final LocalDateTime periodStart, final LocalDateTime periodEnd) {
+        return cache.computeIfAbsent(periodStart, periodEnd, this::compute);
+    }
+
+    private LoanApprovalStatistics compute() {
+        computations.incrementAndGet();
+        return new LoanApprovalStatistics();
+    }
+}
@@ -0,0 +1,111 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongKeyedMapTest {
+
+    private LongKeyedMap<String> map;
+
+    @BeforeEach
+    void setUp() {
+        map = new LongKeyedMap<>();
+    }
+
+    @DisplayName("Given random puts and removes when compared with hash map then get same entries")
+    @Test
+    void putAndRemoveMatchesHashMapSuccess() {
+        final Random random = new Random(42);
+        final Map<Long, String> expected = new HashMap<>();
+        for (int operation = 0; operation < 200_000; operation++) {
+            final long givenKey = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(givenKey)).isEqualTo(expected.remove(givenKey));
+            } else {
+                assertThat(map.put(givenKey, "v" + operation)).isEqualTo(expected.put(givenKey, "v" + operation));
+            }
+        }
+
+        final List<String> actual = new ArrayList<>();
+        map.forEachValue(actual::add);
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected.values());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+
+    @DisplayName("Given present key when put if absent then keep existing value")
+    @Test
+    void putIfAbsentWithPresentKeyRejected() {
+        assertThat(map.putIfAbsent(7L, "first")).isNull();
+        assertThat(map.putIfAbsent(7L, "second")).isEqualTo("first");
+
+        assertThat(map.get(7L)).isEqualTo("first");
+        assertThat(map.get(-7L)).isNull();
+    }
+
+    @DisplayName("Given readers while writers grow and shrink map when get then stable keys are always found")
+    @Test
+    void getWhileWritingSuccess() throws Exception {
+        final int givenStableKeys = 1_000;
+        IntStream.range(0, givenStableKeys).forEach(key -> map.put(key, "stable" + key));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<Integer>> readers = IntStream.range(0, 2)
+                    .mapToObj(index -> executor.submit(() -> {
+                        start.await();
+                        int misses = 0;
+                        for (int round = 0; round < 200; round++) {
+                            for (int key = 0; key < givenStableKeys; key++) {
+                                misses += ("stable" + key).equals(map.get(key)) ? 0 : 1;
+                            }
+                        }
+                        return misses;
+                    }))
+                    .collect(Collectors.toList());
+            final List<Future<Integer>> writers = IntStream.range(0, 2)
+                    .mapToObj(index -> executor.submit(() -> {
+                        start.await();
+                        final long offset = (index + 1) * 1_000_000L;
+                        for (int round = 0; round < 20; round++) {
+                            for (long key = offset; key < offset + 10_000; key++) {
+                                map.put(key, "moving");
+                            }
+                            for (long key = offset; key < offset + 10_000; key++) {
+                                map.remove(key);
+                            }
+                        }
+                        return 0;
+                    }))
+                    .collect(Collectors.toList());
+            start.countDown();
+
+            for (final Future<Integer> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            for (final Future<Integer> reader : readers) {
+                assertThat(reader.get(30, TimeUnit.SECONDS)).isZero();
+            }
+            assertThat(map.size()).isEqualTo(givenStableKeys);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
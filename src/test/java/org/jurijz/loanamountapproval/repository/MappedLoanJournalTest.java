@@ -0,0 +1,196 @@
+package org.jurijz.loanamountapproval.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.mockito.InOrder;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MappedLoanJournalTest {
+
+    private static final int SEGMENT_SIZE = 128 * 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(10);
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("Given appended records when reopen journal then replay them in append order")
+    @Test
+    void replayAfterReopenSuccess() throws Exception {
+        final LoanRequest givenRequest = new LoanRequest();
+        givenRequest.setCustomerId("11-1111-111");
+        givenRequest.setAmount(new BigDecimal("-12345678901234567890.125"));
+        givenRequest.setApprovers(Set.of("aaa", "bbb"));
+        final LoanRequestLog givenLog = new LoanRequestLog(new BigDecimal("10.50"),
+                LocalDateTime.of(2021, 3, 4, 5, 6, 7, 890));
+
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.requestAdded(givenRequest);
+            journal.requestApproved("11-1111-111", "bbb");
+            journal.logAdded(givenLog);
+            journal.requestRemoved("11-1111-111");
+        }
+
+        final LoanJournal actual = mock(LoanJournal.class);
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.replay(actual);
+        }
+
+        final InOrder inOrder = inOrder(actual);
+        inOrder.verify(actual).requestAdded(givenRequest);
+        inOrder.verify(actual).requestApproved("11-1111-111", "bbb");
+        inOrder.verify(actual).logAdded(givenLog);
+        inOrder.verify(actual).requestRemoved("11-1111-111");
+        verifyNoMoreInteractions(actual);
+    }
+
+    @DisplayName("Given value longer than record when append then fail and keep journal readable")
+    @Test
+    void appendTooLongValueFail() throws Exception {
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.requestApproved("11-1111-111", "aaa");
+            assertThatThrownBy(() -> journal.requestApproved("11-1111-111", "b".repeat(70_000)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            journal.requestRemoved("11-1111-111");
+        }
+
+        final LoanJournal actual = mock(LoanJournal.class);
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.replay(actual);
+        }
+
+        final InOrder inOrder = inOrder(actual);
+        inOrder.verify(actual).requestApproved("11-1111-111", "aaa");
+        inOrder.verify(actual).requestRemoved("11-1111-111");
+        verifyNoMoreInteractions(actual);
+    }
+
+    @DisplayName("Given more records than segment fits when append then roll to next segment and replay all")
+    @Test
+    void appendOverSegmentSizeRollsSegment() throws Exception {
+        final int given = 10_000;
+
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            for (int index = 0; index < given; index++) {
+                journal.requestRemoved(String.format("%02d-%04d-%03d", index % 100, index, index % 1000));
+            }
+        }
+
+        final LoanJournal actual = mock(LoanJournal.class);
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.replay(actual);
+        }
+
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments.count()).isGreaterThan(1);
+        }
+        verify(actual, times(given)).requestRemoved(any());
+        verify(actual).requestRemoved("99-9999-999");
+    }
+
+    @DisplayName("Given appends from many threads when replay then every record is replayed intact")
+    @Test
+    void appendConcurrentlySuccess() throws Exception {
+        final int givenThreads = 4;
+        final int givenPerThread = 5_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(givenThreads);
+
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            final List<Future<?>> futures = IntStream.range(0, givenThreads)
+                    .mapToObj(thread -> executor.submit(() -> {
+                        for (int index = 0; index < givenPerThread; index++) {
+                            journal.requestRemoved(String.format("%02d-%04d-%03d", thread, index, index % 1000));
+                        }
+                    }))
+                    .collect(Collectors.toList());
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            journal.flush();
+
+            assertThat(journal.isHealthy()).isTrue();
+            assertThat(journal.getFlushFailureCount()).isZero();
+        } finally {
+            executor.shutdown();
+        }
+
+        final LoanJournal actual = mock(LoanJournal.class);
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.replay(actual);
+        }
+
+        verify(actual, times(givenThreads * givenPerThread)).requestRemoved(any());
+        verify(actual).requestRemoved("03-4999-999");
+    }
+
+    @DisplayName("Given checkpoint when append more then replay closed segments without later records")
+    @Test
+    void checkpointSeparatesClosedSegments() throws Exception {
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.requestRemoved("11-1111-111");
+            final long givenCheckpoint = journal.checkpoint();
+            journal.requestRemoved("22-2222-222");
+
+            final LoanJournal actualClosed = mock(LoanJournal.class);
+            journal.replayClosed(actualClosed, 0, givenCheckpoint);
+            final LoanJournal actualTail = mock(LoanJournal.class);
+            journal.replay(actualTail, givenCheckpoint);
+
+            assertThat(givenCheckpoint).isEqualTo(1);
+            assertThat(journal.checkpoint()).isEqualTo(2);
+            verify(actualClosed).requestRemoved("11-1111-111");
+            verifyNoMoreInteractions(actualClosed);
+            verify(actualTail).requestRemoved("22-2222-222");
+            verifyNoMoreInteractions(actualTail);
+        }
+    }
+
+    @DisplayName("Given torn last record when reopen journal then discard it and append after valid records")
+    @Test
+    void reopenWithTornRecordDiscardsIt() throws Exception {
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.requestRemoved("11-1111-111");
+            journal.requestRemoved("22-2222-222");
+        }
+        try (Stream<Path> segments = Files.list(directory);
+             RandomAccessFile file = new RandomAccessFile(segments.findFirst().orElseThrow().toFile(), "rw")) {
+            final long secondRecordPayload = 22 + 8;
+            file.seek(secondRecordPayload + 5);
+            file.write('X');
+        }
+
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.requestRemoved("33-3333-333");
+        }
+        final LoanJournal actual = mock(LoanJournal.class);
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            journal.replay(actual);
+        }
+
+        final InOrder inOrder = inOrder(actual);
+        inOrder.verify(actual).requestRemoved("11-1111-111");
+        inOrder.verify(actual).requestRemoved("33-3333-333");
+        verifyNoMoreInteractions(actual);
+    }
+}
@@ -0,0 +1,67 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class LoanClusterRingTest {
+
+    private static final List<String> CUSTOMER_IDS = IntStream.range(0, 30_000)
+            .mapToObj(index -> String.format("%02d-%04d-%03d", index % 100, index / 100, index % 1000))
+            .collect(Collectors.toList());
+
+    @DisplayName("Given three nodes when find owners then customers are spread evenly")
+    @Test
+    void ownerOfSpreadsEvenly() {
+        final LoanClusterRing given = new LoanClusterRing(List.of("a:8080", "b:8080", "c:8080"), 128);
+
+        final Map<String, Long> actual = CUSTOMER_IDS.stream()
+                .collect(Collectors.groupingBy(given::ownerOf, Collectors.counting()));
+
+        assertThat(actual).containsOnlyKeys("a:8080", "b:8080", "c:8080");
+        actual.values().forEach(count -> assertThat(count).isCloseTo(10_000L, withinPercentage(15)));
+    }
+
+    @DisplayName("Given node added when find owners then only customers of the new node move")
+    @Test
+    void ownerOfMovesOnlyToAddedNode() {
+        final LoanClusterRing given = new LoanClusterRing(List.of("a:8080", "b:8080", "c:8080"), 128);
+        final LoanClusterRing updated = new LoanClusterRing(List.of("a:8080", "b:8080", "c:8080", "d:8080"), 128);
+
+        final Map<String, String> before = CUSTOMER_IDS.stream()
+                .collect(Collectors.toMap(Function.identity(), given::ownerOf));
+        final List<String> moved = CUSTOMER_IDS.stream()
+                .filter(customerId -> !updated.ownerOf(customerId).equals(before.get(customerId)))
+                .collect(Collectors.toList());
+
+        assertThat(moved).allMatch(customerId -> updated.ownerOf(customerId).equals("d:8080"));
+        assertThat((double) moved.size()).isCloseTo(CUSTOMER_IDS.size() / 4.0, withinPercentage(15));
+    }
+
+    @DisplayName("Given the same nodes in other order when find owners then owners are equal")
+    @Test
+    void ownerOfDoesNotDependOnNodesOrder() {
+        final LoanClusterRing given = new LoanClusterRing(List.of("a:8080", "b:8080", "c:8080"), 128);
+        final LoanClusterRing reordered = new LoanClusterRing(List.of("c:8080", "a:8080", "b:8080"), 128);
+
+        assertThat(CUSTOMER_IDS).allMatch(customerId -> given.ownerOf(customerId).equals(reordered.ownerOf(customerId)));
+        assertThat(reordered.getNodes()).containsExactly("a:8080", "b:8080", "c:8080");
+    }
+
+    @DisplayName("Given no nodes when create ring then throw exception")
+    @Test
+    void createWithoutNodesFail() {
+        assertThatThrownBy(() -> new LoanClusterRing(List.of(), 128))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cluster must have at least one node.");
+    }
+}
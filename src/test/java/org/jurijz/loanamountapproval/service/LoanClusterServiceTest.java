@@ -0,0 +1,272 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.converter.LoanRequestConverter;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
+import org.jurijz.loanamountapproval.domain.dto.NotificationToCustomerDto;
+import org.jurijz.loanamountapproval.exception.ClusterNodeException;
+import org.jurijz.loanamountapproval.exception.ManagerApprovalException;
+import org.jurijz.loanamountapproval.repository.LoanJournal;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LoanClusterServiceTest {
+
+    private static final List<String> NODES = List.of("a:8080", "b:8080", "c:8080");
+    private static final int VIRTUAL_NODES = 128;
+
+    private final Map<String, LoanRequestsCache> caches = new LinkedHashMap<>();
+    private final Map<String, LoanRequestLogsCache> logsCaches = new LinkedHashMap<>();
+    private final Map<String, LoanClusterService> services = new LinkedHashMap<>();
+    private final List<PartitionedBatchExecutor> batchExecutors = new ArrayList<>();
+    private final List<CustomerShardExecutor> shardExecutors = new ArrayList<>();
+    private LoopbackLoanClusterTransport transport;
+
+    @Mock
+    private LoanExternalService loanExternalService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transport = new LoopbackLoanClusterTransport();
+        NODES.forEach(this::startNode);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchExecutors.forEach(PartitionedBatchExecutor::shutdown);
+        shardExecutors.forEach(CustomerShardExecutor::shutdown);
+    }
+
+    @DisplayName("Given batch sent to one node when process requests then every request is kept by its owner")
+    @Test
+    void processRequestsOnOwnersSuccess() {
+        final List<LoanRequestDto> given = createRequests(300);
+        final LoanClusterRing ring = new LoanClusterRing(NODES, VIRTUAL_NODES);
+
+        final List<LoanRequestResultDto> actual = services.get("a:8080").processRequests(given);
+
+        assertThat(actual).extracting(LoanRequestResultDto::getCustomerId)
+                .containsExactlyElementsOf(given.stream().map(LoanRequestDto::getCustomerId)
+                        .collect(Collectors.toList()));
+        assertThat(actual).allMatch(result -> result.getStatus() == LoanRequestResultDto.Status.ACCEPTED);
+        caches.forEach((node, cache) -> assertThat(cache.getAll())
+                .isNotEmpty()
+                .allMatch(request -> ring.ownerOf(request.getCustomerId()).equals(node)));
+        assertThat(caches.values().stream().mapToInt(LoanRequestsCache::size).sum()).isEqualTo(given.size());
+    }
+
+    @DisplayName("Given pending requests when approve through other nodes then requests are completed by owners")
+    @Test
+    void approveRequestsThroughOtherNodesSuccess() {
+        final List<LoanRequestDto> given = createRequests(100);
+        services.get("a:8080").processRequests(given);
+
+        final List<ManagerApprovalResultDto> actual = services.get("b:8080").approveRequests(given.stream()
+                .map(request -> createApproval("aaa", request.getCustomerId()))
+                .collect(Collectors.toList()));
+        given.forEach(request -> services.get("c:8080").approveRequest(createApproval("bbb",
+                request.getCustomerId())));
+
+        assertThat(actual).allMatch(result -> result.getStatus() == ManagerApprovalResultDto.Status.APPROVED);
+        assertThat(caches.values()).allMatch(cache -> cache.size() == 0);
+        verify(loanExternalService, times(given.size())).sendToCustomer(any(NotificationToCustomerDto.class));
+    }
+
+    @DisplayName("Given approval of unknown customer when approve through other node then throw owner exception")
+    @Test
+    void approveRequestThroughOtherNodeFail() {
+        final String givenCustomerId = IntStream.range(0, 100)
+                .mapToObj(this::createCustomerId)
+                .filter(customerId -> !new LoanClusterRing(NODES, VIRTUAL_NODES).ownerOf(customerId)
+                        .equals("a:8080"))
+                .findFirst()
+                .orElseThrow();
+
+        assertThatThrownBy(() -> services.get("a:8080").approveRequest(createApproval("aaa", givenCustomerId)))
+                .isInstanceOf(ManagerApprovalException.class)
+                .hasMessage(String.format("There is no pending request for customer %s.", givenCustomerId));
+    }
+
+    @DisplayName("Given node added when update nodes then moved requests keep approvals on their new owner")
+    @Test
+    void updateNodesHandsOverRequestsSuccess() {
+        final List<LoanRequestDto> given = createRequests(400);
+        services.get("a:8080").processRequests(given);
+        services.get("a:8080").approveRequests(given.stream()
+                .map(request -> createApproval("aaa", request.getCustomerId()))
+                .collect(Collectors.toList()));
+        final List<String> updatedNodes = List.of("a:8080", "b:8080", "c:8080", "d:8080");
+        startNode("d:8080");
+        final LoanClusterRing ring = new LoanClusterRing(updatedNodes, VIRTUAL_NODES);
+
+        final int moved = NODES.stream().mapToInt(node -> services.get(node).updateNodes(updatedNodes)).sum();
+        services.get("d:8080").updateNodes(updatedNodes);
+
+        assertThat(moved).isEqualTo(caches.get("d:8080").size()).isBetween(60, 140);
+        caches.forEach((node, cache) -> assertThat(cache.getAll())
+                .allMatch(request -> ring.ownerOf(request.getCustomerId()).equals(node))
+                .allMatch(request -> request.isApproved("aaa") && !request.isApproved("bbb")));
+        assertThat(caches.values().stream().mapToInt(LoanRequestsCache::size).sum()).isEqualTo(given.size());
+
+        final LoanRequest movedRequest = caches.get("d:8080").getAll().get(0);
+        services.get("a:8080").approveRequest(createApproval("bbb", movedRequest.getCustomerId()));
+
+        assertThat(caches.get("d:8080").get(movedRequest.getCustomerId())).isNull();
+    }
+
+    @DisplayName("Given unreachable new node when update nodes then requests are kept locally with approvals")
+    @Test
+    void updateNodesWithUnreachableNodeKeepsRequests() {
+        final List<LoanRequestDto> given = createRequests(400);
+        services.get("a:8080").processRequests(given);
+        services.get("a:8080").approveRequests(given.stream()
+                .map(request -> createApproval("aaa", request.getCustomerId()))
+                .collect(Collectors.toList()));
+        final List<String> updatedNodes = List.of("a:8080", "b:8080", "c:8080", "d:8080");
+
+        final int moved = NODES.stream().mapToInt(node -> services.get(node).updateNodes(updatedNodes)).sum();
+
+        assertThat(moved).isZero();
+        assertThat(caches.values().stream().mapToInt(LoanRequestsCache::size).sum()).isEqualTo(given.size());
+        caches.forEach((node, cache) -> assertThat(cache.getAll())
+                .allMatch(request -> request.isApproved("aaa") && !request.isApproved("bbb")));
+
+        startNode("d:8080");
+        final int movedLater = NODES.stream().mapToInt(node -> services.get(node).updateNodes(updatedNodes)).sum();
+
+        assertThat(movedLater).isEqualTo(caches.get("d:8080").size()).isPositive();
+    }
+
+    @DisplayName("Given unreachable node when process requests then its requests are backlogged")
+    @Test
+    void processRequestsWithUnreachableNodeBacklogged() {
+        final List<LoanRequestDto> given = createRequests(60);
+        final LoanClusterRing ring = new LoanClusterRing(NODES, VIRTUAL_NODES);
+        transport.unregister("c:8080");
+
+        final List<LoanRequestResultDto> actual = services.get("a:8080").processRequests(given);
+
+        assertThat(actual).allMatch(result -> result.getStatus() == (ring.ownerOf(result.getCustomerId())
+                .equals("c:8080") ? LoanRequestResultDto.Status.BACKLOGGED : LoanRequestResultDto.Status.ACCEPTED));
+        assertThat(actual).anyMatch(result -> result.getStatus() == LoanRequestResultDto.Status.BACKLOGGED);
+    }
+
+    @DisplayName("Given unreachable node when approve requests then its approvals are backlogged")
+    @Test
+    void approveRequestsWithUnreachableNodeBacklogged() {
+        final List<LoanRequestDto> given = createRequests(60);
+        final LoanClusterRing ring = new LoanClusterRing(NODES, VIRTUAL_NODES);
+        services.get("a:8080").processRequests(given);
+        transport.unregister("c:8080");
+
+        final List<ManagerApprovalResultDto> actual = services.get("a:8080").approveRequests(given.stream()
+                .map(request -> createApproval("aaa", request.getCustomerId()))
+                .collect(Collectors.toList()));
+
+        assertThat(actual).allMatch(result -> result.getStatus() == (ring.ownerOf(result.getCustomerId())
+                .equals("c:8080") ? ManagerApprovalResultDto.Status.BACKLOGGED
+                : ManagerApprovalResultDto.Status.APPROVED));
+        assertThat(actual).anyMatch(result -> result.getStatus() == ManagerApprovalResultDto.Status.BACKLOGGED);
+    }
+
+    @DisplayName("Given logs spread over nodes when aggregate logs then get same aggregate as of all logs together")
+    @Test
+    void aggregateLogsOfAllNodesSuccess() {
+        final LocalDateTime givenTime = LocalDateTime.of(2020, 1, 1, 0, 0, 0);
+        final LoanRequestLogsCache allLogs = new LoanRequestLogsCache();
+        final List<LoanRequestLogsCache> nodeLogs = List.copyOf(logsCaches.values());
+        IntStream.range(0, 600).mapToObj(index -> LoanRequestLog.builder().amount(new BigDecimal(index * 7 % 1000))
+                .sentToCustomerTime(givenTime.plusSeconds(index)).build())
+                .forEach(log -> {
+                    allLogs.add(log);
+                    nodeLogs.get(log.getAmount().intValue() % nodeLogs.size()).add(log);
+                });
+        final LocalDateTime givenStart = givenTime.plusMinutes(1);
+        final LocalDateTime givenEnd = givenTime.plusMinutes(8);
+
+        final LoanAmountAggregate actual = services.get("b:8080").aggregateLogs(givenStart, givenEnd);
+        final LoanAmountAggregate expected = allLogs.aggregateByPeriod(givenStart, givenEnd);
+
+        assertThat(actual.getCount()).isEqualTo(expected.getCount()).isGreaterThan(400);
+        assertThat(actual.getSum()).isEqualByComparingTo(expected.getSum());
+        assertThat(actual.getMin()).isEqualByComparingTo(expected.getMin());
+        assertThat(actual.getMax()).isEqualByComparingTo(expected.getMax());
+        assertThat(actual.getPercentile(0.5)).isEqualByComparingTo(expected.getPercentile(0.5));
+        assertThat(actual.getPercentile(0.99)).isEqualByComparingTo(expected.getPercentile(0.99));
+    }
+
+    @DisplayName("Given unreachable node when aggregate logs then throw cluster node exception")
+    @Test
+    void aggregateLogsWithUnreachableNodeFail() {
+        transport.unregister("c:8080");
+
+        assertThatThrownBy(() -> services.get("a:8080").aggregateLogs(null, LocalDateTime.now()))
+                .isInstanceOf(ClusterNodeException.class)
+                .hasMessage("Node c:8080 is not reachable, retry later.");
+    }
+
+    private void startNode(final String node) {
+        final LoanRequestsCache cache = new LoanRequestsCache();
+        final LoanRequestLogsCache logsCache = new LoanRequestLogsCache();
+        final PartitionedBatchExecutor batchExecutor = new PartitionedBatchExecutor(1, 1, false);
+        final CustomerShardExecutor shardExecutor = new CustomerShardExecutor(2, false);
+        batchExecutors.add(batchExecutor);
+        shardExecutors.add(shardExecutor);
+        final LoanRequestService loanRequestService = new LoanRequestService(cache, logsCache,
+                new LoanRequestConverter(), loanExternalService, batchExecutor, shardExecutor, LoanJournal.NONE);
+        caches.put(node, cache);
+        logsCaches.put(node, logsCache);
+        services.put(node, new LoanClusterService(loanRequestService, cache, logsCache, transport, node, NODES,
+                VIRTUAL_NODES));
+        transport.register(node, loanRequestService, logsCache);
+    }
+
+    private List<LoanRequestDto> createRequests(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(index -> LoanRequestDto.builder()
+                        .customerId(createCustomerId(index))
+                        .amount(new BigDecimal(index + 1))
+                        .approvers(Set.of("aaa", "bbb"))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private String createCustomerId(final int index) {
+        return String.format("XX-%04d-XXX", index);
+    }
+
+    private ManagerApprovalDto createApproval(final String username, final String customerId) {
+        final ManagerApprovalDto approval = new ManagerApprovalDto();
+        approval.setUsername(username);
+        approval.setCustomerId(customerId);
+        return approval;
+    }
+}
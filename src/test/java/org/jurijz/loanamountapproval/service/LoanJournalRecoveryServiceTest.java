@@ -0,0 +1,106 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jurijz.loanamountapproval.domain.LoanAmountAggregate;
+import org.jurijz.loanamountapproval.domain.LoanRequest;
+import org.jurijz.loanamountapproval.domain.LoanRequestLog;
+import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanSnapshotStore;
+import org.jurijz.loanamountapproval.repository.MappedLoanJournal;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoanJournalRecoveryServiceTest {
+
+    private static final int SEGMENT_SIZE = 128 * 1024;
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(10);
+    private static final long RETENTION_HOURS = 24;
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("Given snapshot and later records when recover then restore caches from snapshot and journal tail")
+    @Test
+    void recoverFromSnapshotAndTailSuccess() throws Exception {
+        final LocalDateTime givenTime = LocalDateTime.now().withNano(0);
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            final LoanJournalRecoveryService service = createService(journal, new LoanRequestsCache(),
+                    new LoanRequestLogsCache());
+            journal.requestAdded(createRequest("11-1111-111", "aaa", "bbb"));
+            journal.requestAdded(createRequest("22-2222-222", "aaa"));
+            journal.requestApproved("11-1111-111", "aaa");
+            journal.logAdded(new LoanRequestLog(BigDecimal.TEN, givenTime.minusHours(RETENTION_HOURS * 2)));
+            journal.logAdded(new LoanRequestLog(BigDecimal.ONE, givenTime));
+            service.takeSnapshot();
+            journal.requestApproved("22-2222-222", "aaa");
+            journal.requestRemoved("22-2222-222");
+            journal.logAdded(new LoanRequestLog(BigDecimal.ONE, givenTime.plusSeconds(1)));
+        }
+
+        final LoanRequestsCache actualRequests = new LoanRequestsCache();
+        final LoanRequestLogsCache actualLogs = new LoanRequestLogsCache();
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            createService(journal, actualRequests, actualLogs).recover();
+        }
+
+        assertThat(actualRequests.getAll()).hasSize(1);
+        assertThat(actualRequests.get("11-1111-111").isApproved("aaa")).isTrue();
+        assertThat(actualRequests.get("11-1111-111").isApproved("bbb")).isFalse();
+        assertThat(actualRequests.getPendingForManager("aaa", null, 10)).isEmpty();
+        assertThat(actualRequests.getPendingForManager("bbb", null, 10)).hasSize(1);
+        assertThat(actualLogs.getLogCount()).isEqualTo(2);
+        final LoanAmountAggregate actualAggregate = actualLogs.aggregateByPeriod(
+                givenTime.minusHours(RETENTION_HOURS * 3), givenTime.plusMinutes(1));
+        assertThat(actualAggregate.getCount()).isEqualTo(3);
+        assertThat(actualAggregate.getSum()).isEqualByComparingTo("12");
+    }
+
+    @DisplayName("Given compacted journal when take snapshot then delete covered segments and keep the latest snapshot")
+    @Test
+    void takeSnapshotDeletesCoveredSegments() throws Exception {
+        try (MappedLoanJournal journal = new MappedLoanJournal(directory, SEGMENT_SIZE, FLUSH_INTERVAL)) {
+            final LoanJournalRecoveryService service = createService(journal, new LoanRequestsCache(),
+                    new LoanRequestLogsCache());
+            journal.requestAdded(createRequest("11-1111-111", "aaa"));
+            service.takeSnapshot();
+            journal.requestAdded(createRequest("22-2222-222", "aaa"));
+            service.takeSnapshot();
+            service.takeSnapshot();
+        }
+
+        final List<String> actual;
+        try (Stream<Path> files = Files.list(directory)) {
+            actual = files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+
+        assertThat(actual).containsExactly("journal-00000000000000000002.log", "snapshot-00000000000000000002.bin");
+    }
+
+    private LoanJournalRecoveryService createService(final MappedLoanJournal journal,
+                                                     final LoanRequestsCache requestsCache,
+                                                     final LoanRequestLogsCache logsCache) throws Exception {
+        return new LoanJournalRecoveryService(journal, new LoanSnapshotStore(directory), requestsCache, logsCache,
+                RETENTION_HOURS);
+    }
+
+    private LoanRequest createRequest(final String customerId, final String... approvers) {
+        final LoanRequest loanRequest = new LoanRequest();
+        loanRequest.setCustomerId(customerId);
+        loanRequest.setAmount(BigDecimal.ONE);
+        loanRequest.setApprovers(Set.of(approvers));
+        return loanRequest;
+    }
+}
@@ -1,52 +1,74 @@
 package org.jurijz.loanamountapproval.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.jurijz.loanamountapproval.converter.LoanRequestConverter;
-import org.jurijz.loanamountapproval.converter.ManagerApprovalConverter;
 import org.jurijz.loanamountapproval.domain.LoanRequest;
 import org.jurijz.loanamountapproval.domain.LoanRequestLog;
 import org.jurijz.loanamountapproval.domain.ManagerApproval;
 import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
 import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalDto;
+import org.jurijz.loanamountapproval.domain.dto.ManagerApprovalResultDto;
 import org.jurijz.loanamountapproval.domain.dto.NotificationToCustomerDto;
-import org.jurijz.loanamountapproval.domain.dto.NotificationToManagerDto;
-import org.jurijz.loanamountapproval.exception.CustomerLoanApprovalException;
 import org.jurijz.loanamountapproval.exception.ManagerApprovalException;
+import org.jurijz.loanamountapproval.exception.NotificationBacklogException;
+import org.jurijz.loanamountapproval.repository.LoanJournal;
 import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
 import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 class LoanRequestServiceTest {
 
     private LoanRequestService service;
     private LoanRequestsCache cache;
+    private PartitionedBatchExecutor batchExecutor;
+    private CustomerShardExecutor shardExecutor;
 
     @Mock
     private LoanRequestLogsCache loanRequestLogsCache;
     @Mock
     private LoanExternalService loanExternalService;
+    @Mock
+    private LoanJournal loanJournal;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
         cache = new LoanRequestsCache();
-        final LoanRequestConverter loanRequestConverter = new LoanRequestConverter(new ManagerApprovalConverter());
-        service = new LoanRequestService(cache, loanRequestLogsCache, loanRequestConverter, loanExternalService);
+        final LoanRequestConverter loanRequestConverter = new LoanRequestConverter();
+        batchExecutor = new PartitionedBatchExecutor(1, 1, false);
+        shardExecutor = new CustomerShardExecutor(2, false);
+        service = new LoanRequestService(cache, loanRequestLogsCache, loanRequestConverter, loanExternalService,
+                batchExecutor, shardExecutor, loanJournal);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchExecutor.shutdown();
+        shardExecutor.shutdown();
     }
 
     @DisplayName("Given request dtos when process request then save to cache and send to managers")
@@ -71,12 +93,12 @@ class LoanRequestServiceTest {
 
         assertThat(actual).isEqualTo(expected);
 
-        verify(loanExternalService, times(12)).sendToManager(any(NotificationToManagerDto.class));
+        verify(loanExternalService, times(4)).sendToManagers(argThat(notifications -> notifications.size() == 3));
         verifyNoMoreInteractions(loanRequestLogsCache, loanExternalService);
 
     }
 
-    @DisplayName("Given request which is already pending when process request then throw exception")
+    @DisplayName("Given request which is already pending when process request then reject duplicate")
     @Test
     void processRequestWithPendingRequestFail() {
         final String givenCustomerId = "XX-XXXX-XXX";
@@ -92,18 +114,100 @@ class LoanRequestServiceTest {
         expected.setCustomerId(givenCustomerId);
         expected.setManagerApprovals(Set.of(new ManagerApproval("aaa", false)));
 
-        assertThatThrownBy(() -> service.processRequests(givenRequests))
-                .isInstanceOf(CustomerLoanApprovalException.class)
-                .hasMessageContaining("There are still pending requests for customers:");
+        final List<LoanRequestResultDto> actualResults = service.processRequests(givenRequests);
+
+        assertThat(actualResults).extracting(LoanRequestResultDto::getStatus)
+                .containsExactly(LoanRequestResultDto.Status.ACCEPTED, LoanRequestResultDto.Status.REJECTED);
+        assertThat(actualResults.get(1).getReason()).isEqualTo("There is still pending request for customer.");
 
         final LoanRequest actual = cache.get(givenCustomerId);
 
         assertThat(actual).isEqualTo(expected);
 
-        verify(loanExternalService, times(1)).sendToManager(any(NotificationToManagerDto.class));
+        verify(loanExternalService, times(1)).sendToManagers(anyList());
         verifyNoMoreInteractions(loanRequestLogsCache, loanExternalService);
     }
 
+    @DisplayName("Given batch with requests without approvers when process requests then reject only them")
+    @Test
+    void processRequestsWithNullApproversFail() {
+        final List<LoanRequestDto> givenRequests = List.of(
+                LoanRequestDto.builder().customerId("XX-XXXX-XX1").amount(BigDecimal.ONE)
+                        .approvers(Set.of("aaa")).build(),
+                LoanRequestDto.builder().customerId("XX-XXXX-XX2").amount(BigDecimal.ONE).build(),
+                LoanRequestDto.builder().customerId("XX-XXXX-XX3").amount(BigDecimal.ONE)
+                        .approvers(new HashSet<>(Arrays.asList("aaa", null))).build(),
+                LoanRequestDto.builder().customerId("XX-XXXX-XX4").amount(BigDecimal.ONE)
+                        .approvers(Set.of("aaa")).build());
+
+        final List<LoanRequestResultDto> actual = service.processRequests(givenRequests);
+
+        assertThat(actual).extracting(LoanRequestResultDto::getCustomerId, LoanRequestResultDto::getStatus,
+                LoanRequestResultDto::getReason)
+                .containsExactly(tuple("XX-XXXX-XX1", LoanRequestResultDto.Status.ACCEPTED, null),
+                        tuple("XX-XXXX-XX2", LoanRequestResultDto.Status.REJECTED, "Approvers cannot be null."),
+                        tuple("XX-XXXX-XX3", LoanRequestResultDto.Status.REJECTED,
+                                "Approver username cannot be null."),
+                        tuple("XX-XXXX-XX4", LoanRequestResultDto.Status.ACCEPTED, null));
+        assertThat(cache.get("XX-XXXX-XX2")).isNull();
+        assertThat(cache.get("XX-XXXX-XX3")).isNull();
+        verify(loanExternalService, times(2)).sendToManagers(anyList());
+    }
+
+    @DisplayName("Given full notification backlog when process request then release request and report backlog")
+    @Test
+    void processRequestWithFullBacklogFail() {
+        final String givenCustomerId = "XX-XXXX-XXX";
+        final LoanRequestDto givenDto = LoanRequestDto.builder()
+                .customerId(givenCustomerId)
+                .amount(new BigDecimal(10))
+                .approvers(Set.of("aaa", "bbb")).build();
+
+        doThrow(new NotificationBacklogException("Notification backlog is full")).when(loanExternalService)
+                .sendToManagers(anyList());
+
+        final List<LoanRequestResultDto> actual = service.processRequests(List.of(givenDto));
+
+        assertThat(actual).extracting(LoanRequestResultDto::getCustomerId, LoanRequestResultDto::getStatus)
+                .containsExactly(tuple(givenCustomerId, LoanRequestResultDto.Status.BACKLOGGED));
+        assertThat(cache.get(givenCustomerId)).isNull();
+        verify(loanJournal, times(1)).requestAdded(any(LoanRequest.class));
+        verify(loanJournal, times(1)).requestRemoved(givenCustomerId);
+        verifyNoMoreInteractions(loanJournal);
+    }
+
+    @DisplayName("Given large batch with duplicates when process in parallel then first request of customer accepted")
+    @Test
+    void processRequestsInParallelSuccess() {
+        final PartitionedBatchExecutor givenExecutor = new PartitionedBatchExecutor(4, 16, false);
+        final CustomerShardExecutor givenShardExecutor = new CustomerShardExecutor(4, false);
+        service = new LoanRequestService(cache, loanRequestLogsCache,
+                new LoanRequestConverter(), loanExternalService, givenExecutor, givenShardExecutor, loanJournal);
+        final List<LoanRequestDto> givenRequests = IntStream.range(0, 1000)
+                .mapToObj(index -> LoanRequestDto.builder()
+                        .customerId(String.format("XX-%04d-XXX", index % 500))
+                        .amount(new BigDecimal(index))
+                        .approvers(Set.of("aaa")).build())
+                .collect(Collectors.toList());
+
+        try {
+            final List<LoanRequestResultDto> actual = service.processRequests(givenRequests);
+
+            assertThat(actual).hasSize(1000);
+            assertThat(actual.subList(0, 500)).extracting(LoanRequestResultDto::getStatus)
+                    .containsOnly(LoanRequestResultDto.Status.ACCEPTED);
+            assertThat(actual.subList(500, 1000)).extracting(LoanRequestResultDto::getStatus)
+                    .containsOnly(LoanRequestResultDto.Status.REJECTED);
+            assertThat(actual).extracting(LoanRequestResultDto::getCustomerId).containsExactlyElementsOf(
+                    givenRequests.stream().map(LoanRequestDto::getCustomerId).collect(Collectors.toList()));
+            assertThat(cache.get("XX-0007-XXX").getAmount()).isEqualTo(new BigDecimal(7));
+            verify(loanExternalService, times(500)).sendToManagers(anyList());
+        } finally {
+            givenExecutor.shutdown();
+            givenShardExecutor.shutdown();
+        }
+    }
+
     @DisplayName("Given request in cache when not all managers approve then not send to customer")
     @Test
     void approveRequestWithNotAllApprovalsSuccess() {
@@ -149,7 +253,39 @@ class LoanRequestServiceTest {
 
         verify(loanExternalService, times(1)).sendToCustomer(expected);
         verify(loanRequestLogsCache, times(1)).add(any(LoanRequestLog.class));
-        verifyNoMoreInteractions(loanExternalService, loanRequestLogsCache);
+        verify(loanJournal, times(1)).requestApproved(givenCustomerId, "aaa");
+        verify(loanJournal, times(1)).logAdded(any(LoanRequestLog.class));
+        verify(loanJournal, times(1)).requestRemoved(givenCustomerId);
+        verifyNoMoreInteractions(loanExternalService, loanRequestLogsCache, loanJournal);
+    }
+
+    @DisplayName("Given request in cache when last manager approves concurrently then send to customer once")
+    @Test
+    void approveRequestConcurrentlySuccess() {
+        final String givenCustomerId = "XX-XXXX-XXX";
+        final LoanRequest given = new LoanRequest();
+        given.setManagerApprovals(Set.of(new ManagerApproval("aaa", false),
+                new ManagerApproval("bbb", true)));
+        given.setAmount(new BigDecimal(1));
+        given.setCustomerId(givenCustomerId);
+
+        cache.add(given);
+
+        IntStream.range(0, 64).parallel().forEach(index -> {
+            final ManagerApprovalDto givenApprovalDto = new ManagerApprovalDto();
+            givenApprovalDto.setUsername("aaa");
+            givenApprovalDto.setCustomerId(givenCustomerId);
+            try {
+                service.approveRequest(givenApprovalDto);
+            } catch (final ManagerApprovalException exception) {
+                assertThat(exception).hasMessageContaining("There is no pending request");
+            }
+        });
+
+        verify(loanExternalService, times(1)).sendToCustomer(any(NotificationToCustomerDto.class));
+        verify(loanRequestLogsCache, times(1)).add(any(LoanRequestLog.class));
+        verify(loanJournal, times(1)).requestRemoved(givenCustomerId);
+        assertThat(cache.get(givenCustomerId)).isNull();
     }
 
     @DisplayName("Given request in cache when bad manager username approve then throw exception")
@@ -175,4 +311,111 @@ class LoanRequestServiceTest {
 
         verifyNoMoreInteractions(loanExternalService, loanRequestLogsCache);
     }
-}
\ No newline at end of file
+
+    @DisplayName("Given no pending request when approve then throw exception")
+    @Test
+    void approveRequestWithoutPendingRequestFail() {
+        final ManagerApprovalDto givenApprovalDto = new ManagerApprovalDto();
+        givenApprovalDto.setUsername("aaa");
+        givenApprovalDto.setCustomerId("XX-XXXX-XXX");
+
+        assertThatThrownBy(() -> service.approveRequest(givenApprovalDto))
+                .isInstanceOf(ManagerApprovalException.class)
+                .hasMessage("There is no pending request for customer XX-XXXX-XXX.");
+
+        verifyNoMoreInteractions(loanExternalService, loanRequestLogsCache);
+    }
+
+    @DisplayName("Given notification to customer in flight when manager approves again then reject it and notify "
+            + "customer once")
+    @Test
+    void approveRequestReactiveTwiceWhileNotifyingFail() {
+        final LoanRequest given = new LoanRequest();
+        given.setManagerApprovals(Set.of(new ManagerApproval("aaa", false)));
+        given.setAmount(new BigDecimal(1));
+        given.setCustomerId("XX-XXXX-XXX");
+        cache.add(given);
+        final CompletableFuture<Void> givenDelivery = new CompletableFuture<>();
+        when(loanExternalService.notifyCustomer(any())).thenReturn(Mono.fromFuture(givenDelivery));
+
+        final CompletableFuture<Void> actualFirst = service.approveRequestReactive(createApproval("aaa",
+                "XX-XXXX-XXX")).toFuture();
+        final List<ManagerApprovalResultDto> actualSecond = service.approveRequestsReactive(List.of(
+                createApproval("aaa", "XX-XXXX-XXX"))).block();
+        givenDelivery.complete(null);
+        actualFirst.join();
+
+        assertThat(actualSecond).extracting(ManagerApprovalResultDto::getStatus, ManagerApprovalResultDto::getReason)
+                .containsExactly(tuple(ManagerApprovalResultDto.Status.REJECTED,
+                        "Request of customer XX-XXXX-XXX is already being completed."));
+        assertThat(cache.get("XX-XXXX-XXX")).isNull();
+        verify(loanExternalService, times(1)).notifyCustomer(any());
+    }
+
+    @DisplayName("Given customer not notified when approve again then request is completed")
+    @Test
+    void approveRequestReactiveAfterNotNotifiedSuccess() {
+        final LoanRequest given = new LoanRequest();
+        given.setManagerApprovals(Set.of(new ManagerApproval("aaa", false)));
+        given.setAmount(new BigDecimal(1));
+        given.setCustomerId("XX-XXXX-XXX");
+        cache.add(given);
+        when(loanExternalService.notifyCustomer(any())).thenReturn(Mono.error(new IllegalStateException("down")),
+                Mono.empty());
+
+        assertThatThrownBy(() -> service.approveRequestReactive(createApproval("aaa", "XX-XXXX-XXX")).block())
+                .isInstanceOf(NotificationBacklogException.class);
+        assertThat(cache.get("XX-XXXX-XXX")).isSameAs(given);
+        service.approveRequestReactive(createApproval("aaa", "XX-XXXX-XXX")).block();
+
+        assertThat(cache.get("XX-XXXX-XXX")).isNull();
+        verify(loanExternalService, times(2)).notifyCustomer(any());
+    }
+
+    @DisplayName("Given approvals of several customers when approve in bulk then get result of every approval")
+    @Test
+    void approveRequestsSuccess() {
+        final LoanRequest givenFirst = new LoanRequest();
+        givenFirst.setManagerApprovals(Set.of(new ManagerApproval("aaa", false),
+                new ManagerApproval("bbb", false)));
+        givenFirst.setAmount(new BigDecimal(1));
+        givenFirst.setCustomerId("XX-XXXX-XX1");
+        final LoanRequest givenSecond = new LoanRequest();
+        givenSecond.setManagerApprovals(Set.of(new ManagerApproval("aaa", false),
+                new ManagerApproval("ccc", false)));
+        givenSecond.setAmount(new BigDecimal(2));
+        givenSecond.setCustomerId("XX-XXXX-XX2");
+
+        cache.add(givenFirst);
+        cache.add(givenSecond);
+
+        final List<ManagerApprovalDto> givenApprovals = List.of(createApproval("aaa", "XX-XXXX-XX1"),
+                createApproval("aaa", "XX-XXXX-XX2"), createApproval("bbb", "XX-XXXX-XX1"),
+                createApproval("bbb", "XX-XXXX-XX2"), createApproval("aaa", "XX-XXXX-XX3"));
+
+        final List<ManagerApprovalResultDto> actual = service.approveRequests(givenApprovals);
+
+        assertThat(actual).extracting(ManagerApprovalResultDto::getCustomerId, ManagerApprovalResultDto::getStatus)
+                .containsExactly(tuple("XX-XXXX-XX1", ManagerApprovalResultDto.Status.APPROVED),
+                        tuple("XX-XXXX-XX2", ManagerApprovalResultDto.Status.APPROVED),
+                        tuple("XX-XXXX-XX1", ManagerApprovalResultDto.Status.COMPLETED),
+                        tuple("XX-XXXX-XX2", ManagerApprovalResultDto.Status.REJECTED),
+                        tuple("XX-XXXX-XX3", ManagerApprovalResultDto.Status.REJECTED));
+        assertThat(actual.get(3).getReason()).isEqualTo("Manager bbb is not among customer XX-XXXX-XX2 approvers.");
+        assertThat(actual.get(4).getReason()).isEqualTo("There is no pending request for customer XX-XXXX-XX3.");
+        assertThat(cache.get("XX-XXXX-XX1")).isNull();
+        assertThat(cache.get("XX-XXXX-XX2")).isNotNull();
+
+        verify(loanExternalService, times(1)).sendToCustomer(NotificationToCustomerDto.builder()
+                .customerId("XX-XXXX-XX1").amount(new BigDecimal(1)).build());
+        verify(loanRequestLogsCache, times(1)).add(any(LoanRequestLog.class));
+        verifyNoMoreInteractions(loanExternalService, loanRequestLogsCache);
+    }
+
+    private ManagerApprovalDto createApproval(final String username, final String customerId) {
+        final ManagerApprovalDto approval = new ManagerApprovalDto();
+        approval.setUsername(username);
+        approval.setCustomerId(customerId);
+        return approval;
+    }
+}
@@ -0,0 +1,162 @@
+package org.jurijz.loanamountapproval.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.converter.LoanRequestBinder;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestDto;
+import org.jurijz.loanamountapproval.domain.dto.LoanRequestResultDto;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LoanRequestStreamServiceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private LoanRequestStreamService service;
+
+    @Mock
+    private LoanRequestService loanRequestService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(loanRequestService.processRequest(any())).thenAnswer(invocation -> LoanRequestResultDto.builder()
+                .customerId(invocation.<LoanRequestDto>getArgument(0).getCustomerId())
+                .status(LoanRequestResultDto.Status.ACCEPTED)
+                .build());
+        service = new LoanRequestStreamService(loanRequestService, OBJECT_MAPPER, new LoanRequestBinder(OBJECT_MAPPER));
+    }
+
+    @DisplayName("Given JSON array of requests when process stream then process each request in order")
+    @Test
+    void processStreamJsonArraySuccess() throws Exception {
+        final List<LoanRequestDto> given = List.of(createRequest("11-1111-111"), createRequest("22-2222-222"));
+
+        final List<LoanRequestResultDto> actual = processStream(OBJECT_MAPPER.writeValueAsString(given));
+
+        assertThat(actual).extracting(LoanRequestResultDto::getCustomerId)
+                .containsExactly("11-1111-111", "22-2222-222");
+        assertThat(actual).extracting(LoanRequestResultDto::getStatus)
+                .containsOnly(LoanRequestResultDto.Status.ACCEPTED);
+        verify(loanRequestService, times(1)).processRequest(given.get(0));
+        verify(loanRequestService, times(1)).processRequest(given.get(1));
+        verifyNoMoreInteractions(loanRequestService);
+    }
+
+    @DisplayName("Given NDJSON with invalid and unreadable requests when process stream then reject only them")
+    @Test
+    void processStreamInvalidRequestsFail() throws Exception {
+        final String given = "{\"customerId\":\"!1-1111-111\",\"amount\":1,\"approvers\":[\"aaa\"]}\n"
+                + "{\"customerId\":\"22-2222-222\",\"amount\":\"many\",\"approvers\":[\"aaa\"]}\n"
+                + OBJECT_MAPPER.writeValueAsString(createRequest("33-3333-333")) + "\n";
+
+        final List<LoanRequestResultDto> actual = processStream(given);
+
+        assertThat(actual).extracting(LoanRequestResultDto::getCustomerId)
+                .containsExactly("!1-1111-111", "22-2222-222", "33-3333-333");
+        assertThat(actual).extracting(LoanRequestResultDto::getStatus)
+                .containsExactly(LoanRequestResultDto.Status.REJECTED, LoanRequestResultDto.Status.REJECTED,
+                        LoanRequestResultDto.Status.ACCEPTED);
+        assertThat(actual.get(0).getReason()).isEqualTo("Customer id must match pattern 'XX-XXXX-XXX'.");
+        assertThat(actual.get(1).getReason()).startsWith("Malformed request:");
+        verify(loanRequestService, times(1)).processRequest(createRequest("33-3333-333"));
+        verifyNoMoreInteractions(loanRequestService);
+    }
+
+    @DisplayName("Given NDJSON with null approvers when process stream then reject them and continue")
+    @Test
+    void processStreamNullApproversFail() throws Exception {
+        final String given = "{\"customerId\":\"11-1111-111\",\"amount\":1,\"approvers\":null}\n"
+                + "{\"customerId\":\"22-2222-222\",\"amount\":1,\"approvers\":[null]}\n"
+                + OBJECT_MAPPER.writeValueAsString(createRequest("33-3333-333")) + "\n";
+
+        final List<LoanRequestResultDto> actual = processStream(given);
+
+        assertThat(actual).extracting(LoanRequestResultDto::getCustomerId, LoanRequestResultDto::getStatus,
+                LoanRequestResultDto::getReason)
+                .containsExactly(tuple("11-1111-111", LoanRequestResultDto.Status.REJECTED,
+                                "Approvers cannot be null."),
+                        tuple("22-2222-222", LoanRequestResultDto.Status.REJECTED,
+                                "Approver username cannot be null."),
+                        tuple("33-3333-333", LoanRequestResultDto.Status.ACCEPTED, null));
+        verify(loanRequestService, times(1)).processRequest(createRequest("33-3333-333"));
+        verifyNoMoreInteractions(loanRequestService);
+    }
+
+    @DisplayName("Given malformed JSON in the middle of stream when process stream then stop after rejected line")
+    @Test
+    void processStreamMalformedJsonFail() throws Exception {
+        final String given = OBJECT_MAPPER.writeValueAsString(createRequest("11-1111-111")) + "\n"
+                + "{\"customerId\":\"22-2222-222\",\"amount\":}\n"
+                + OBJECT_MAPPER.writeValueAsString(createRequest("33-3333-333")) + "\n";
+
+        final List<LoanRequestResultDto> actual = processStream(given);
+
+        assertThat(actual).hasSize(2);
+        assertThat(actual.get(0).getStatus()).isEqualTo(LoanRequestResultDto.Status.ACCEPTED);
+        assertThat(actual.get(1).getStatus()).isEqualTo(LoanRequestResultDto.Status.REJECTED);
+        assertThat(actual.get(1).getReason()).startsWith("Malformed request stream:");
+        verify(loanRequestService, times(1)).processRequest(any());
+    }
+
+    @DisplayName("Given NDJSON requests when process stream then result is flushed before next request is processed")
+    @Test
+    void processStreamFlushEachResultSuccess() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final List<String> written = new ArrayList<>();
+        when(loanRequestService.processRequest(any())).thenAnswer(invocation -> {
+            written.add(output.toString(StandardCharsets.UTF_8));
+            return LoanRequestResultDto.builder()
+                    .customerId(invocation.<LoanRequestDto>getArgument(0).getCustomerId())
+                    .status(LoanRequestResultDto.Status.ACCEPTED)
+                    .build();
+        });
+        final String given = OBJECT_MAPPER.writeValueAsString(createRequest("11-1111-111")) + "\n"
+                + OBJECT_MAPPER.writeValueAsString(createRequest("22-2222-222")) + "\n";
+
+        service.processStream(new ByteArrayInputStream(given.getBytes(StandardCharsets.UTF_8)), output);
+
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0)).isEmpty();
+        assertThat(written.get(1)).contains("11-1111-111").doesNotContain("22-2222-222").endsWith("\n");
+    }
+
+    private List<LoanRequestResultDto> processStream(final String body) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.processStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output);
+        return Arrays.stream(output.toString(StandardCharsets.UTF_8).split("\n"))
+                .map(line -> {
+                    try {
+                        return OBJECT_MAPPER.readValue(line, LoanRequestResultDto.class);
+                    } catch (final Exception exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private LoanRequestDto createRequest(final String customerId) {
+        return LoanRequestDto.builder()
+                .customerId(customerId)
+                .amount(BigDecimal.ONE)
+                .approvers(Set.of("aaa"))
+                .build();
+    }
+}
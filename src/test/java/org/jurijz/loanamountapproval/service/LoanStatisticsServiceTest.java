@@ -7,14 +7,20 @@ import org.jurijz.loanamountapproval.domain.LoanApprovalStatistics;
 import org.jurijz.loanamountapproval.domain.LoanRequestLog;
 import org.jurijz.loanamountapproval.exception.StatisticsPeriodException;
 import org.jurijz.loanamountapproval.repository.LoanRequestLogsCache;
+import org.jurijz.loanamountapproval.repository.LoanRequestsCache;
+import org.jurijz.loanamountapproval.repository.LoanStatisticsCache;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.withinPercentage;
+import static org.mockito.Mockito.mock;
 
 class LoanStatisticsServiceTest {
 
@@ -24,7 +30,9 @@ class LoanStatisticsServiceTest {
     @BeforeEach
     void setUp() {
         cache = new LoanRequestLogsCache();
-        service = new LoanStatisticsService(cache);
+        service = new LoanStatisticsService(cache, new LoanStatisticsCache(cache, 1024), new LoanClusterService(
+                mock(LoanRequestService.class), new LoanRequestsCache(), cache, LoanClusterTransport.NONE,
+                "localhost:8080", List.of(), 128), Clock.systemDefaultZone());
     }
 
     @DisplayName("Given logs when gather statistics then get statistics object")
@@ -48,7 +56,10 @@ class LoanStatisticsServiceTest {
 
         final LoanApprovalStatistics actual = service.gatherStatistics(givenPeriodStart, givenPeriodEnd);
 
-        assertThat(actual).isEqualTo(expected);
+        assertThat(actual).usingRecursiveComparison().ignoringFields("p50", "p95", "p99").isEqualTo(expected);
+        assertThat(actual.getP50()).isCloseTo(new BigDecimal(9), withinPercentage(1));
+        assertThat(actual.getP95()).isCloseTo(new BigDecimal(18), withinPercentage(1));
+        assertThat(actual.getP99()).isCloseTo(new BigDecimal(18), withinPercentage(1));
     }
 
     @DisplayName("Given no logs when gather statistics then get empty statistics object")
@@ -87,7 +98,9 @@ class LoanStatisticsServiceTest {
 
         final LoanApprovalStatistics actual = service.gatherStatistics(givenPeriodStart, givenPeriodEnd);
 
-        assertThat(actual).isEqualTo(expected);
+        assertThat(actual).usingRecursiveComparison().ignoringFields("p50", "p95", "p99").isEqualTo(expected);
+        assertThat(actual.getP50()).isCloseTo(new BigDecimal(18), withinPercentage(1));
+        assertThat(actual.getP99()).isCloseTo(new BigDecimal(36), withinPercentage(1));
     }
 
     @DisplayName("Given start after end when gather stats then throw exception")
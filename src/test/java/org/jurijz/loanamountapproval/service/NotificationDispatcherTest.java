@@ -0,0 +1,103 @@
+package org.jurijz.loanamountapproval.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.jurijz.loanamountapproval.exception.NotificationBacklogException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationDispatcherTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        dispatcher.shutdown();
+    }
+
+    @DisplayName("Given failing delivery when dispatch then retry until delivered")
+    @Test
+    void dispatchWithFailuresRetrySuccess() throws Exception {
+        dispatcher = createDispatcher(10, 3);
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch delivered = new CountDownLatch(1);
+        final Mono<Void> given = Mono.defer(() -> attempts.incrementAndGet() < 3
+                ? Mono.<Void>error(new IOException("Connection refused"))
+                : Mono.<Void>empty().doOnSuccess(ignored -> delivered.countDown()));
+
+        dispatcher.dispatch(List.of(dispatcher.withRetries(given)));
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @DisplayName("Given delivery rejected by client error when dispatch then fail without retry")
+    @Test
+    void dispatchWithClientErrorFail() throws Exception {
+        dispatcher = createDispatcher(10, 3);
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch failed = new CountDownLatch(1);
+        final Mono<Void> given = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.<Void>error(WebClientResponseException.create(400, "Bad Request", null, null, null));
+        });
+
+        dispatcher.dispatch(List.of(dispatcher.withRetries(given).doOnError(exception -> failed.countDown())));
+
+        assertThat(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @DisplayName("Given shut down dispatcher when dispatch then reject deliveries and keep backlog empty")
+    @Test
+    void dispatchAfterShutdownFail() throws Exception {
+        dispatcher = createDispatcher(2, 1);
+        dispatcher.shutdown();
+
+        assertThatThrownBy(() -> dispatcher.dispatch(List.of(blockedDelivery(), blockedDelivery())))
+                .isInstanceOf(NotificationBacklogException.class)
+                .hasMessageContaining("Notification dispatcher is shut down");
+        assertThat(dispatcher.getBacklogSize()).isZero();
+    }
+
+    @DisplayName("Given full backlog when dispatch then reject all deliveries")
+    @Test
+    void dispatchWithFullBacklogFail() {
+        dispatcher = createDispatcher(2, 1);
+
+        dispatcher.dispatch(List.of(blockedDelivery()));
+
+        assertThatThrownBy(() -> dispatcher.dispatch(List.of(blockedDelivery(), blockedDelivery())))
+                .isInstanceOf(NotificationBacklogException.class)
+                .hasMessageContaining("Notification backlog is full");
+        assertThat(dispatcher.getBacklogSize()).isEqualTo(1);
+    }
+
+    private NotificationDispatcher createDispatcher(final int queueCapacity, final int maxRetries) {
+        return new NotificationDispatcher(queueCapacity, 1, maxRetries, Duration.ofMillis(10), Duration.ofSeconds(5),
+                false);
+    }
+
+    private Mono<Void> blockedDelivery() {
+        return Mono.fromRunnable(() -> {
+            try {
+                release.await();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+}